@@ -0,0 +1,32 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.EcommerceAppApplication;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.repository.TenantRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application without a web server on the test profile's in-memory H2 database, for benchmarks
+ * that need real transactions, row locks and JDBC batching rather than repository stand-ins.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(EcommerceAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run();
+    }
+
+    static Tenant createTenant(ConfigurableApplicationContext context, String domain) {
+        Tenant tenant = new Tenant();
+        tenant.setName("Benchmark " + domain);
+        tenant.setDomain(domain);
+        return context.getBean(TenantRepository.class).save(tenant);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Builds repository stand-ins that answer only the methods a benchmark needs, without Mockito's bookkeeping
+ * distorting the allocation numbers. Any other call fails loudly.
+ */
+final class InMemoryRepository<T> {
+
+    private final Class<T> type;
+    private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+    private InMemoryRepository(Class<T> type) {
+        this.type = type;
+    }
+
+    static <T> InMemoryRepository<T> of(Class<T> type) {
+        return new InMemoryRepository<>(type);
+    }
+
+    InMemoryRepository<T> on(String method, Function<Object[], Object> handler) {
+        handlers.put(method, handler);
+        return this;
+    }
+
+    T build() {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Function<Object[], Object> handler = handlers.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            switch (method.getName()) {
+                case "toString":
+                    return "InMemory" + type.getSimpleName();
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                default:
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+        });
+        return type.cast(proxy);
+    }
+}
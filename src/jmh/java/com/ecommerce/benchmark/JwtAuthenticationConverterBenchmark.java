@@ -0,0 +1,47 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.config.SecurityConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keycloak realm role -> granted authority mapping run for every authenticated request.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationConverterBenchmark {
+
+    private JwtAuthenticationConverter converter;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        converter = new SecurityConfig().jwtAuthenticationConverter();
+        Instant issuedAt = Instant.now();
+        jwt = Jwt.withTokenValue("benchmark-token")
+                .header("alg", "RS256")
+                .subject("3f6c2a51-8d7e-4a8b-9c1d-2e5f7a9b0c3d")
+                .claim("preferred_username", "benchmark")
+                .claim("realm_access", Map.of("roles",
+                        List.of("USER", "TENANT", "offline_access", "uma_authorization", "default-roles-ecommerce-realm")))
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(300))
+                .build();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return converter.convert(jwt);
+    }
+}
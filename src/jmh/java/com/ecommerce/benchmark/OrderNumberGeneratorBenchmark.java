@@ -0,0 +1,38 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.service.OrderNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order numbers issued by concurrent checkouts: the time-ordered generator, which shares one counter
+ * between all threads, against the random UUID prefix used before it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderNumberGeneratorBenchmark {
+
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Setup
+    public void setUp() {
+        orderNumberGenerator = new OrderNumberGenerator(7);
+    }
+
+    @Benchmark
+    public String next() {
+        return orderNumberGenerator.next();
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
@@ -0,0 +1,118 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.OrderRequestDto;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderNumberGenerator;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.OutboxService;
+import com.ecommerce.service.UserIdentityCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order creation with the database calls answered from memory, leaving the per-line validation,
+ * total computation, DTO mapping and serializing the outbox event.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderServiceBenchmark {
+
+    @Param({"1", "5", "25"})
+    public int lines;
+
+    private OrderService orderService;
+    private OrderRequestDto orderRequest;
+
+    @Setup
+    public void setUp() {
+        Tenant tenant = new Tenant();
+        tenant.setId(1L);
+        tenant.setName("Nike");
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        user.setTenant(tenant);
+
+        List<Product> products = new ArrayList<>();
+        List<OrderItemDto> items = new ArrayList<>();
+        for (long id = 1; id <= lines; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("Product " + id);
+            product.setPrice(new BigDecimal("19.99").add(BigDecimal.valueOf(id)));
+            product.setQuantity(Integer.MAX_VALUE);
+            product.setIsActive(true);
+            product.setTenant(tenant);
+            products.add(product);
+
+            OrderItemDto item = new OrderItemDto();
+            item.setProductId(id);
+            item.setQuantity((int) (id % 3) + 1);
+            items.add(item);
+        }
+        orderRequest = new OrderRequestDto();
+        orderRequest.setOrderItems(items);
+
+        Optional<AuthenticatedUser> identity = Optional.of(new AuthenticatedUser(user.getId(), user.getUsername(),
+                tenant.getId(), Role.RoleType.USER));
+        AtomicLong orderIds = new AtomicLong();
+        UserRepository userRepository = InMemoryRepository.of(UserRepository.class)
+                .on("findIdentityById", args -> identity)
+                .on("getReferenceById", args -> user)
+                .build();
+        ProductRepository productRepository = InMemoryRepository.of(ProductRepository.class)
+                .on("findAllById", args -> products)
+                .on("decrementQuantityIfAvailable", args -> 1)
+                .build();
+        OrderRepository orderRepository = InMemoryRepository.of(OrderRepository.class)
+                .on("save", args -> {
+                    Order order = (Order) args[0];
+                    order.setId(orderIds.incrementAndGet());
+                    return order;
+                })
+                .build();
+        OutboxEventRepository outboxEventRepository = InMemoryRepository.of(OutboxEventRepository.class)
+                .on("save", args -> args[0])
+                .build();
+        OutboxService outboxService = new OutboxService(outboxEventRepository, new ObjectMapper().findAndRegisterModules());
+        // Transactions only bracket the calls here; their cost belongs to the database
+        PlatformTransactionManager transactionManager = InMemoryRepository.of(PlatformTransactionManager.class)
+                .on("getTransaction", args -> new SimpleTransactionStatus())
+                .on("commit", args -> null)
+                .on("rollback", args -> null)
+                .build();
+        orderService = new OrderService(orderRepository, null, productRepository, userRepository,
+                new OrderNumberGenerator(0), null, outboxService, new UserIdentityCache(userRepository),
+                transactionManager);
+    }
+
+    @Benchmark
+    public OrderDto createOrder() {
+        return orderService.createOrder(orderRequest, 1L);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.dto.ProductDto;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity -> DTO conversion behind single-product reads ({@code getProductById}).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductServiceBenchmark {
+
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        Tenant tenant = new Tenant();
+        tenant.setId(1L);
+        tenant.setName("Nike");
+        tenant.setDomain("nike");
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Air Max 90");
+        product.setDescription("Classic running shoe with visible air cushioning");
+        product.setPrice(new BigDecimal("120.00"));
+        product.setQuantity(50);
+        product.setCategory("Shoes");
+        product.setBrand("Nike");
+        product.setIsActive(true);
+        product.setTenant(tenant);
+
+        Optional<Product> found = Optional.of(product);
+        ProductRepository productRepository = InMemoryRepository.of(ProductRepository.class)
+                .on("findById", args -> found)
+                .build();
+        productService = new ProductService(productRepository, null, null, null, null);
+    }
+
+    @Benchmark
+    public ProductDto getProductById() {
+        return productService.getProductById(1L, 1L);
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.ProductStockBucket;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductStockBucketRepository;
+import com.ecommerce.service.ProductStockService;
+import com.ecommerce.service.RetryingTransactionTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent reservations of one hot product through {@link ProductStockService#reserve} against the database,
+ * each in its own transaction retried on lock conflicts the way checkout runs it. Throughput should grow with
+ * the bucket count until the row locks stop being the bottleneck.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductStockBenchmark {
+
+    private static final int STOCK_PER_BUCKET = 1_000_000_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int buckets;
+
+    private ConfigurableApplicationContext context;
+    private RetryingTransactionTemplate transactionTemplate;
+    private ProductStockService productStockService;
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkDatabase.start();
+        transactionTemplate = new RetryingTransactionTemplate(context.getBean(PlatformTransactionManager.class), 5);
+        productStockService = context.getBean(ProductStockService.class);
+        Tenant tenant = BenchmarkDatabase.createTenant(context, "stock-" + buckets);
+
+        // Bucket rows are written directly, so one bucket takes the same path as several instead of the product row
+        product = transactionTemplate.execute(status -> {
+            Product hot = new Product();
+            hot.setName("Hot SKU");
+            hot.setPrice(new BigDecimal("10.00"));
+            hot.setQuantity(0);
+            hot.setStockBucketCount(buckets);
+            hot.setTenant(tenant);
+            hot = context.getBean(ProductRepository.class).save(hot);
+
+            List<ProductStockBucket> rows = new ArrayList<>();
+            for (int i = 0; i < buckets; i++) {
+                rows.add(new ProductStockBucket(hot, i, STOCK_PER_BUCKET));
+            }
+            context.getBean(ProductStockBucketRepository.class).saveAll(rows);
+            return hot;
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean reserve() {
+        return transactionTemplate.execute(status -> productStockService.reserve(product, 1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.config.TenantInterceptor;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.repository.TenantRepository;
+import com.ecommerce.service.TenantRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request tenant resolution: path splitting plus the registry lookup for /{tenant}/** and
+ * the skip path for /api/**.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TenantInterceptorBenchmark {
+
+    @Param({"/nike/products/search", "/api/user/products/search"})
+    public String path;
+
+    private TenantInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        Tenant tenant = new Tenant();
+        tenant.setId(1L);
+        tenant.setName("Nike");
+        tenant.setDomain("nike");
+        tenant.setIsActive(true);
+
+        TenantRegistry tenantRegistry = new TenantRegistry(InMemoryRepository.of(TenantRepository.class).build());
+        tenantRegistry.register(tenant);
+        interceptor = new TenantInterceptor(tenantRegistry);
+
+        request = new MockHttpServletRequest("GET", path);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public boolean preHandle() {
+        boolean proceed = interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+        return proceed;
+    }
+}
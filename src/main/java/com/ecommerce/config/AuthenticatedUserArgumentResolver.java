@@ -0,0 +1,79 @@
+package com.ecommerce.config;
+
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.service.UserIdentityCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * Supplies {@link AuthenticatedUser} controller parameters from the JWT subject.
+ * Requests without a token (the test profile) are still identified by the {@code userId} parameter;
+ * with a token that parameter is optional and must name the caller. A {@code @Nullable} parameter is left
+ * null instead of failing when the caller can't be identified.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String USER_ID_PARAMETER = "userId";
+
+    private final UserIdentityCache userIdentityCache;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public AuthenticatedUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                             NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Long requestedId = parseUserId(webRequest.getParameter(USER_ID_PARAMETER));
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication instanceof JwtAuthenticationToken token) {
+            String subject = token.getToken().getSubject();
+            Optional<AuthenticatedUser> user = userIdentityCache.findBySubject(subject);
+            if (user.isEmpty()) {
+                if (parameter.isOptional()) {
+                    return null;
+                }
+                throw new ResourceNotFoundException("User not found with Keycloak ID: " + subject);
+            }
+            if (requestedId != null && !requestedId.equals(user.get().getId())) {
+                throw new ValidationException("userId does not match the authenticated user");
+            }
+            return user.get();
+        }
+
+        if (requestedId == null) {
+            if (parameter.isOptional()) {
+                return null;
+            }
+            throw new ValidationException("userId is required");
+        }
+        return userIdentityCache.getById(requestedId);
+    }
+
+    private static Long parseUserId(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid userId: " + value);
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package com.ecommerce.config;
 
+import com.ecommerce.dto.ResolvedTenant;
+
 public class TenantContext {
     
-    private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
+    private static final ThreadLocal<ResolvedTenant> currentTenant = new ThreadLocal<>();
     
-    public static void setCurrentTenant(String tenant) {
+    public static void setCurrentTenant(ResolvedTenant tenant) {
         currentTenant.set(tenant);
     }
     
-    public static String getCurrentTenant() {
+    public static ResolvedTenant getResolvedTenant() {
         return currentTenant.get();
     }
     
+    public static String getCurrentTenant() {
+        ResolvedTenant tenant = currentTenant.get();
+        return tenant != null ? tenant.getDomain() : null;
+    }
+    
+    public static Long getCurrentTenantId() {
+        ResolvedTenant tenant = currentTenant.get();
+        return tenant != null ? tenant.getId() : null;
+    }
+    
     public static void clear() {
         currentTenant.remove();
     }
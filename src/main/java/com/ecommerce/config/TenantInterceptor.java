@@ -1,17 +1,20 @@
 package com.ecommerce.config;
 
-import com.ecommerce.service.TenantService;
+import com.ecommerce.dto.ResolvedTenant;
+import com.ecommerce.service.TenantRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.util.Optional;
+
 @Component
 @RequiredArgsConstructor
 public class TenantInterceptor implements HandlerInterceptor {
 
-    private final TenantService tenantService;
+    private final TenantRegistry tenantRegistry;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -25,14 +28,13 @@ public class TenantInterceptor implements HandlerInterceptor {
             // Skip for API endpoints that don't follow tenant pattern
             if (!potentialTenant.startsWith("api") && !potentialTenant.startsWith("h2-console") &&
                 !potentialTenant.startsWith("actuator")) {
-                try {
-                    // Validate tenant exists
-                    tenantService.getTenantByDomain(potentialTenant);
-                    TenantContext.setCurrentTenant(potentialTenant);
-                } catch (Exception e) {
+                // Validate tenant exists
+                Optional<ResolvedTenant> tenant = tenantRegistry.resolve(potentialTenant);
+                if (tenant.isEmpty()) {
                     response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                     return false;
                 }
+                TenantContext.setCurrentTenant(tenant.get());
             }
         }
 
@@ -1,7 +1,12 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.BulkOrderCancelRequest;
+import com.ecommerce.dto.BulkOrderCancelResult;
+import com.ecommerce.dto.BulkOrderStatusRequest;
+import com.ecommerce.dto.BulkOrderStatusResult;
 import com.ecommerce.dto.TenantDto;
 import com.ecommerce.dto.UserDto;
+import com.ecommerce.service.OrderBulkService;
 import com.ecommerce.service.TenantService;
 import com.ecommerce.service.UserService;
 import jakarta.validation.Valid;
@@ -21,6 +26,7 @@ public class AdminController {
     
     private final TenantService tenantService;
     private final UserService userService;
+    private final OrderBulkService orderBulkService;
 
 //    @GetMapping("/tenant")
 //    public ResponseEntity<String> getTenant() {
@@ -92,4 +98,18 @@ public class AdminController {
         Page<UserDto> users = userService.getUsersByTenant(tenantId, pageable);
         return ResponseEntity.ok(users);
     }
+    
+    // Order Management
+    @PostMapping("/orders/cancel")
+    public ResponseEntity<BulkOrderCancelResult> cancelOrders(@Valid @RequestBody BulkOrderCancelRequest request) {
+        BulkOrderCancelResult result = orderBulkService.cancelOrders(request.getOrderIds());
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping("/orders/status")
+    public ResponseEntity<BulkOrderStatusResult> transitionOrders(@Valid @RequestBody BulkOrderStatusRequest request) {
+        BulkOrderStatusResult result = orderBulkService.transitionOrders(request.getOrderIds(), request.getFrom(),
+                request.getTo());
+        return ResponseEntity.ok(result);
+    }
 }
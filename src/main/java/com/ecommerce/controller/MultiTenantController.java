@@ -1,20 +1,28 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.config.TenantContext;
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.LovedProductDto;
 import com.ecommerce.dto.OrderDto;
 import com.ecommerce.dto.OrderRequestDto;
 import com.ecommerce.dto.ProductDto;
 import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.dto.ProductSearchResponse;
+import com.ecommerce.dto.RelatedProductDto;
+import com.ecommerce.service.FavoriteCountService;
+import com.ecommerce.service.OrderIdempotencyService;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.ProductService;
 import com.ecommerce.service.FavoriteProductService;
-import com.ecommerce.service.TenantService;
+import com.ecommerce.service.RelatedProductIndex;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,80 +36,133 @@ public class MultiTenantController {
     
     private final ProductService productService;
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
     private final FavoriteProductService favoriteProductService;
-    private final TenantService tenantService;
+    private final RelatedProductIndex relatedProductIndex;
+    private final FavoriteCountService favoriteCountService;
     
     // Tenant-specific product browsing
     @GetMapping("/products")
-    public ResponseEntity<Page<ProductDto>> getTenantProducts(Pageable pageable) {
-        String tenantDomain = TenantContext.getCurrentTenant();
-        Long tenantId = tenantService.getTenantByDomain(tenantDomain).getId();
+    public ResponseEntity<Page<ProductDto>> getTenantProducts(Pageable pageable,
+                                                              @Nullable AuthenticatedUser user) {
+        Long tenantId = TenantContext.getCurrentTenantId();
         Page<ProductDto> products = productService.getProductsByTenant(tenantId, pageable);
+        markFavorites(user, products.getContent());
+        return ResponseEntity.ok(products);
+    }
+    
+    @GetMapping(value = "/products", params = "after")
+    public ResponseEntity<CursorPage<ProductDto>> scrollTenantProducts(@RequestParam String after,
+                                                                      @RequestParam(required = false) Integer size,
+                                                                      @Nullable AuthenticatedUser user) {
+        Long tenantId = TenantContext.getCurrentTenantId();
+        CursorPage<ProductDto> products = productService.getProductsByTenantAfter(tenantId, after, size);
+        markFavorites(user, products.getContent());
         return ResponseEntity.ok(products);
     }
     
     @GetMapping("/products/search")
-    public ResponseEntity<Page<ProductDto>> searchTenantProducts(ProductSearchDto searchDto) {
-        String tenantDomain = TenantContext.getCurrentTenant();
-        Long tenantId = tenantService.getTenantByDomain(tenantDomain).getId();
+    public ResponseEntity<Page<ProductDto>> searchTenantProducts(ProductSearchDto searchDto,
+                                                                 @Nullable AuthenticatedUser user) {
+        Long tenantId = TenantContext.getCurrentTenantId();
         Page<ProductDto> products = productService.searchProducts(searchDto, tenantId);
+        markFavorites(user, products.getContent());
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/products/search/faceted")
+    public ResponseEntity<ProductSearchResponse> searchTenantProductsWithFacets(
+            ProductSearchDto searchDto, @Nullable AuthenticatedUser user) {
+        Long tenantId = TenantContext.getCurrentTenantId();
+        ProductSearchResponse response = productService.searchProductsWithFacets(searchDto, tenantId);
+        markFavorites(user, response.getProducts().getContent());
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/products/categories")
     public ResponseEntity<List<String>> getTenantCategories() {
-        String tenantDomain = TenantContext.getCurrentTenant();
-        Long tenantId = tenantService.getTenantByDomain(tenantDomain).getId();
+        Long tenantId = TenantContext.getCurrentTenantId();
         List<String> categories = productService.getCategories(tenantId);
         return ResponseEntity.ok(categories);
     }
     
     @GetMapping("/products/brands")
     public ResponseEntity<List<String>> getTenantBrands() {
-        String tenantDomain = TenantContext.getCurrentTenant();
-        Long tenantId = tenantService.getTenantByDomain(tenantDomain).getId();
+        Long tenantId = TenantContext.getCurrentTenantId();
         List<String> brands = productService.getBrands(tenantId);
         return ResponseEntity.ok(brands);
     }
     
+    @GetMapping("/products/{id}/related")
+    public ResponseEntity<List<RelatedProductDto>> getRelatedProducts(@PathVariable Long id,
+                                                                      @RequestParam(required = false) Integer limit) {
+        Long tenantId = TenantContext.getCurrentTenantId();
+        List<RelatedProductDto> related = relatedProductIndex.getRelatedProducts(tenantId, id, limit);
+        return ResponseEntity.ok(related);
+    }
+    
+    @GetMapping("/products/most-loved")
+    public ResponseEntity<List<LovedProductDto>> getMostLovedProducts(@RequestParam(required = false) Integer limit) {
+        Long tenantId = TenantContext.getCurrentTenantId();
+        List<LovedProductDto> mostLoved = favoriteCountService.getMostLoved(tenantId, limit);
+        return ResponseEntity.ok(mostLoved);
+    }
+    
     // Tenant-specific order management
     @PostMapping("/orders")
     public ResponseEntity<OrderDto> createTenantOrder(@Valid @RequestBody OrderRequestDto orderRequest,
-                                                     @RequestParam Long userId) {
-        OrderDto createdOrder = orderService.createOrder(orderRequest, userId);
+                                                     AuthenticatedUser user,
+                                                     @RequestHeader(value = "Idempotency-Key", required = false)
+                                                     String idempotencyKey) {
+        OrderDto createdOrder = idempotencyKey != null
+                ? orderIdempotencyService.createOrder(idempotencyKey, user.getId(), orderRequest)
+                : orderService.createOrder(orderRequest, user.getId());
         return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
     }
     
     @GetMapping("/orders")
-    public ResponseEntity<Page<OrderDto>> getTenantOrders(@RequestParam Long userId, Pageable pageable) {
-        Page<OrderDto> orders = orderService.getOrdersByUser(userId, pageable);
+    public ResponseEntity<Page<OrderDto>> getTenantOrders(AuthenticatedUser user, Pageable pageable) {
+        Page<OrderDto> orders = orderService.getOrdersByUser(user.getId(), pageable);
+        return ResponseEntity.ok(orders);
+    }
+    
+    @GetMapping(value = "/orders", params = "after")
+    public ResponseEntity<CursorPage<OrderDto>> scrollTenantOrders(AuthenticatedUser user,
+                                                                  @RequestParam String after,
+                                                                  @RequestParam(required = false) Integer size) {
+        CursorPage<OrderDto> orders = orderService.getOrdersByUserAfter(user.getId(), after, size);
         return ResponseEntity.ok(orders);
     }
     
     @GetMapping("/orders/{id}")
-    public ResponseEntity<OrderDto> getTenantOrderById(@PathVariable Long id, @RequestParam Long userId) {
-        OrderDto order = orderService.getOrderById(id, userId);
+    public ResponseEntity<OrderDto> getTenantOrderById(@PathVariable Long id, AuthenticatedUser user) {
+        OrderDto order = orderService.getOrderById(id, user.getId());
         return ResponseEntity.ok(order);
     }
     
     // Tenant-specific favorite products
     @PostMapping("/favorites/{productId}")
-    public ResponseEntity<Void> addToTenantFavorites(@PathVariable Long productId, @RequestParam Long userId) {
-        favoriteProductService.addToFavorites(userId, productId);
+    public ResponseEntity<Void> addToTenantFavorites(@PathVariable Long productId, AuthenticatedUser user) {
+        favoriteProductService.addToFavorites(user.getId(), productId);
         return ResponseEntity.ok().build();
     }
     
     @DeleteMapping("/favorites/{productId}")
-    public ResponseEntity<Void> removeFromTenantFavorites(@PathVariable Long productId, @RequestParam Long userId) {
-        favoriteProductService.removeFromFavorites(userId, productId);
+    public ResponseEntity<Void> removeFromTenantFavorites(@PathVariable Long productId, AuthenticatedUser user) {
+        favoriteProductService.removeFromFavorites(user.getId(), productId);
         return ResponseEntity.ok().build();
     }
     
     @GetMapping("/favorites")
-    public ResponseEntity<Page<ProductDto>> getTenantFavoriteProducts(@RequestParam Long userId, Pageable pageable) {
-        String tenantDomain = TenantContext.getCurrentTenant();
-        Long tenantId = tenantService.getTenantByDomain(tenantDomain).getId();
-        Page<ProductDto> favorites = favoriteProductService.getFavoriteProductsByTenant(userId, tenantId, pageable);
+    public ResponseEntity<Page<ProductDto>> getTenantFavoriteProducts(AuthenticatedUser user, Pageable pageable) {
+        Long tenantId = TenantContext.getCurrentTenantId();
+        Page<ProductDto> favorites = favoriteProductService.getFavoriteProductsByTenant(user.getId(), tenantId, pageable);
         return ResponseEntity.ok(favorites);
     }
+    
+    private void markFavorites(AuthenticatedUser user, List<ProductDto> products) {
+        if (user != null) {
+            favoriteProductService.markFavorites(user.getId(), products);
+        }
+    }
 }
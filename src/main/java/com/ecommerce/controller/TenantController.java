@@ -1,19 +1,25 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.dto.ProductDto;
 import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.dto.ProductSearchResponse;
+import com.ecommerce.dto.SalesReport;
 import com.ecommerce.dto.UserDto;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.service.SalesRollupService;
 import com.ecommerce.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -24,6 +30,7 @@ public class TenantController {
     
     private final ProductService productService;
     private final UserService userService;
+    private final SalesRollupService salesRollupService;
     @PostMapping("/products")
     public ResponseEntity<ProductDto> createProduct(@Valid @RequestBody ProductDto productDto, 
                                                    @RequestParam Long tenantId) {
@@ -37,6 +44,14 @@ public class TenantController {
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping(value = "/products", params = "after")
+    public ResponseEntity<CursorPage<ProductDto>> scrollProducts(@RequestParam Long tenantId,
+                                                                @RequestParam String after,
+                                                                @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDto> products = productService.getProductsByTenantAfter(tenantId, after, size);
+        return ResponseEntity.ok(products);
+    }
+    
     @GetMapping("/products/{id}")
     public ResponseEntity<ProductDto> getProductById(@PathVariable Long id, @RequestParam Long tenantId) {
         ProductDto product = productService.getProductById(id, tenantId);
@@ -65,6 +80,14 @@ public class TenantController {
         return ResponseEntity.ok(updatedProduct);
     }
     
+    @PutMapping("/products/{id}/stock-buckets")
+    public ResponseEntity<ProductDto> updateStockBuckets(@PathVariable Long id,
+                                                         @RequestParam Integer buckets,
+                                                         @RequestParam Long tenantId) {
+        ProductDto updatedProduct = productService.updateStockBuckets(id, buckets, tenantId);
+        return ResponseEntity.ok(updatedProduct);
+    }
+    
     @GetMapping("/products/search")
     public ResponseEntity<Page<ProductDto>> searchProducts(@RequestParam Long tenantId,
                                                           ProductSearchDto searchDto) {
@@ -72,6 +95,13 @@ public class TenantController {
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/products/search/faceted")
+    public ResponseEntity<ProductSearchResponse> searchProductsWithFacets(@RequestParam Long tenantId,
+                                                                          ProductSearchDto searchDto) {
+        ProductSearchResponse response = productService.searchProductsWithFacets(searchDto, tenantId);
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/products/categories")
     public ResponseEntity<List<String>> getCategories(@RequestParam Long tenantId) {
         List<String> categories = productService.getCategories(tenantId);
@@ -96,4 +126,15 @@ public class TenantController {
         Page<UserDto> users = userService.getUsersByTenant(tenantId, pageable);
         return ResponseEntity.ok(users);
     }
+    
+    // Reporting
+    @GetMapping("/reports/sales")
+    public ResponseEntity<SalesReport> getSalesReport(
+            @RequestParam Long tenantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") String groupBy) {
+        SalesReport report = salesRollupService.getSalesReport(tenantId, from, to, groupBy);
+        return ResponseEntity.ok(report);
+    }
 }
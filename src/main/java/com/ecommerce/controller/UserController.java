@@ -1,11 +1,19 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.dto.BulkFavoriteRequest;
+import com.ecommerce.dto.BulkFavoriteResult;
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.dto.OrderDto;
 import com.ecommerce.dto.OrderRequestDto;
 import com.ecommerce.dto.ProductDto;
 import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.dto.ProductSearchResponse;
+import com.ecommerce.dto.ReservationDto;
+import com.ecommerce.service.OrderIdempotencyService;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.service.StockReservationService;
 import com.ecommerce.service.FavoriteProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -13,10 +21,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/user")
@@ -26,20 +36,43 @@ public class UserController {
     
     private final ProductService productService;
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final StockReservationService stockReservationService;
     private final FavoriteProductService favoriteProductService;
 
     @GetMapping("/products")
-    public ResponseEntity<Page<ProductDto>> getAllProducts(Pageable pageable) {
+    public ResponseEntity<Page<ProductDto>> getAllProducts(Pageable pageable,
+                                                           @Nullable AuthenticatedUser user) {
         Page<ProductDto> products = productService.getAllProducts(pageable);
+        markFavorites(user, products.getContent());
+        return ResponseEntity.ok(products);
+    }
+    
+    @GetMapping(value = "/products", params = "after")
+    public ResponseEntity<CursorPage<ProductDto>> scrollAllProducts(@RequestParam String after,
+                                                                   @RequestParam(required = false) Integer size,
+                                                                   @Nullable AuthenticatedUser user) {
+        CursorPage<ProductDto> products = productService.getAllProductsAfter(after, size);
+        markFavorites(user, products.getContent());
         return ResponseEntity.ok(products);
     }
     
     @GetMapping("/products/search")
-    public ResponseEntity<Page<ProductDto>> searchProducts(ProductSearchDto searchDto) {
+    public ResponseEntity<Page<ProductDto>> searchProducts(ProductSearchDto searchDto,
+                                                           @Nullable AuthenticatedUser user) {
         Page<ProductDto> products = productService.searchProducts(searchDto, null);
+        markFavorites(user, products.getContent());
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/products/search/faceted")
+    public ResponseEntity<ProductSearchResponse> searchProductsWithFacets(ProductSearchDto searchDto,
+                                                                          @Nullable AuthenticatedUser user) {
+        ProductSearchResponse response = productService.searchProductsWithFacets(searchDto, null);
+        markFavorites(user, response.getProducts().getContent());
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/products/categories")
     public ResponseEntity<List<String>> getCategories() {
         List<String> categories = productService.getCategories(null);
@@ -55,60 +88,119 @@ public class UserController {
     // Order Management
     @PostMapping("/orders")
     public ResponseEntity<OrderDto> createOrder(@Valid @RequestBody OrderRequestDto orderRequest,
-                                               @RequestParam Long userId) {
-        OrderDto createdOrder = orderService.createOrder(orderRequest, userId);
+                                               AuthenticatedUser user,
+                                               @RequestHeader(value = "Idempotency-Key", required = false)
+                                               String idempotencyKey) {
+        OrderDto createdOrder = idempotencyKey != null
+                ? orderIdempotencyService.createOrder(idempotencyKey, user.getId(), orderRequest)
+                : orderService.createOrder(orderRequest, user.getId());
         return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
     }
     
     @GetMapping("/orders")
-    public ResponseEntity<Page<OrderDto>> getUserOrders(@RequestParam Long userId, Pageable pageable) {
-        Page<OrderDto> orders = orderService.getOrdersByUser(userId, pageable);
+    public ResponseEntity<Page<OrderDto>> getUserOrders(AuthenticatedUser user, Pageable pageable) {
+        Page<OrderDto> orders = orderService.getOrdersByUser(user.getId(), pageable);
+        return ResponseEntity.ok(orders);
+    }
+    
+    @GetMapping(value = "/orders", params = "after")
+    public ResponseEntity<CursorPage<OrderDto>> scrollUserOrders(AuthenticatedUser user,
+                                                                @RequestParam String after,
+                                                                @RequestParam(required = false) Integer size) {
+        CursorPage<OrderDto> orders = orderService.getOrdersByUserAfter(user.getId(), after, size);
         return ResponseEntity.ok(orders);
     }
     
     @GetMapping("/orders/{id}")
-    public ResponseEntity<OrderDto> getOrderById(@PathVariable Long id, @RequestParam Long userId) {
-        OrderDto order = orderService.getOrderById(id, userId);
+    public ResponseEntity<OrderDto> getOrderById(@PathVariable Long id, AuthenticatedUser user) {
+        OrderDto order = orderService.getOrderById(id, user.getId());
         return ResponseEntity.ok(order);
     }
     
     @PutMapping("/orders/{id}/status")
     public ResponseEntity<OrderDto> updateOrderStatus(@PathVariable Long id,
                                                     @RequestParam String status,
-                                                    @RequestParam Long userId) {
-        OrderDto updatedOrder = orderService.updateOrderStatus(id, 
-                com.ecommerce.entity.Order.OrderStatus.valueOf(status.toUpperCase()), userId);
+                                                    AuthenticatedUser user) {
+        OrderDto updatedOrder = orderService.updateOrderStatus(id, status, user.getId());
         return ResponseEntity.ok(updatedOrder);
     }
     
     @PutMapping("/orders/{id}/cancel")
-    public ResponseEntity<Void> cancelOrder(@PathVariable Long id, @RequestParam Long userId) {
-        orderService.cancelOrder(id, userId);
+    public ResponseEntity<Void> cancelOrder(@PathVariable Long id, AuthenticatedUser user) {
+        orderService.cancelOrder(id, user.getId());
         return ResponseEntity.ok().build();
     }
     
+    // Stock Reservations
+    @PostMapping("/reservations")
+    public ResponseEntity<ReservationDto> reserveStock(@Valid @RequestBody OrderRequestDto orderRequest,
+                                                       AuthenticatedUser user,
+                                                       @RequestParam(required = false) Long ttlSeconds) {
+        ReservationDto reservation = stockReservationService.reserve(orderRequest, user.getId(), ttlSeconds);
+        return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+    }
+    
+    @GetMapping("/reservations/{id}")
+    public ResponseEntity<ReservationDto> getReservation(@PathVariable String id, AuthenticatedUser user) {
+        ReservationDto reservation = stockReservationService.getReservation(id, user.getId());
+        return ResponseEntity.ok(reservation);
+    }
+    
+    @PostMapping("/reservations/{id}/confirm")
+    public ResponseEntity<OrderDto> confirmReservation(@PathVariable String id, AuthenticatedUser user) {
+        OrderDto createdOrder = stockReservationService.confirm(id, user.getId());
+        return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
+    }
+    
+    @DeleteMapping("/reservations/{id}")
+    public ResponseEntity<Void> cancelReservation(@PathVariable String id, AuthenticatedUser user) {
+        stockReservationService.cancel(id, user.getId());
+        return ResponseEntity.noContent().build();
+    }
+    
     // Favorite Products
     @PostMapping("/favorites/{productId}")
-    public ResponseEntity<Void> addToFavorites(@PathVariable Long productId, @RequestParam Long userId) {
-        favoriteProductService.addToFavorites(userId, productId);
+    public ResponseEntity<Void> addToFavorites(@PathVariable Long productId, AuthenticatedUser user) {
+        favoriteProductService.addToFavorites(user.getId(), productId);
         return ResponseEntity.ok().build();
     }
     
     @DeleteMapping("/favorites/{productId}")
-    public ResponseEntity<Void> removeFromFavorites(@PathVariable Long productId, @RequestParam Long userId) {
-        favoriteProductService.removeFromFavorites(userId, productId);
+    public ResponseEntity<Void> removeFromFavorites(@PathVariable Long productId, AuthenticatedUser user) {
+        favoriteProductService.removeFromFavorites(user.getId(), productId);
         return ResponseEntity.ok().build();
     }
     
+    @PostMapping("/favorites/batch")
+    public ResponseEntity<BulkFavoriteResult> updateFavorites(@RequestBody BulkFavoriteRequest request,
+                                                              AuthenticatedUser user) {
+        BulkFavoriteResult result = favoriteProductService.updateFavorites(user.getId(), request.getAdd(),
+                request.getRemove());
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/favorites")
-    public ResponseEntity<Page<ProductDto>> getFavoriteProducts(@RequestParam Long userId, Pageable pageable) {
-        Page<ProductDto> favorites = favoriteProductService.getFavoriteProducts(userId, pageable);
+    public ResponseEntity<Page<ProductDto>> getFavoriteProducts(AuthenticatedUser user, Pageable pageable) {
+        Page<ProductDto> favorites = favoriteProductService.getFavoriteProducts(user.getId(), pageable);
         return ResponseEntity.ok(favorites);
     }
     
     @GetMapping("/favorites/check/{productId}")
-    public ResponseEntity<Boolean> isFavorite(@PathVariable Long productId, @RequestParam Long userId) {
-        boolean isFavorite = favoriteProductService.isFavorite(userId, productId);
+    public ResponseEntity<Boolean> isFavorite(@PathVariable Long productId, AuthenticatedUser user) {
+        boolean isFavorite = favoriteProductService.isFavorite(user.getId(), productId);
         return ResponseEntity.ok(isFavorite);
     }
+    
+    @GetMapping("/favorites/check")
+    public ResponseEntity<Map<Long, Boolean>> areFavorites(@RequestParam List<Long> productIds,
+                                                           AuthenticatedUser user) {
+        Map<Long, Boolean> favorites = favoriteProductService.isFavorite(user.getId(), productIds);
+        return ResponseEntity.ok(favorites);
+    }
+    
+    private void markFavorites(AuthenticatedUser user, List<ProductDto> products) {
+        if (user != null) {
+            favoriteProductService.markFavorites(user.getId(), products);
+        }
+    }
 }
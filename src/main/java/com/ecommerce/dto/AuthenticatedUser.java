@@ -0,0 +1,17 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Role;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class AuthenticatedUser {
+    
+    private final Long id;
+    private final String username;
+    private final Long tenantId;
+    private final Role.RoleType role;
+}
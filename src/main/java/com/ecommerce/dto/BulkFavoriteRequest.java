@@ -0,0 +1,16 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFavoriteRequest {
+    
+    private List<Long> add;
+    private List<Long> remove;
+}
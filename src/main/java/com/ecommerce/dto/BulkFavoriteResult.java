@@ -0,0 +1,17 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFavoriteResult {
+    
+    private List<Long> added;
+    private List<Long> removed;
+    private List<Long> notFound;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderCancelRequest {
+    
+    @NotEmpty(message = "At least one order id is required")
+    private List<Long> orderIds;
+}
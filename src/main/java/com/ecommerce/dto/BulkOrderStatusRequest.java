@@ -0,0 +1,25 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Order;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusRequest {
+    
+    @NotEmpty(message = "At least one order id is required")
+    private List<Long> orderIds;
+    
+    @NotNull(message = "From status is required")
+    private Order.OrderStatus from;
+    
+    @NotNull(message = "To status is required")
+    private Order.OrderStatus to;
+}
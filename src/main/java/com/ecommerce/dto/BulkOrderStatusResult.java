@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusResult {
+    
+    private Order.OrderStatus from;
+    private Order.OrderStatus to;
+    private int requested;
+    private int transitioned;
+    private List<OrderStatusOutcome> outcomes;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class FavoriteCountEntry {
+    
+    private final Long productId;
+    private final Long tenantId;
+    private final Boolean isActive;
+    private final Long favoriteCount;
+}
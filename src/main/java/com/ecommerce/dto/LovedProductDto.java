@@ -0,0 +1,16 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LovedProductDto {
+    
+    private Long productId;
+    
+    // Number of users who have the product in their favorites
+    private Long favoriteCount;
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+    
+    private Type type;
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private Long tenantId;
+    private Order.OrderStatus status;
+    private Order.OrderStatus previousStatus;
+    private BigDecimal totalAmount;
+    private Integer totalQuantity;
+    private List<OrderItemDto> orderItems;
+    private LocalDateTime orderCreatedAt;
+    private LocalDateTime occurredAt;
+    
+    public enum Type {
+        ORDER_CREATED, ORDER_STATUS_CHANGED, ORDER_CANCELLED
+    }
+}
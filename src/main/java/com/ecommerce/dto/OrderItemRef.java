@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemRef {
+    
+    private Long id;
+    private Long orderId;
+    private Long productId;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusOutcome {
+    
+    private Long orderId;
+    private Result result;
+    private Order.OrderStatus status;
+    
+    public enum Result {
+        TRANSITIONED, NOT_FOUND, INVALID_STATUS, CONFLICT
+    }
+}
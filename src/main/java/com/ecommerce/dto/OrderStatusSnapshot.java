@@ -0,0 +1,24 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusSnapshot {
+    
+    private Long id;
+    private Order.OrderStatus status;
+    private String orderNumber;
+    private Long userId;
+    private Long tenantId;
+    private BigDecimal totalAmount;
+    private Integer totalQuantity;
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -36,4 +37,13 @@ public class ProductDto {
     private Boolean isActive;
     private Long tenantId;
     private String tenantName;
+    
+    // Only set when the listing was requested for a user
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean favorited;
+    
+    public ProductDto(Long id, String name, String description, BigDecimal price, Integer quantity, String category,
+                      String brand, Boolean isActive, Long tenantId, String tenantName) {
+        this(id, name, description, price, quantity, category, brand, isActive, tenantId, tenantName, null);
+    }
 }
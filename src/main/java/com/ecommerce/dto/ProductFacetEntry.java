@@ -0,0 +1,17 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductFacetEntry {
+    
+    private final Long productId;
+    private final Long tenantId;
+    private final String category;
+    private final String brand;
+    private final Boolean isActive;
+}
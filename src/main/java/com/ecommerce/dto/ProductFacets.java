@@ -0,0 +1,16 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacets {
+    
+    private List<FacetCount> categories;
+    private List<FacetCount> brands;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchDocument {
+    
+    private Long id;
+    private Long tenantId;
+    private String name;
+    private String description;
+    private String category;
+    private String brand;
+    private BigDecimal price;
+    private Boolean isActive;
+}
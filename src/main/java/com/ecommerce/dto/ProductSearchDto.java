@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,8 +15,13 @@ public class ProductSearchDto {
     private String name;
     private String category;
     private String brand;
+    private List<String> categories;
+    private List<String> brands;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean inStock;
     private Integer page = 0;
     private Integer size = 10;
-    private String sortBy = "name";
+    private String sortBy = "relevance";
     private String sortDirection = "ASC";
 }
@@ -0,0 +1,19 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDto {
+    
+    private String id;
+    private Long userId;
+    private List<OrderItemDto> items;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class ResolvedTenant {
+    
+    private final Long id;
+    private final String name;
+    private final String domain;
+    private final boolean active;
+}
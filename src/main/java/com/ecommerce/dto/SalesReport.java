@@ -0,0 +1,28 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReport {
+    
+    private Long tenantId;
+    private LocalDate from;
+    private LocalDate to;
+    private GroupBy groupBy;
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+    private List<SalesReportRow> rows;
+    
+    public enum GroupBy {
+        DAY, PRODUCT, CATEGORY
+    }
+}
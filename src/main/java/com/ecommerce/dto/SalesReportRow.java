@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReportRow {
+    
+    // The day (ISO date), product id or category name the row is grouped by
+    private String key;
+    private String category;
+    private Long orders;
+    private Long units;
+    private BigDecimal revenue;
+}
@@ -14,8 +14,9 @@ import java.time.LocalDateTime;
 @Data
 public abstract class BaseEntity {
     
+    // Pooled per-entity sequences (a table on MySQL) so Hibernate can batch inserts; IDENTITY disables batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @CreatedDate
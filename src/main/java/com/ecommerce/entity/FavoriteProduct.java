@@ -8,18 +8,24 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "favorite_products", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "product_id"}))
+       uniqueConstraints = @UniqueConstraint(name = FavoriteProduct.USER_PRODUCT_UNIQUE,
+                                             columnNames = {"user_id", "product_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 public class FavoriteProduct extends BaseEntity {
     
+    // Named so FavoriteProductService can tell which one an insert violated
+    public static final String USER_PRODUCT_UNIQUE = "uk_favorite_products_user_product";
+    public static final String USER_FOREIGN_KEY = "fk_favorite_products_user";
+    public static final String PRODUCT_FOREIGN_KEY = "fk_favorite_products_product";
+    
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = USER_FOREIGN_KEY))
     private User user;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "product_id", nullable = false)
+    @JoinColumn(name = "product_id", nullable = false, foreignKey = @ForeignKey(name = PRODUCT_FOREIGN_KEY))
     private Product product;
 }
@@ -8,7 +8,9 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
 @Table(name = "orders")
@@ -39,6 +41,29 @@ public class Order extends BaseEntity {
     private List<OrderItem> orderItems = new ArrayList<>();
     
     public enum OrderStatus {
-        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
+        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED;
+        
+        public Set<OrderStatus> nextStatuses() {
+            return switch (this) {
+                case PENDING -> EnumSet.of(CONFIRMED, CANCELLED);
+                case CONFIRMED -> EnumSet.of(SHIPPED, CANCELLED);
+                case SHIPPED -> EnumSet.of(DELIVERED);
+                case DELIVERED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+            };
+        }
+        
+        public boolean canTransitionTo(OrderStatus next) {
+            return nextStatuses().contains(next);
+        }
+        
+        public static Set<OrderStatus> statusesBefore(OrderStatus next) {
+            Set<OrderStatus> previous = EnumSet.noneOf(OrderStatus.class);
+            for (OrderStatus status : values()) {
+                if (status.canTransitionTo(next)) {
+                    previous.add(status);
+                }
+            }
+            return previous;
+        }
     }
 }
@@ -0,0 +1,38 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events",
+       indexes = {
+           @Index(name = "idx_outbox_events_available_at", columnList = "available_at"),
+           @Index(name = "idx_outbox_events_claim_token", columnList = "claim_token")
+       })
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class OutboxEvent extends BaseEntity {
+    
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+    
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+    
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+}
@@ -5,13 +5,19 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+       indexes = {
+           @Index(name = "idx_products_tenant_active_category_brand_price",
+                  columnList = "tenant_id, is_active, category, brand, price"),
+           @Index(name = "idx_products_tenant_favorite_count", columnList = "tenant_id, favorite_count")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +36,10 @@ public class Product extends BaseEntity {
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
     
+    // More than one bucket moves the stock into product_stock_buckets and leaves quantity at 0
+    @Column(name = "stock_bucket_count")
+    private Integer stockBucketCount;
+    
     @Column(name = "category")
     private String category;
     
@@ -39,6 +49,12 @@ public class Product extends BaseEntity {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
+    // Denormalized from favorite_products; FavoriteCountService flushes its counters here with bulk updates,
+    // so entity saves never write back a count they read before a flush
+    @ColumnDefault("0")
+    @Column(name = "favorite_count", nullable = false, updatable = false)
+    private Long favoriteCount = 0L;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tenant_id", nullable = false)
     private Tenant tenant;
@@ -48,4 +64,8 @@ public class Product extends BaseEntity {
     
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<FavoriteProduct> favoriteProducts = new ArrayList<>();
+    
+    public boolean isStockSharded() {
+        return stockBucketCount != null && stockBucketCount > 1;
+    }
 }
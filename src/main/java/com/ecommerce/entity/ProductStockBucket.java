@@ -0,0 +1,30 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+@Entity
+@Table(name = "product_stock_buckets",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "bucket_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ProductStockBucket extends BaseEntity {
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Product product;
+    
+    @Column(name = "bucket_index", nullable = false)
+    private Integer bucketIndex;
+    
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "sales_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"tenant_id", "dimension", "dimension_key", "sales_date"}),
+       indexes = {
+           @Index(name = "idx_sales_rollups_tenant_dimension_date", columnList = "tenant_id, dimension, sales_date"),
+           @Index(name = "idx_sales_rollups_sales_date", columnList = "sales_date")
+       })
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class SalesRollup extends BaseEntity {
+    
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+    
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", nullable = false, length = 20)
+    private Dimension dimension;
+    
+    // Empty for TOTAL, the product id for PRODUCT, the category name for CATEGORY
+    @Column(name = "dimension_key", nullable = false)
+    private String dimensionKey;
+    
+    // The category a PRODUCT row was counted under
+    @Column(name = "category")
+    private String category;
+    
+    @Column(name = "orders", nullable = false)
+    private Long orders = 0L;
+    
+    @Column(name = "units", nullable = false)
+    private Long units = 0L;
+    
+    @Column(name = "revenue", nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+    
+    public enum Dimension {
+        TOTAL, PRODUCT, CATEGORY
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "sales_rollup_events",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"order_id", "event_type"}),
+       indexes = @Index(name = "idx_sales_rollup_events_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class SalesRollupEvent extends BaseEntity {
+    
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+}
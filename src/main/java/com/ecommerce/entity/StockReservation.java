@@ -0,0 +1,41 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stock_reservations",
+       indexes = {
+           @Index(name = "idx_stock_reservations_reservation_id", columnList = "reservation_id"),
+           @Index(name = "idx_stock_reservations_node_id", columnList = "node_id"),
+           @Index(name = "idx_stock_reservations_expires_at", columnList = "expires_at")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class StockReservation extends BaseEntity {
+    
+    @Column(name = "reservation_id", nullable = false, length = 36)
+    private String reservationId;
+    
+    @Column(name = "node_id", nullable = false)
+    private Long nodeId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -1,13 +1,16 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.ProductDto;
 import com.ecommerce.entity.FavoriteProduct;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +28,34 @@ public interface FavoriteProductRepository extends JpaRepository<FavoriteProduct
     Page<FavoriteProduct> findByUserIdAndTenantId(@Param("userId") Long userId, 
                                                 @Param("tenantId") Long tenantId, Pageable pageable);
     
+    String FAVORITE_PRODUCT_DTO_SELECT = "SELECT new com.ecommerce.dto.ProductDto(p.id, p.name, p.description, " +
+            "p.price, " + ProductRepository.AVAILABLE_QUANTITY + ", p.category, p.brand, p.isActive, t.id, t.name) " +
+            "FROM FavoriteProduct fp JOIN fp.product p JOIN p.tenant t ";
+    
+    @Query(value = FAVORITE_PRODUCT_DTO_SELECT + "WHERE fp.user.id = :userId",
+           countQuery = "SELECT COUNT(fp) FROM FavoriteProduct fp WHERE fp.user.id = :userId")
+    Page<ProductDto> findProductsByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(value = FAVORITE_PRODUCT_DTO_SELECT + "WHERE fp.user.id = :userId AND t.id = :tenantId",
+           countQuery = "SELECT COUNT(fp) FROM FavoriteProduct fp " +
+                        "WHERE fp.user.id = :userId AND fp.product.tenant.id = :tenantId")
+    Page<ProductDto> findProductsByUserIdAndTenantId(@Param("userId") Long userId,
+                                                    @Param("tenantId") Long tenantId, Pageable pageable);
+    
+    @Query("SELECT fp.product.id FROM FavoriteProduct fp WHERE fp.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT fp.product.id FROM FavoriteProduct fp WHERE fp.user.id = :userId AND fp.product.id IN :productIds")
+    List<Long> findProductIdsByUserIdAndProductIdIn(@Param("userId") Long userId,
+                                                    @Param("productIds") Collection<Long> productIds);
+    
     boolean existsByUserIdAndProductId(Long userId, Long productId);
     
-    void deleteByUserIdAndProductId(Long userId, Long productId);
+    @Modifying
+    @Query("DELETE FROM FavoriteProduct fp WHERE fp.user.id = :userId AND fp.product.id = :productId")
+    int deleteByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+    
+    @Modifying
+    @Query("DELETE FROM FavoriteProduct fp WHERE fp.user.id = :userId AND fp.product.id IN :productIds")
+    int deleteByUserIdAndProductIdIn(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
 }
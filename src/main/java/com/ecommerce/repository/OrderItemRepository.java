@@ -1,11 +1,15 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.OrderItemRef;
+import com.ecommerce.entity.Order;
 import com.ecommerce.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +17,18 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     List<OrderItem> findByOrderId(Long orderId);
     
-    @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId")
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.product WHERE oi.order.id = :orderId")
     List<OrderItem> findByOrderIdWithDetails(@Param("orderId") Long orderId);
+    
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.product WHERE oi.order.id IN :orderIds")
+    List<OrderItem> findByOrderIdInWithDetails(@Param("orderIds") Collection<Long> orderIds);
+    
+    @Query("SELECT new com.ecommerce.dto.OrderItemRef(oi.id, oi.order.id, oi.product.id) FROM OrderItem oi " +
+           "WHERE oi.product.tenant.id = :tenantId AND oi.order.status <> :excludedStatus " +
+           "AND (oi.order.id > :afterOrderId OR (oi.order.id = :afterOrderId AND oi.id > :afterId)) " +
+           "ORDER BY oi.order.id, oi.id")
+    List<OrderItemRef> findRefsByTenantAfter(@Param("tenantId") Long tenantId,
+                                             @Param("excludedStatus") Order.OrderStatus excludedStatus,
+                                             @Param("afterOrderId") Long afterOrderId,
+                                             @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -1,13 +1,20 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.OrderStatusSnapshot;
 import com.ecommerce.entity.Order;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,16 +23,47 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Optional<Order> findByOrderNumber(String orderNumber);
     
-    @Query("SELECT o FROM Order o WHERE o.user.id = :userId")
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.user WHERE o.user.id = :userId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
     Page<Order> findByUserId(@Param("userId") Long userId, Pageable pageable);
     
-    @Query("SELECT o FROM Order o WHERE o.user.tenant.id = :tenantId")
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.user u WHERE u.tenant.id = :tenantId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.tenant.id = :tenantId")
     Page<Order> findByTenantId(@Param("tenantId") Long tenantId, Pageable pageable);
     
+    @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.user.id = :userId ORDER BY o.id DESC")
+    Slice<Order> findFirstByUserIdKeyset(@Param("userId") Long userId, Pageable limit);
+    
+    @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.user.id = :userId AND o.id < :id ORDER BY o.id DESC")
+    Slice<Order> findNextByUserIdKeyset(@Param("userId") Long userId, @Param("id") Long id, Pageable limit);
+    
     @Query("SELECT o FROM Order o WHERE o.status = :status")
     Page<Order> findByStatus(@Param("status") Order.OrderStatus status, Pageable pageable);
     
     @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND o.status = :status")
     Page<Order> findByUserIdAndStatus(@Param("userId") Long userId, 
                                     @Param("status") Order.OrderStatus status, Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status IN :statuses ORDER BY o.id")
+    List<Order> findByIdInAndStatusInForUpdate(@Param("ids") Collection<Long> ids,
+                                               @Param("statuses") Collection<Order.OrderStatus> statuses);
+    
+    @Query("SELECT new com.ecommerce.dto.OrderStatusSnapshot(o.id, o.status, o.orderNumber, o.user.id, " +
+           "o.user.tenant.id, o.totalAmount, o.totalQuantity, o.createdAt) FROM Order o WHERE o.id IN :ids")
+    List<OrderStatusSnapshot> findStatusSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") Order.OrderStatus status,
+                     @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now WHERE o.id IN :ids AND o.status = :from")
+    int updateStatusIfCurrent(@Param("ids") Collection<Long> ids, @Param("from") Order.OrderStatus from,
+                              @Param("to") Order.OrderStatus to, @Param("now") LocalDateTime now);
 }
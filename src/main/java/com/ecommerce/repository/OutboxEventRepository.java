@@ -0,0 +1,32 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.availableAt <= :now ORDER BY e.createdAt, e.id")
+    List<Long> findAvailableIds(@Param("now") LocalDateTime now, Pageable limit);
+    
+    // Re-checks availability so two relays polling at once never claim the same event
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimToken = :claimToken, e.availableAt = :leaseUntil, " +
+           "e.attempts = e.attempts + 1 WHERE e.id IN :ids AND e.availableAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    List<OutboxEvent> findByClaimTokenOrderByCreatedAtAscIdAsc(String claimToken);
+    
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e")
+    LocalDateTime findOldestCreatedAt();
+}
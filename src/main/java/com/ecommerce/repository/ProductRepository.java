@@ -1,43 +1,61 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.FavoriteCountEntry;
+import com.ecommerce.dto.LovedProductDto;
+import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ProductFacetEntry;
+import com.ecommerce.dto.ProductSearchDocument;
 import com.ecommerce.entity.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductSearchRepository {
     
-    @Query("SELECT p FROM Product p WHERE p.tenant.id = :tenantId AND p.isActive = true")
-    Page<Product> findByTenantIdAndIsActive(@Param("tenantId") Long tenantId, Pageable pageable);
+    // Sharded products keep their stock in product_stock_buckets; the product row holds 0
+    String AVAILABLE_QUANTITY = "CAST(CASE WHEN p.stockBucketCount > 1 THEN (SELECT COALESCE(SUM(b.quantity), 0) " +
+            "FROM ProductStockBucket b WHERE b.product.id = p.id) ELSE p.quantity END AS Integer)";
+    
+    String PRODUCT_DTO_SELECT = "SELECT new com.ecommerce.dto.ProductDto(p.id, p.name, p.description, p.price, " +
+            AVAILABLE_QUANTITY + ", p.category, p.brand, p.isActive, t.id, t.name) FROM Product p JOIN p.tenant t ";
+    
+    @Query(value = PRODUCT_DTO_SELECT + "WHERE t.id = :tenantId AND p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.tenant.id = :tenantId AND p.isActive = true")
+    Page<ProductDto> findByTenantIdAndIsActive(@Param("tenantId") Long tenantId, Pageable pageable);
     
     @Query("SELECT p FROM Product p WHERE p.tenant.id = :tenantId")
     Page<Product> findByTenantId(@Param("tenantId") Long tenantId, Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.isActive = true")
-    Page<Product> findActiveProducts(Pageable pageable);
+    @Query(value = PRODUCT_DTO_SELECT + "WHERE p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductDto> findActiveProducts(Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.name LIKE %:name% AND p.isActive = true")
-    Page<Product> findByNameContaining(@Param("name") String name, Pageable pageable);
+    @Query(PRODUCT_DTO_SELECT + "WHERE t.id = :tenantId AND p.isActive = true ORDER BY p.name ASC, p.id ASC")
+    Slice<ProductDto> findFirstByTenantIdKeyset(@Param("tenantId") Long tenantId, Pageable limit);
     
-    @Query("SELECT p FROM Product p WHERE p.category = :category AND p.isActive = true")
-    Page<Product> findByCategory(@Param("category") String category, Pageable pageable);
+    @Query(PRODUCT_DTO_SELECT + "WHERE t.id = :tenantId AND p.isActive = true " +
+           "AND (p.name > :name OR (p.name = :name AND p.id > :id)) ORDER BY p.name ASC, p.id ASC")
+    Slice<ProductDto> findNextByTenantIdKeyset(@Param("tenantId") Long tenantId, @Param("name") String name,
+                                               @Param("id") Long id, Pageable limit);
     
-    @Query("SELECT p FROM Product p WHERE p.brand = :brand AND p.isActive = true")
-    Page<Product> findByBrand(@Param("brand") String brand, Pageable pageable);
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.isActive = true ORDER BY p.name ASC, p.id ASC")
+    Slice<ProductDto> findFirstActiveKeyset(Pageable limit);
     
-    @Query("SELECT p FROM Product p WHERE p.tenant.id = :tenantId AND p.name LIKE %:name% AND p.isActive = true")
-    Page<Product> findByTenantIdAndNameContaining(@Param("tenantId") Long tenantId, 
-                                                 @Param("name") String name, Pageable pageable);
-    
-    @Query("SELECT p FROM Product p WHERE p.tenant.id = :tenantId AND p.category = :category AND p.isActive = true")
-    Page<Product> findByTenantIdAndCategory(@Param("tenantId") Long tenantId, 
-                                          @Param("category") String category, Pageable pageable);
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.isActive = true " +
+           "AND (p.name > :name OR (p.name = :name AND p.id > :id)) ORDER BY p.name ASC, p.id ASC")
+    Slice<ProductDto> findNextActiveKeyset(@Param("name") String name, @Param("id") Long id, Pageable limit);
     
     @Query("SELECT DISTINCT p.category FROM Product p WHERE p.isActive = true")
     List<String> findDistinctCategories();
@@ -50,4 +68,51 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT DISTINCT p.brand FROM Product p WHERE p.tenant.id = :tenantId AND p.isActive = true")
     List<String> findDistinctBrandsByTenantId(@Param("tenantId") Long tenantId);
+    
+    @Query("SELECT new com.ecommerce.dto.ProductFacetEntry(p.id, p.tenant.id, p.category, p.brand, p.isActive) " +
+           "FROM Product p WHERE p.isActive = true")
+    List<ProductFacetEntry> findActiveFacetEntries();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity " +
+           "WHERE p.id = :id AND p.isActive = true AND p.quantity >= :quantity")
+    int decrementQuantityIfAvailable(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :quantity WHERE p.id = :id")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.favoriteCount = p.favoriteCount + :delta WHERE p.id = :id")
+    int addToFavoriteCount(@Param("id") Long id, @Param("delta") long delta);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.favoriteCount = " +
+           "(SELECT COUNT(fp) FROM FavoriteProduct fp WHERE fp.product.id = p.id)")
+    int recountFavorites();
+    
+    @Query("SELECT new com.ecommerce.dto.FavoriteCountEntry(p.id, p.tenant.id, p.isActive, p.favoriteCount) " +
+           "FROM Product p WHERE p.id IN :ids")
+    List<FavoriteCountEntry> findFavoriteCountsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT new com.ecommerce.dto.LovedProductDto(p.id, p.favoriteCount) FROM Product p " +
+           "WHERE p.tenant.id = :tenantId AND p.isActive = true AND p.favoriteCount > 0 " +
+           "ORDER BY p.favoriteCount DESC, p.id ASC")
+    List<LovedProductDto> findMostLoved(@Param("tenantId") Long tenantId, Pageable limit);
+    
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.id IN :ids")
+    List<ProductDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT new com.ecommerce.dto.ProductSearchDocument(p.id, p.tenant.id, p.name, p.description, " +
+           "p.category, p.brand, p.price, p.isActive) FROM Product p " +
+           "WHERE p.tenant.id = :tenantId AND p.id > :afterId ORDER BY p.id")
+    List<ProductSearchDocument> findSearchDocumentsByTenantAfter(@Param("tenantId") Long tenantId,
+                                                                 @Param("afterId") long afterId, Pageable limit);
 }
@@ -0,0 +1,11 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ProductSearchDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ProductSearchRepository {
+    
+    Page<ProductDto> search(ProductSearchDto criteria, Long tenantId, Pageable pageable);
+}
@@ -0,0 +1,125 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.ProductStockBucket;
+import com.ecommerce.entity.Tenant;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds one query from every criterion supplied in a {@link ProductSearchDto}.
+ * Sort properties are expected to be whitelisted by the caller.
+ */
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Page<ProductDto> search(ProductSearchDto criteria, Long tenantId, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        
+        CriteriaQuery<ProductDto> query = cb.createQuery(ProductDto.class);
+        Root<Product> product = query.from(Product.class);
+        Join<Product, Tenant> tenant = product.join("tenant");
+        query.select(cb.construct(ProductDto.class,
+                product.get("id"), product.get("name"), product.get("description"), product.get("price"),
+                availableQuantity(cb, query, product), product.get("category"), product.get("brand"), product.get("isActive"),
+                tenant.get("id"), tenant.get("name")));
+        query.where(buildPredicates(cb, query, product, criteria, tenantId));
+        query.orderBy(buildOrders(cb, query, product, pageable.getSort()));
+        
+        TypedQuery<ProductDto> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductDto> content = typedQuery.getResultList();
+        
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(cb, criteria, tenantId));
+    }
+    
+    private long count(CriteriaBuilder cb, ProductSearchDto criteria, Long tenantId) {
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Product> product = countQuery.from(Product.class);
+        countQuery.select(cb.count(product));
+        countQuery.where(buildPredicates(cb, countQuery, product, criteria, tenantId));
+        return entityManager.createQuery(countQuery).getSingleResult();
+    }
+    
+    private Predicate[] buildPredicates(CriteriaBuilder cb, AbstractQuery<?> query, Root<Product> product,
+                                        ProductSearchDto criteria, Long tenantId) {
+        List<Predicate> predicates = new ArrayList<>();
+        
+        // Equality columns first to line up with idx_products_tenant_active_category_brand_price
+        if (tenantId != null) {
+            predicates.add(cb.equal(product.get("tenant").get("id"), tenantId));
+        }
+        predicates.add(cb.isTrue(product.get("isActive")));
+        // Case-insensitive like ProductSearchIndex, so a filter matches the same products on either path
+        if (criteria.getCategories() != null && !criteria.getCategories().isEmpty()) {
+            predicates.add(cb.lower(product.get("category")).in(lowerCase(criteria.getCategories())));
+        }
+        if (criteria.getBrands() != null && !criteria.getBrands().isEmpty()) {
+            predicates.add(cb.lower(product.get("brand")).in(lowerCase(criteria.getBrands())));
+        }
+        if (criteria.getMinPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(product.get("price"), criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(product.get("price"), criteria.getMaxPrice()));
+        }
+        if (Boolean.TRUE.equals(criteria.getInStock())) {
+            predicates.add(cb.greaterThan(availableQuantity(cb, query, product), 0));
+        }
+        if (criteria.getName() != null && !criteria.getName().trim().isEmpty()) {
+            predicates.add(cb.like(product.get("name"), "%" + criteria.getName().trim() + "%"));
+        }
+        
+        return predicates.toArray(new Predicate[0]);
+    }
+    
+    private static List<String> lowerCase(List<String> values) {
+        List<String> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(value.toLowerCase(Locale.ROOT));
+        }
+        return result;
+    }
+    
+    private List<Order> buildOrders(CriteriaBuilder cb, AbstractQuery<?> query, Root<Product> product, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Expression<?> path = "quantity".equals(order.getProperty())
+                    ? availableQuantity(cb, query, product)
+                    : product.get(order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        // Stable paging when sort keys tie
+        orders.add(cb.asc(product.get("id")));
+        return orders;
+    }
+    
+    // Sharded products keep their stock in product_stock_buckets; see ProductRepository.AVAILABLE_QUANTITY
+    private Expression<Integer> availableQuantity(CriteriaBuilder cb, AbstractQuery<?> query, Root<Product> product) {
+        Subquery<Long> bucketTotal = query.subquery(Long.class);
+        Root<ProductStockBucket> bucket = bucketTotal.from(ProductStockBucket.class);
+        bucketTotal.select(cb.coalesce(cb.sumAsLong(bucket.<Integer>get("quantity")), 0L));
+        bucketTotal.where(cb.equal(bucket.get("product").get("id"), product.get("id")));
+        return cb.<Integer>selectCase()
+                .when(cb.greaterThan(product.<Integer>get("stockBucketCount"), 1), bucketTotal.as(Integer.class))
+                .otherwise(product.<Integer>get("quantity"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.ProductStockBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductStockBucketRepository extends JpaRepository<ProductStockBucket, Long> {
+    
+    @Modifying
+    @Query("UPDATE ProductStockBucket b SET b.quantity = b.quantity - :quantity " +
+           "WHERE b.product.id = :productId AND b.bucketIndex = :bucketIndex AND b.quantity >= :quantity")
+    int decrementIfAvailable(@Param("productId") Long productId, @Param("bucketIndex") Integer bucketIndex,
+                             @Param("quantity") Integer quantity);
+    
+    @Modifying
+    @Query("UPDATE ProductStockBucket b SET b.quantity = b.quantity + :quantity " +
+           "WHERE b.product.id = :productId AND b.bucketIndex = :bucketIndex")
+    int increment(@Param("productId") Long productId, @Param("bucketIndex") Integer bucketIndex,
+                  @Param("quantity") Integer quantity);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ProductStockBucket b WHERE b.product.id = :productId ORDER BY b.bucketIndex")
+    List<ProductStockBucket> findByProductIdForUpdate(@Param("productId") Long productId);
+    
+    @Query("SELECT COALESCE(SUM(b.quantity), 0) FROM ProductStockBucket b WHERE b.product.id = :productId")
+    long sumQuantityByProductId(@Param("productId") Long productId);
+    
+    @Modifying
+    @Query("DELETE FROM ProductStockBucket b WHERE b.product.id = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.SalesRollupEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupEventRepository extends JpaRepository<SalesRollupEvent, Long> {
+    
+    @Query("SELECT e.eventType FROM SalesRollupEvent e WHERE e.orderId = :orderId")
+    List<String> findEventTypesByOrderId(@Param("orderId") Long orderId);
+    
+    @Modifying
+    @Query("DELETE FROM SalesRollupEvent e WHERE e.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.SalesReportRow;
+import com.ecommerce.entity.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+    
+    @Modifying
+    @Query("UPDATE SalesRollup r SET r.orders = r.orders + :orders, r.units = r.units + :units, " +
+           "r.revenue = r.revenue + :revenue, r.updatedAt = :now " +
+           "WHERE r.tenantId = :tenantId AND r.dimension = :dimension AND r.dimensionKey = :dimensionKey " +
+           "AND r.salesDate = :salesDate")
+    int addTo(@Param("tenantId") Long tenantId, @Param("salesDate") LocalDate salesDate,
+              @Param("dimension") SalesRollup.Dimension dimension, @Param("dimensionKey") String dimensionKey,
+              @Param("orders") long orders, @Param("units") long units, @Param("revenue") BigDecimal revenue,
+              @Param("now") LocalDateTime now);
+    
+    List<SalesRollup> findByTenantIdAndSalesDateAndDimensionAndDimensionKeyIn(Long tenantId, LocalDate salesDate,
+                                                                            SalesRollup.Dimension dimension,
+                                                                            Collection<String> dimensionKeys);
+    
+    List<SalesRollup> findBySalesDateGreaterThanEqual(LocalDate salesDate);
+    
+    List<SalesRollup> findByTenantIdAndDimensionAndSalesDateBetweenOrderBySalesDate(Long tenantId,
+                                                                                  SalesRollup.Dimension dimension,
+                                                                                  LocalDate from, LocalDate to);
+    
+    @Query("SELECT new com.ecommerce.dto.SalesReportRow(r.dimensionKey, MAX(r.category), SUM(r.orders), " +
+           "SUM(r.units), SUM(r.revenue)) FROM SalesRollup r " +
+           "WHERE r.tenantId = :tenantId AND r.dimension = :dimension AND r.salesDate BETWEEN :from AND :to " +
+           "GROUP BY r.dimensionKey")
+    List<SalesReportRow> sumByKey(@Param("tenantId") Long tenantId,
+                                  @Param("dimension") SalesRollup.Dimension dimension,
+                                  @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
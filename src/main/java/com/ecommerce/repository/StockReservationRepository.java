@@ -0,0 +1,34 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    List<StockReservation> findByNodeId(Long nodeId);
+    
+    List<StockReservation> findByReservationId(String reservationId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.reservationId IN :reservationIds ORDER BY r.id")
+    List<StockReservation> findByReservationIdInForUpdate(@Param("reservationIds") Collection<String> reservationIds);
+    
+    @Query("SELECT DISTINCT r.reservationId FROM StockReservation r WHERE r.expiresAt < :cutoff")
+    List<String> findReservationIdsExpiredBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.reservationId IN :reservationIds")
+    int deleteByReservationIdIn(@Param("reservationIds") Collection<String> reservationIds);
+}
@@ -22,6 +22,9 @@ public interface TenantRepository extends JpaRepository<Tenant, Long> {
     
     boolean existsByDomain(String domain);
     
+    @Query("SELECT t.id FROM Tenant t")
+    List<Long> findAllIds();
+    
     @Query("SELECT t FROM Tenant t WHERE t.isActive = true")
     List<Tenant> findActiveTenants();
     
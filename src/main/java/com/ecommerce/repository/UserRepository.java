@@ -1,5 +1,6 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.AuthenticatedUser;
 import com.ecommerce.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,12 +15,21 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    String IDENTITY_SELECT = "SELECT new com.ecommerce.dto.AuthenticatedUser(u.id, u.username, t.id, r.name) " +
+            "FROM User u JOIN u.role r LEFT JOIN u.tenant t ";
+    
     Optional<User> findByUsername(String username);
     
     Optional<User> findByEmail(String email);
     
     Optional<User> findByKeycloakId(String keycloakId);
     
+    @Query(IDENTITY_SELECT + "WHERE u.keycloakId = :keycloakId")
+    Optional<AuthenticatedUser> findIdentityByKeycloakId(@Param("keycloakId") String keycloakId);
+    
+    @Query(IDENTITY_SELECT + "WHERE u.id = :id")
+    Optional<AuthenticatedUser> findIdentityById(@Param("id") Long id);
+    
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
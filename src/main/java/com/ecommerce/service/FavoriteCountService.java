@@ -0,0 +1,164 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.FavoriteCountEntry;
+import com.ecommerce.dto.LovedProductDto;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.TenantRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How many users favorited each product, without counting favorite_products on read.
+ * Committed adds and removes bump a striped counter per product; the counters are flushed into
+ * products.favorite_count, which search can sort by, and the most loved products of every tenant are kept
+ * in memory. A periodic recount from favorite_products corrects any drift, e.g. from counts lost in a crash.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FavoriteCountService {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    private final ProductRepository productRepository;
+    private final TenantRepository tenantRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+    // What each counter stood at when it was last written to the column; only touched by the flush
+    private final Map<Long, Long> flushedCounts = new HashMap<>();
+    private final Map<Long, List<LovedProductDto>> rankings = new ConcurrentHashMap<>();
+
+    @Value("${app.favorites.top-k:50}")
+    private int topK = 50;
+
+    public void favoriteAdded(Long productId) {
+        counters.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    public void favoriteRemoved(Long productId) {
+        counters.computeIfAbsent(productId, id -> new LongAdder()).decrement();
+    }
+
+    /**
+     * The tenant's active products with the most favorites, best first. Answered from memory only.
+     */
+    public List<LovedProductDto> getMostLoved(Long tenantId, Integer limit) {
+        int size = limit != null ? Math.max(1, Math.min(limit, topK)) : Math.min(DEFAULT_LIMIT, topK);
+        List<LovedProductDto> ranking = rankings.getOrDefault(tenantId, List.of());
+        return ranking.subList(0, Math.min(size, ranking.size()));
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.favorites.count-flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> totals = new TreeMap<>();
+        Map<Long, Long> deltas = new TreeMap<>();
+        counters.forEach((productId, counter) -> {
+            long total = counter.sum();
+            long delta = total - flushedCounts.getOrDefault(productId, 0L);
+            if (delta != 0) {
+                totals.put(productId, total);
+                deltas.put(productId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> deleted = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                deltas.forEach((productId, delta) -> {
+                    if (productRepository.addToFavoriteCount(productId, delta) == 0) {
+                        deleted.add(productId);
+                    }
+                }));
+        flushedCounts.putAll(totals);
+        for (Long productId : deleted) {
+            counters.remove(productId);
+            flushedCounts.remove(productId);
+            deltas.remove(productId);
+        }
+        if (!deltas.isEmpty()) {
+            updateRankings(productRepository.findFavoriteCountsByIdIn(deltas.keySet()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.favorites.recount-interval-ms:86400000}",
+               initialDelayString = "${app.favorites.recount-initial-delay-ms:60000}")
+    public synchronized void recount() {
+        flush();
+        int products = new TransactionTemplate(transactionManager).execute(status ->
+                productRepository.recountFavorites());
+        // The recount already includes everything counted so far; a change committing while it ran may be off by one
+        counters.forEach((productId, counter) -> flushedCounts.put(productId, counter.sum()));
+        refreshRankings();
+        log.info("Favorite counts recounted for {} products", products);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.favorites.ranking-refresh-interval-ms:300000}",
+               initialDelayString = "${app.favorites.ranking-refresh-interval-ms:300000}")
+    public synchronized void refreshRankings() {
+        List<Long> tenantIds = tenantRepository.findAllIds();
+        for (Long tenantId : tenantIds) {
+            refreshRanking(tenantId);
+        }
+        rankings.keySet().retainAll(new HashSet<>(tenantIds));
+    }
+
+    public void removeTenant(Long tenantId) {
+        rankings.remove(tenantId);
+    }
+
+    private void refreshRanking(Long tenantId) {
+        rankings.put(tenantId, List.copyOf(productRepository.findMostLoved(tenantId, PageRequest.of(0, topK))));
+    }
+
+    private void updateRankings(List<FavoriteCountEntry> entries) {
+        Map<Long, List<FavoriteCountEntry>> byTenant = new HashMap<>();
+        for (FavoriteCountEntry entry : entries) {
+            byTenant.computeIfAbsent(entry.getTenantId(), id -> new ArrayList<>()).add(entry);
+        }
+        byTenant.forEach((tenantId, changed) -> {
+            Map<Long, Long> counts = new HashMap<>();
+            for (LovedProductDto loved : rankings.getOrDefault(tenantId, List.of())) {
+                counts.put(loved.getProductId(), loved.getFavoriteCount());
+            }
+            boolean full = counts.size() == topK;
+            for (FavoriteCountEntry entry : changed) {
+                Long previous = counts.get(entry.getProductId());
+                boolean ranked = Boolean.TRUE.equals(entry.getIsActive()) && entry.getFavoriteCount() > 0;
+                if (full && previous != null && (!ranked || entry.getFavoriteCount() < previous)) {
+                    // A product below the cut may now belong in the ranking
+                    refreshRanking(tenantId);
+                    return;
+                }
+                if (ranked) {
+                    counts.put(entry.getProductId(), entry.getFavoriteCount());
+                } else {
+                    counts.remove(entry.getProductId());
+                }
+            }
+            rankings.put(tenantId, counts.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(topK)
+                    .map(entry -> new LovedProductDto(entry.getKey(), entry.getValue()))
+                    .toList());
+        });
+    }
+}
@@ -1,8 +1,8 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.BulkFavoriteResult;
 import com.ecommerce.dto.ProductDto;
 import com.ecommerce.entity.FavoriteProduct;
-import com.ecommerce.entity.Product;
 import com.ecommerce.entity.User;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.exception.ValidationException;
@@ -10,82 +10,302 @@ import com.ecommerce.repository.FavoriteProductRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.stream.LongStream;
 
+/**
+ * Favorites are written to {@code favorite_products} and read from an in-memory copy: each user's favorite
+ * product ids as a sorted long array, loaded on first use and kept for {@code app.favorites.cache-ttl-ms} in an
+ * LRU of {@code app.favorites.cache-max-users} users. Writes update the copy once they commit; the TTL bounds how
+ * long a change made through another instance goes unseen.
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class FavoriteProductService {
     
+    static final int MAX_BULK_CHECK = 500;
+    static final int MAX_BATCH_CHANGES = 500;
+    
+    private static final int WRITE_STAMP_STRIPES = 64;
+    // MySQL ER_DUP_ENTRY and H2 DUPLICATE_KEY_1
+    private static final Set<Integer> DUPLICATE_KEY_ERROR_CODES = Set.of(1062, 23505);
+    // MySQL ER_NO_REFERENCED_ROW(_2) and H2 REFERENTIAL_INTEGRITY_VIOLATED_PARENT_MISSING_1
+    private static final Set<Integer> MISSING_PARENT_ERROR_CODES = Set.of(1216, 1452, 23506);
+    
     private final FavoriteProductRepository favoriteProductRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final FavoriteCountService favoriteCountService;
+    private final UserIdentityCache userIdentityCache;
+    
+    // Access-ordered for LRU eviction; it and writeStamps are guarded by the map itself
+    private final Map<Long, FavoriteIds> favoritesByUser = new LinkedHashMap<>(16, 0.75f, true);
+    private final long[] writeStamps = new long[WRITE_STAMP_STRIPES];
+    
+    @Value("${app.favorites.cache-max-users:10000}")
+    private int cacheMaxUsers = 10000;
+    
+    @Value("${app.favorites.cache-ttl-ms:300000}")
+    private long cacheTtlMillis = 300000;
     
     public void addToFavorites(Long userId, Long productId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-        
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + productId));
-        
-        if (favoriteProductRepository.existsByUserIdAndProductId(userId, productId)) {
-            throw new ValidationException("Product is already in favorites");
-        }
-        
+        // References instead of lookups: the foreign keys and the unique constraint do the checking in one insert
         FavoriteProduct favoriteProduct = new FavoriteProduct();
-        favoriteProduct.setUser(user);
-        favoriteProduct.setProduct(product);
+        favoriteProduct.setUser(userRepository.getReferenceById(userId));
+        favoriteProduct.setProduct(productRepository.getReferenceById(productId));
         
-        favoriteProductRepository.save(favoriteProduct);
+        try {
+            favoriteProductRepository.saveAndFlush(favoriteProduct);
+        } catch (DataIntegrityViolationException e) {
+            throw translateViolation(e, userId, productId);
+        }
+        favoritesChanged(userId, List.of(productId), List.of());
     }
     
     public void removeFromFavorites(Long userId, Long productId) {
-        if (!favoriteProductRepository.existsByUserIdAndProductId(userId, productId)) {
+        if (favoriteProductRepository.deleteByUserIdAndProductId(userId, productId) == 0) {
             throw new ValidationException("Product is not in favorites");
         }
+        favoritesChanged(userId, List.of(), List.of(productId));
+    }
+    
+    /**
+     * Applies many adds and removes at once, e.g. a mobile client syncing changes made offline.
+     * Adding a favorite that exists or removing one that doesn't is not an error; products that don't exist are
+     * reported instead of failing the batch.
+     */
+    public BulkFavoriteResult updateFavorites(Long userId, List<Long> add, List<Long> remove) {
+        Set<Long> toAdd = new LinkedHashSet<>(add != null ? add : List.of());
+        Set<Long> toRemove = new LinkedHashSet<>(remove != null ? remove : List.of());
+        toAdd.remove(null);
+        toRemove.remove(null);
+        if (toAdd.size() + toRemove.size() > MAX_BATCH_CHANGES) {
+            throw new ValidationException("At most " + MAX_BATCH_CHANGES + " favorites can be changed at once");
+        }
+        for (Long productId : toAdd) {
+            if (toRemove.contains(productId)) {
+                throw new ValidationException("Product " + productId + " is both added and removed");
+            }
+        }
+        userIdentityCache.getById(userId);
         
-        favoriteProductRepository.deleteByUserIdAndProductId(userId, productId);
+        Set<Long> requested = new HashSet<>(toAdd);
+        requested.addAll(toRemove);
+        Set<Long> existing = requested.isEmpty() ? Set.of()
+                : new HashSet<>(favoriteProductRepository.findProductIdsByUserIdAndProductIdIn(userId, requested));
+        
+        List<Long> removed = toRemove.stream().filter(existing::contains).toList();
+        if (!removed.isEmpty()) {
+            favoriteProductRepository.deleteByUserIdAndProductIdIn(userId, removed);
+        }
+        
+        toAdd.removeAll(existing);
+        Set<Long> found = toAdd.isEmpty() ? Set.of() : new HashSet<>(productRepository.findExistingIds(toAdd));
+        List<Long> added = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        List<FavoriteProduct> favoriteProducts = new ArrayList<>();
+        User user = userRepository.getReferenceById(userId);
+        for (Long productId : toAdd) {
+            if (!found.contains(productId)) {
+                notFound.add(productId);
+                continue;
+            }
+            FavoriteProduct favoriteProduct = new FavoriteProduct();
+            favoriteProduct.setUser(user);
+            favoriteProduct.setProduct(productRepository.getReferenceById(productId));
+            favoriteProducts.add(favoriteProduct);
+            added.add(productId);
+        }
+        if (!favoriteProducts.isEmpty()) {
+            try {
+                favoriteProductRepository.saveAllAndFlush(favoriteProducts);
+            } catch (DataIntegrityViolationException e) {
+                // Only reachable when a concurrent request changed the same favorites
+                throw translateViolation(e, userId, null);
+            }
+        }
+        
+        favoritesChanged(userId, added, removed);
+        return new BulkFavoriteResult(added, removed, notFound);
     }
     
+    @Transactional(readOnly = true)
     public Page<ProductDto> getFavoriteProducts(Long userId, Pageable pageable) {
-        Page<FavoriteProduct> favoriteProducts = favoriteProductRepository.findByUserId(userId, pageable);
-        return favoriteProducts.map(fp -> convertProductToDto(fp.getProduct()));
+        Page<ProductDto> favorites = favoriteProductRepository.findProductsByUserId(userId, pageable);
+        favorites.forEach(product -> product.setFavorited(true));
+        return favorites;
     }
     
+    @Transactional(readOnly = true)
     public Page<ProductDto> getFavoriteProductsByTenant(Long userId, Long tenantId, Pageable pageable) {
-        Page<FavoriteProduct> favoriteProducts = favoriteProductRepository.findByUserIdAndTenantId(userId, tenantId, pageable);
-        return favoriteProducts.map(fp -> convertProductToDto(fp.getProduct()));
+        Page<ProductDto> favorites = favoriteProductRepository.findProductsByUserIdAndTenantId(userId, tenantId,
+                pageable);
+        favorites.forEach(product -> product.setFavorited(true));
+        return favorites;
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean isFavorite(Long userId, Long productId) {
-        return favoriteProductRepository.existsByUserIdAndProductId(userId, productId);
+        return Arrays.binarySearch(favoriteProductIds(userId), productId) >= 0;
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<Long, Boolean> isFavorite(Long userId, List<Long> productIds) {
+        if (productIds.size() > MAX_BULK_CHECK) {
+            throw new ValidationException("At most " + MAX_BULK_CHECK + " products can be checked at once");
+        }
+        long[] favorites = favoriteProductIds(userId);
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            result.put(productId, productId != null && Arrays.binarySearch(favorites, productId) >= 0);
+        }
+        return result;
+    }
+    
+    /**
+     * Sets the favorited flag of every product from one lookup of the user's favorites.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void markFavorites(Long userId, Collection<ProductDto> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        long[] favorites = favoriteProductIds(userId);
+        for (ProductDto product : products) {
+            product.setFavorited(product.getId() != null && Arrays.binarySearch(favorites, product.getId()) >= 0);
+        }
+    }
+    
+    @Transactional(readOnly = true)
     public List<ProductDto> getAllFavoriteProducts(Long userId) {
-        List<FavoriteProduct> favoriteProducts = favoriteProductRepository.findByUserId(userId, Pageable.unpaged()).getContent();
-        return favoriteProducts.stream()
-                .map(fp -> convertProductToDto(fp.getProduct()))
-                .collect(Collectors.toList());
+        List<ProductDto> favorites = favoriteProductRepository.findProductsByUserId(userId, Pageable.unpaged())
+                .getContent();
+        favorites.forEach(product -> product.setFavorited(true));
+        return favorites;
+    }
+    
+    private long[] favoriteProductIds(Long userId) {
+        int stripe = Math.floorMod(userId.hashCode(), WRITE_STAMP_STRIPES);
+        long stamp;
+        synchronized (favoritesByUser) {
+            FavoriteIds cached = favoritesByUser.get(userId);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                return cached.productIds;
+            }
+            stamp = writeStamps[stripe];
+        }
+        
+        long[] loaded = favoriteProductRepository.findProductIdsByUserId(userId).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        synchronized (favoritesByUser) {
+            // A write committed while loading may be missing from what was read; serve it but don't keep it
+            if (writeStamps[stripe] == stamp) {
+                favoritesByUser.put(userId, new FavoriteIds(loaded, System.currentTimeMillis() + cacheTtlMillis));
+                if (favoritesByUser.size() > cacheMaxUsers) {
+                    Iterator<Long> eldest = favoritesByUser.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    // Matched by constraint name, or by vendor error code when the driver doesn't report the name
+    private RuntimeException translateViolation(DataIntegrityViolationException e, Long userId, Long productId) {
+        ConstraintViolationException violation = e.getCause() instanceof ConstraintViolationException cause
+                ? cause : null;
+        String constraint = violation != null && violation.getConstraintName() != null
+                ? violation.getConstraintName().toLowerCase() : "";
+        if (constraint.contains(FavoriteProduct.USER_FOREIGN_KEY)) {
+            return userNotFound(userId);
+        }
+        if (constraint.contains(FavoriteProduct.PRODUCT_FOREIGN_KEY)) {
+            return productNotFound(productId);
+        }
+        if (constraint.contains(FavoriteProduct.USER_PRODUCT_UNIQUE)) {
+            return new ValidationException("Product is already in favorites");
+        }
+        
+        int errorCode = violation != null ? violation.getErrorCode() : 0;
+        if (DUPLICATE_KEY_ERROR_CODES.contains(errorCode)) {
+            return new ValidationException("Product is already in favorites");
+        }
+        if (MISSING_PARENT_ERROR_CODES.contains(errorCode)) {
+            return userRepository.existsById(userId) ? productNotFound(productId) : userNotFound(userId);
+        }
+        return e;
+    }
+    
+    private static ResourceNotFoundException userNotFound(Long userId) {
+        return new ResourceNotFoundException("User not found: " + userId);
     }
     
-    private ProductDto convertProductToDto(Product product) {
-        ProductDto dto = new ProductDto();
-        dto.setId(product.getId());
-        dto.setName(product.getName());
-        dto.setDescription(product.getDescription());
-        dto.setPrice(product.getPrice());
-        dto.setQuantity(product.getQuantity());
-        dto.setCategory(product.getCategory());
-        dto.setBrand(product.getBrand());
-        dto.setIsActive(product.getIsActive());
-        dto.setTenantId(product.getTenant().getId());
-        dto.setTenantName(product.getTenant().getName());
-        return dto;
+    private static ResourceNotFoundException productNotFound(Long productId) {
+        return new ResourceNotFoundException(productId != null ? "Product not found: " + productId
+                : "Product not found");
+    }
+    
+    private void favoritesChanged(Long userId, List<Long> added, List<Long> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        Runnable update = () -> {
+            added.forEach(favoriteCountService::favoriteAdded);
+            removed.forEach(favoriteCountService::favoriteRemoved);
+            synchronized (favoritesByUser) {
+                writeStamps[Math.floorMod(userId.hashCode(), WRITE_STAMP_STRIPES)]++;
+                FavoriteIds cached = favoritesByUser.get(userId);
+                if (cached != null) {
+                    favoritesByUser.put(userId, cached.with(added, removed));
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+    
+    private static class FavoriteIds {
+        private final long[] productIds;
+        private final long expiresAt;
+        
+        private FavoriteIds(long[] productIds, long expiresAt) {
+            this.productIds = productIds;
+            this.expiresAt = expiresAt;
+        }
+        
+        // Copy-on-write, so readers can keep using the array they were handed
+        private FavoriteIds with(List<Long> added, List<Long> removed) {
+            Set<Long> removedIds = new HashSet<>(removed);
+            long[] updated = LongStream.concat(
+                            Arrays.stream(productIds).filter(productId -> !removedIds.contains(productId)),
+                            added.stream().mapToLong(Long::longValue))
+                    .distinct()
+                    .sorted()
+                    .toArray();
+            return new FavoriteIds(updated, expiresAt);
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.ValidationException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset-ordered listing: the sort key and id of the last row a client has seen.
+ */
+@Getter
+public final class KeysetCursor {
+    
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+    
+    private static final char SEPARATOR = '|';
+    
+    private final String sortKey;
+    private final Long id;
+    
+    private KeysetCursor(String sortKey, Long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+    
+    public static String encode(String sortKey, Long id) {
+        String raw = (sortKey != null ? sortKey : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static String encode(Long id) {
+        return encode(null, id);
+    }
+    
+    /**
+     * Returns null for a missing or blank cursor, which means "start from the first row".
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor: " + cursor, e);
+        }
+    }
+    
+    public static int normalizeSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
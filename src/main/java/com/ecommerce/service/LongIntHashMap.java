@@ -0,0 +1,120 @@
+package com.ecommerce.service;
+
+/**
+ * Open-addressing map from long keys to positive int counts, without boxing either side. A count that drops to
+ * zero or below removes its key. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // A slot is free when its value is 0, since only positive counts are stored
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap() {
+        this(8);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        for (int slot = slot(key); values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds delta to the count of key and returns the new count, or 0 once the key has been removed.
+     */
+    int addTo(long key, int delta) {
+        int slot = slot(key);
+        for (; values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int count = values[slot] + delta;
+                if (count <= 0) {
+                    removeAt(slot);
+                    return 0;
+                }
+                values[slot] = count;
+                return count;
+            }
+        }
+        if (delta <= 0) {
+            return 0;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+        return delta;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // Backward-shift deletion keeps every probe chain unbroken without tombstones
+    private void removeAt(int slot) {
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            boolean movable = next > gap ? home <= gap || home > next : home <= gap && home > next;
+            if (movable) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldValues[slot] != 0) {
+                int target = slot(oldKeys[slot]);
+                while (values[target] != 0) {
+                    target = (target + 1) & mask;
+                }
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.BulkOrderCancelResult;
+import com.ecommerce.dto.BulkOrderStatusResult;
+import com.ecommerce.dto.OrderStatusOutcome;
+import com.ecommerce.entity.Order;
+import com.ecommerce.exception.ValidationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Cancellations and status transitions over many orders at once. Ids are sorted and processed in chunks, each in
+ * its own transaction through {@link OrderService}, so row locks are taken in a consistent order and held for one
+ * chunk only. A failing chunk stops the run; the chunks before it stay committed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBulkService {
+
+    static final int MAX_ORDER_IDS = 100_000;
+
+    private final OrderService orderService;
+
+    @Value("${app.orders.bulk-chunk-size:500}")
+    private int chunkSize = 500;
+
+    public BulkOrderCancelResult cancelOrders(List<Long> orderIds) {
+        List<Long> ids = sortedIds(orderIds);
+        Set<Long> cancelled = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            cancelled.addAll(orderService.cancelOrders(chunk));
+        }
+        log.info("Bulk cancel: {} of {} orders cancelled", cancelled.size(), ids.size());
+
+        List<Long> skipped = ids.stream()
+                .filter(id -> !cancelled.contains(id))
+                .collect(Collectors.toList());
+        return new BulkOrderCancelResult(ids.size(), cancelled.size(), skipped);
+    }
+
+    public BulkOrderStatusResult transitionOrders(List<Long> orderIds, Order.OrderStatus from, Order.OrderStatus to) {
+        List<Long> ids = sortedIds(orderIds);
+        List<OrderStatusOutcome> outcomes = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunks(ids)) {
+            outcomes.addAll(orderService.transitionOrders(chunk, from, to));
+        }
+        int transitioned = (int) outcomes.stream()
+                .filter(outcome -> outcome.getResult() == OrderStatusOutcome.Result.TRANSITIONED)
+                .count();
+        log.info("Bulk transition {} -> {}: {} of {} orders moved", from, to, transitioned, ids.size());
+        return new BulkOrderStatusResult(from, to, ids.size(), transitioned, outcomes);
+    }
+
+    private List<Long> sortedIds(List<Long> orderIds) {
+        List<Long> ids = orderIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        if (ids.isEmpty() || ids.size() > MAX_ORDER_IDS) {
+            throw new ValidationException("Between 1 and " + MAX_ORDER_IDS + " order ids are required");
+        }
+        return ids;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+}
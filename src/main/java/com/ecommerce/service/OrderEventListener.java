@@ -0,0 +1,13 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+
+/**
+ * Receives order lifecycle events from {@link OutboxRelay} after the order change has committed, on a relay
+ * worker thread. Delivery is at least once: an event is redelivered to every listener when any of them throws,
+ * so implementations must tolerate duplicates.
+ */
+public interface OrderEventListener {
+
+    void onOrderEvent(OrderEvent event);
+}
@@ -0,0 +1,198 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.OrderRequestDto;
+import com.ecommerce.entity.OrderIdempotencyKey;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.OrderIdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Makes order submission safe to retry with an Idempotency-Key header. A repeated key returns the original
+ * order instead of creating another one, and concurrent duplicates wait for the first request.
+ * Completed keys are cached in memory and persisted next to the order for other instances and restarts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderIdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final OrderService orderService;
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<String, CachedOrder> completed = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<OrderDto>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.idempotency.ttl-ms:86400000}")
+    private long ttlMillis = 86400000;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Value("${app.stock.lock-retry-attempts:5}")
+    private int lockRetryAttempts = 5;
+
+    public OrderDto createOrder(String idempotencyKey, Long userId, OrderRequestDto orderRequest) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = userId + ":" + idempotencyKey;
+        String requestHash = hash(orderRequest);
+
+        CachedOrder cached = cached(cacheKey);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return replay(cached.requestHash, requestHash, cached.order);
+        }
+
+        CompletableFuture<OrderDto> execution = new CompletableFuture<>();
+        CompletableFuture<OrderDto> running = inFlight.putIfAbsent(cacheKey, execution);
+        if (running != null) {
+            OrderDto order = await(running);
+            CachedOrder first = cached(cacheKey);
+            return first != null ? replay(first.requestHash, requestHash, order) : order;
+        }
+
+        try {
+            OrderDto order = execute(idempotencyKey, userId, orderRequest, requestHash);
+            cache(cacheKey, requestHash, order);
+            execution.complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            // Failures are not remembered; a retry with the same key runs again
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, execution);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (completed) {
+            completed.values().removeIf(cached -> cached.expiresAt <= now);
+        }
+        int deleted = new TransactionTemplate(transactionManager).execute(status ->
+                idempotencyKeyRepository.deleteExpired(LocalDateTime.now()));
+        if (deleted > 0) {
+            log.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private OrderDto execute(String idempotencyKey, Long userId, OrderRequestDto orderRequest, String requestHash) {
+        Optional<OrderIdempotencyKey> stored =
+                idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+        if (stored.isPresent() && stored.get().getExpiresAt().isAfter(LocalDateTime.now())) {
+            return replay(stored.get(), requestHash);
+        }
+
+        try {
+            // The key is written in the order's transaction, so a duplicate from another instance rolls the order back
+            return new RetryingTransactionTemplate(transactionManager, lockRetryAttempts).execute(status -> {
+                stored.ifPresent(expired -> {
+                    idempotencyKeyRepository.delete(expired);
+                    idempotencyKeyRepository.flush();
+                });
+                OrderDto order = orderService.createOrder(orderRequest, userId);
+                idempotencyKeyRepository.save(new OrderIdempotencyKey(userId, idempotencyKey, requestHash,
+                        order.getId(), LocalDateTime.now().plus(Duration.ofMillis(ttlMillis))));
+                return order;
+            });
+        } catch (DataIntegrityViolationException e) {
+            return idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(winner -> replay(winner, requestHash))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private OrderDto replay(OrderIdempotencyKey stored, String requestHash) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new ValidationException("Idempotency-Key was already used for a different order request");
+        }
+        return orderService.getOrderById(stored.getOrderId(), stored.getUserId());
+    }
+
+    private OrderDto replay(String originalHash, String requestHash, OrderDto order) {
+        if (!originalHash.equals(requestHash)) {
+            throw new ValidationException("Idempotency-Key was already used for a different order request");
+        }
+        return order;
+    }
+
+    private CachedOrder cached(String cacheKey) {
+        synchronized (completed) {
+            return completed.get(cacheKey);
+        }
+    }
+
+    private void cache(String cacheKey, String requestHash, OrderDto order) {
+        synchronized (completed) {
+            completed.put(cacheKey, new CachedOrder(requestHash, order, System.currentTimeMillis() + ttlMillis));
+            if (completed.size() > maxEntries) {
+                Iterator<String> eldest = completed.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private OrderDto await(CompletableFuture<OrderDto> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    static String hash(OrderRequestDto orderRequest) {
+        StringBuilder canonical = new StringBuilder();
+        if (orderRequest.getOrderItems() != null) {
+            for (OrderItemDto item : orderRequest.getOrderItems()) {
+                canonical.append(item.getProductId()).append('x').append(item.getQuantity()).append(';');
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedOrder {
+
+        private final String requestHash;
+        private final OrderDto order;
+        private final long expiresAt;
+
+        CachedOrder(String requestHash, OrderDto order, long expiresAt) {
+            this.requestHash = requestHash;
+            this.order = order;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01, 10 bits of node id and a
+ * 12 bit per-millisecond sequence, rendered as fixed-width base 36 so that string order matches
+ * generation order. Numbers from different nodes never collide as long as node ids are unique.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    static final long EPOCH_MILLIS = 1704067200000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final String PREFIX = "ORD-";
+    private static final int DIGITS = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final long nodeId;
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(@Value("${app.order-number.node-id:}") String nodeId,
+                                @Value("${app.instances:1}") int instances) {
+        this(resolveNodeId(nodeId, instances), System::currentTimeMillis);
+    }
+
+    public OrderNumberGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    OrderNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.order-number.node-id must be between 0 and " + MAX_NODE_ID +
+                    ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    // A lone instance may leave the node id unset; instances sharing a database would all default to 0
+    static long resolveNodeId(String nodeId, int instances) {
+        if (nodeId == null || nodeId.isBlank()) {
+            if (instances > 1) {
+                throw new IllegalStateException("app.order-number.node-id must be set when app.instances is " +
+                        instances);
+            }
+            return 0;
+        }
+        return Long.parseLong(nodeId.trim());
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public String next() {
+        return format(nextId());
+    }
+
+    long nextId() {
+        long state;
+        long previous;
+        do {
+            previous = lastState.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            // A full sequence or a clock step backwards borrows the next millisecond instead of waiting,
+            // so numbers keep increasing on this node
+            state = now > (previous >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : previous + 1;
+        } while (!lastState.compareAndSet(previous, state));
+
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    static String format(long id) {
+        char[] chars = new char[PREFIX.length() + DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        long remaining = id;
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (remaining % 36)];
+            remaining /= 36;
+        }
+        return new String(chars);
+    }
+}
@@ -1,23 +1,40 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderEvent;
 import com.ecommerce.dto.OrderItemDto;
 import com.ecommerce.dto.OrderRequestDto;
+import com.ecommerce.dto.OrderStatusOutcome;
+import com.ecommerce.dto.OrderStatusSnapshot;
 import com.ecommerce.entity.*;
 import com.ecommerce.exception.InsufficientQuantityException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.exception.ValidationException;
 import com.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,70 +46,95 @@ public class OrderService {
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final ProductStockService productStockService;
+    private final OutboxService outboxService;
+    private final UserIdentityCache userIdentityCache;
+    private final PlatformTransactionManager transactionManager;
     
+    @Value("${app.stock.lock-retry-attempts:5}")
+    private int lockRetryAttempts = 5;
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
     public OrderDto createOrder(OrderRequestDto orderRequest, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
+        AuthenticatedUser user = userIdentityCache.getById(userId);
         
         if (orderRequest.getOrderItems() == null || orderRequest.getOrderItems().isEmpty()) {
             throw new ValidationException("Order must contain at least one item");
         }
         
-        Order order = new Order();
-        order.setOrderNumber(generateOrderNumber());
-        order.setUser(user);
-        order.setStatus(Order.OrderStatus.PENDING);
-        order.setCreatedAt(LocalDateTime.now());
+        return stockTransaction().execute(status -> {
+            Map<Long, Product> products = takeStock(orderRequest.getOrderItems());
+            return saveOrder(user, orderRequest.getOrderItems(), products);
+        });
+    }
+    
+    /**
+     * Places an order for items whose stock was already taken by {@link #reserveStock(List)}.
+     */
+    public OrderDto createOrderFromReservation(List<OrderItemDto> orderItems, Long userId) {
+        AuthenticatedUser user = userIdentityCache.getById(userId);
         
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        int totalQuantity = 0;
+        return saveOrder(user, orderItems, loadProducts(orderItems));
+    }
+    
+    /**
+     * Checks and takes stock for every line, all or nothing, and returns the products by id.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<Long, Product> reserveStock(List<OrderItemDto> orderItems) {
+        return stockTransaction().execute(status -> takeStock(orderItems));
+    }
+    
+    // Bucketed stock can deadlock under contention, so a transaction started here is retried as a whole
+    private RetryingTransactionTemplate stockTransaction() {
+        return new RetryingTransactionTemplate(transactionManager, lockRetryAttempts);
+    }
+    
+    private Map<Long, Product> takeStock(List<OrderItemDto> orderItems) {
+        Map<Long, Product> products = loadProducts(orderItems);
         
-        for (OrderItemDto itemDto : orderRequest.getOrderItems()) {
-            Product product = productRepository.findById(itemDto.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + itemDto.getProductId()));
+        // Aggregate per product so repeated lines are checked and reserved once
+        Map<Long, Integer> requestedQuantities = new TreeMap<>();
+        for (OrderItemDto itemDto : orderItems) {
+            requestedQuantities.merge(itemDto.getProductId(), itemDto.getQuantity(), Integer::sum);
+        }
+        
+        for (Map.Entry<Long, Integer> entry : requestedQuantities.entrySet()) {
+            Product product = products.get(entry.getKey());
             
             if (!product.getIsActive()) {
                 throw new ValidationException("Product is not available: " + product.getName());
             }
             
-            if (product.getQuantity() < itemDto.getQuantity()) {
+            // Sharded stock lives in its buckets and is checked when it is reserved
+            if (!product.isStockSharded() && product.getQuantity() < entry.getValue()) {
                 throw new InsufficientQuantityException("Insufficient quantity for product: " + product.getName() + 
-                        ". Available: " + product.getQuantity() + ", Requested: " + itemDto.getQuantity());
+                        ". Available: " + product.getQuantity() + ", Requested: " + entry.getValue());
             }
-            
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setProduct(product);
-            orderItem.setQuantity(itemDto.getQuantity());
-            orderItem.setUnitPrice(product.getPrice());
-            orderItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity())));
-            
-            totalAmount = totalAmount.add(orderItem.getTotalPrice());
-            totalQuantity += itemDto.getQuantity();
-            
-            // Update product quantity
-            product.setQuantity(product.getQuantity() - itemDto.getQuantity());
-            productRepository.save(product);
         }
         
-        order.setTotalAmount(totalAmount);
-        order.setTotalQuantity(totalQuantity);
-        
-        Order savedOrder = orderRepository.save(order);
-        
-        // Save order items
-        for (OrderItemDto itemDto : orderRequest.getOrderItems()) {
-            Product product = productRepository.findById(itemDto.getProductId()).orElseThrow();
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(savedOrder);
-            orderItem.setProduct(product);
-            orderItem.setQuantity(itemDto.getQuantity());
-            orderItem.setUnitPrice(product.getPrice());
-            orderItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity())));
-            orderItemRepository.save(orderItem);
+        // Reserve stock in product id order so concurrent multi-line orders lock rows consistently
+        for (Map.Entry<Long, Integer> entry : requestedQuantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            boolean reserved = product.isStockSharded()
+                    ? productStockService.reserve(product, entry.getValue())
+                    : productRepository.decrementQuantityIfAvailable(entry.getKey(), entry.getValue()) != 0;
+            if (!reserved) {
+                throw new InsufficientQuantityException("Insufficient quantity for product: " +
+                        product.getName() + ". Requested: " + entry.getValue());
+            }
         }
-        
-        return convertToDto(savedOrder);
+        return products;
+    }
+    
+    /**
+     * Puts stock back, one update per product in product id order.
+     */
+    public void releaseStock(Map<Long, Integer> quantities) {
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        restoreStock(new TreeMap<>(quantities), products);
     }
     
     public OrderDto getOrderById(Long id, Long userId) {
@@ -108,29 +150,66 @@ public class OrderService {
     
     public Page<OrderDto> getOrdersByUser(Long userId, Pageable pageable) {
         Page<Order> orders = orderRepository.findByUserId(userId, pageable);
-        return orders.map(this::convertToDto);
+        return convertPageToDto(orders);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDto> getOrdersByUserAfter(Long userId, String after, Integer size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        Pageable limit = PageRequest.of(0, KeysetCursor.normalizeSize(size));
+        Slice<Order> orders = cursor == null
+                ? orderRepository.findFirstByUserIdKeyset(userId, limit)
+                : orderRepository.findNextByUserIdKeyset(userId, cursor.getId(), limit);
+        
+        List<OrderDto> content = convertListToDto(orders.getContent());
+        String nextCursor = orders.hasNext() && !content.isEmpty()
+                ? KeysetCursor.encode(content.get(content.size() - 1).getId())
+                : null;
+        return new CursorPage<>(content, content.size(), orders.hasNext(), nextCursor);
     }
     
     public Page<OrderDto> getOrdersByTenant(Long tenantId, Pageable pageable) {
         Page<Order> orders = orderRepository.findByTenantId(tenantId, pageable);
-        return orders.map(this::convertToDto);
+        return convertPageToDto(orders);
+    }
+    
+    public OrderDto updateOrderStatus(Long id, String status, Long userId) {
+        return updateOrderStatus(id, parseStatus(status), userId);
     }
     
     public OrderDto updateOrderStatus(Long id, Order.OrderStatus status, Long userId) {
+        // Cancelling puts the stock back, so it always goes through the locked cancel
+        if (status == Order.OrderStatus.CANCELLED) {
+            return convertToDto(cancel(id, userId));
+        }
+        
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + id));
         
         if (!order.getUser().getId().equals(userId)) {
             throw new ValidationException("Order does not belong to this user");
         }
+        checkTransition(order.getStatus(), status);
         
-        order.setStatus(status);
-        Order savedOrder = orderRepository.save(order);
-        return convertToDto(savedOrder);
+        // Only moves the order if nobody changed its status since it was read
+        Order.OrderStatus previousStatus = order.getStatus();
+        if (orderRepository.updateStatusIfCurrent(List.of(id), previousStatus, status, LocalDateTime.now()) == 0) {
+            throw new ValidationException("Order status was changed concurrently from " + previousStatus +
+                    "; reload the order and try again");
+        }
+        OrderDto dto = convertToDto(order);
+        dto.setStatus(status);
+        publishEvent(OrderEvent.Type.ORDER_STATUS_CHANGED, dto, tenantId(order.getUser()), previousStatus);
+        return dto;
     }
     
     public void cancelOrder(Long id, Long userId) {
-        Order order = orderRepository.findById(id)
+        cancel(id, userId);
+    }
+    
+    // The row lock makes a concurrent cancel wait and then see CANCELLED, so stock is restored only once
+    private Order cancel(Long id, Long userId) {
+        Order order = orderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + id));
         
         if (!order.getUser().getId().equals(userId)) {
@@ -140,24 +219,237 @@ public class OrderService {
         if (order.getStatus() == Order.OrderStatus.CANCELLED) {
             throw new ValidationException("Order is already cancelled");
         }
+        checkTransition(order.getStatus(), Order.OrderStatus.CANCELLED);
         
-        // Restore product quantities
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(id);
-        for (OrderItem orderItem : orderItems) {
-            Product product = orderItem.getProduct();
-            product.setQuantity(product.getQuantity() + orderItem.getQuantity());
-            productRepository.save(product);
-        }
+        List<OrderItem> orderItems = orderItemRepository.findByOrderIdWithDetails(id);
+        restoreStock(orderItems);
         
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CANCELLED);
         orderRepository.save(order);
+        publishEvent(OrderEvent.Type.ORDER_CANCELLED, convertToDto(order, orderItems), tenantId(order.getUser()),
+                previousStatus);
+        return order;
+    }
+    
+    /**
+     * Cancels the given orders in the caller's transaction and returns the ids it cancelled; ids that do not
+     * exist or can no longer be cancelled are skipped. Stock for all of them is restored with one update per product.
+     */
+    public List<Long> cancelOrders(Collection<Long> orderIds) {
+        List<Order> orders = orderRepository.findByIdInAndStatusInForUpdate(orderIds,
+                Order.OrderStatus.statusesBefore(Order.OrderStatus.CANCELLED));
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        
+        // Load the users in one query so the events below don't fetch them one by one
+        userRepository.findAllById(orders.stream().map(order -> order.getUser().getId()).collect(Collectors.toSet()));
+        Map<Long, List<OrderItem>> itemsByOrderId = loadOrderItems(orders);
+        restoreStock(itemsByOrderId.values().stream().flatMap(List::stream).collect(Collectors.toList()));
+        
+        List<Long> cancelledIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        orderRepository.updateStatus(cancelledIds, Order.OrderStatus.CANCELLED, LocalDateTime.now());
+        
+        for (Order order : orders) {
+            OrderDto dto = convertToDto(order, itemsByOrderId.getOrDefault(order.getId(), List.of()));
+            dto.setStatus(Order.OrderStatus.CANCELLED);
+            publishEvent(OrderEvent.Type.ORDER_CANCELLED, dto, tenantId(order.getUser()), order.getStatus());
+        }
+        return cancelledIds;
+    }
+    
+    /**
+     * Moves the given orders from one status to another with a single conditional update, without loading the
+     * orders, and reports the outcome per id. Runs in the caller's transaction.
+     */
+    public List<OrderStatusOutcome> transitionOrders(Collection<Long> orderIds, Order.OrderStatus from,
+                                                     Order.OrderStatus to) {
+        if (to == Order.OrderStatus.CANCELLED) {
+            throw new ValidationException("Orders are cancelled through the bulk cancel, which restores their stock");
+        }
+        checkTransition(from, to);
+        
+        Map<Long, OrderStatusSnapshot> snapshots = orderRepository.findStatusSnapshotsByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(OrderStatusSnapshot::getId, Function.identity()));
+        List<Long> candidateIds = snapshots.values().stream()
+                .filter(snapshot -> snapshot.getStatus() == from)
+                .map(OrderStatusSnapshot::getId)
+                .collect(Collectors.toList());
+        
+        Set<Long> transitioned = new HashSet<>(candidateIds);
+        if (!candidateIds.isEmpty()) {
+            int updated = orderRepository.updateStatusIfCurrent(candidateIds, from, to, LocalDateTime.now());
+            if (updated != candidateIds.size()) {
+                // Some orders changed status after they were read; our own update is visible to this read
+                transitioned.clear();
+                for (OrderStatusSnapshot current : orderRepository.findStatusSnapshotsByIdIn(candidateIds)) {
+                    if (current.getStatus() == to) {
+                        transitioned.add(current.getId());
+                    }
+                }
+            }
+        }
+        
+        List<OrderStatusOutcome> outcomes = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            OrderStatusSnapshot snapshot = snapshots.get(orderId);
+            if (snapshot == null) {
+                outcomes.add(new OrderStatusOutcome(orderId, OrderStatusOutcome.Result.NOT_FOUND, null));
+            } else if (transitioned.contains(orderId)) {
+                outcomes.add(new OrderStatusOutcome(orderId, OrderStatusOutcome.Result.TRANSITIONED, to));
+                outboxService.publish(new OrderEvent(OrderEvent.Type.ORDER_STATUS_CHANGED, orderId,
+                        snapshot.getOrderNumber(), snapshot.getUserId(), snapshot.getTenantId(), to, from,
+                        snapshot.getTotalAmount(), snapshot.getTotalQuantity(), null, snapshot.getCreatedAt(),
+                        LocalDateTime.now()));
+            } else if (snapshot.getStatus() == from) {
+                outcomes.add(new OrderStatusOutcome(orderId, OrderStatusOutcome.Result.CONFLICT, null));
+            } else {
+                outcomes.add(new OrderStatusOutcome(orderId, OrderStatusOutcome.Result.INVALID_STATUS,
+                        snapshot.getStatus()));
+            }
+        }
+        return outcomes;
+    }
+    
+    private OrderDto saveOrder(AuthenticatedUser user, List<OrderItemDto> orderItems, Map<Long, Product> products) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumberGenerator.next());
+        order.setUser(userRepository.getReferenceById(user.getId()));
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setCreatedAt(LocalDateTime.now());
+        
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        int totalQuantity = 0;
+        
+        for (OrderItemDto itemDto : orderItems) {
+            Product product = products.get(itemDto.getProductId());
+            
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProduct(product);
+            orderItem.setQuantity(itemDto.getQuantity());
+            orderItem.setUnitPrice(product.getPrice());
+            orderItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity())));
+            order.getOrderItems().add(orderItem);
+            
+            totalAmount = totalAmount.add(orderItem.getTotalPrice());
+            totalQuantity += itemDto.getQuantity();
+        }
+        
+        order.setTotalAmount(totalAmount);
+        order.setTotalQuantity(totalQuantity);
+        
+        // Order items are persisted through the orderItems cascade
+        Order savedOrder = orderRepository.save(order);
+        
+        OrderDto dto = convertToDto(savedOrder, savedOrder.getOrderItems(), user.getUsername());
+        publishEvent(OrderEvent.Type.ORDER_CREATED, dto, user.getTenantId(), null);
+        return dto;
+    }
+    
+    // Written in this transaction, so listeners only ever see committed order changes
+    private void publishEvent(OrderEvent.Type type, OrderDto order, Long tenantId, Order.OrderStatus previousStatus) {
+        outboxService.publish(new OrderEvent(type, order.getId(), order.getOrderNumber(), order.getUserId(), tenantId,
+                order.getStatus(), previousStatus, order.getTotalAmount(), order.getTotalQuantity(),
+                order.getOrderItems(), order.getCreatedAt(), LocalDateTime.now()));
+    }
+    
+    private static Long tenantId(User user) {
+        return user.getTenant() != null ? user.getTenant().getId() : null;
+    }
+    
+    private static Order.OrderStatus parseStatus(String status) {
+        try {
+            return Order.OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown order status: " + status);
+        }
+    }
+    
+    private static void checkTransition(Order.OrderStatus from, Order.OrderStatus to) {
+        if (!from.canTransitionTo(to)) {
+            throw new ValidationException("Order status cannot change from " + from + " to " + to);
+        }
+    }
+    
+    private void restoreStock(List<OrderItem> orderItems) {
+        Map<Long, Product> products = new HashMap<>();
+        TreeMap<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem orderItem : orderItems) {
+            Product product = orderItem.getProduct();
+            products.putIfAbsent(product.getId(), product);
+            quantities.merge(product.getId(), orderItem.getQuantity(), Integer::sum);
+        }
+        restoreStock(quantities, products);
     }
     
-    private String generateOrderNumber() {
-        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    // A set-based increment per product however many lines refer to it, in product id order to lock consistently
+    private void restoreStock(TreeMap<Long, Integer> quantities, Map<Long, Product> products) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product == null) {
+                continue;
+            }
+            if (product.isStockSharded()) {
+                productStockService.release(product, entry.getValue());
+            } else {
+                productRepository.incrementQuantity(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    private Map<Long, Product> loadProducts(List<OrderItemDto> orderItems) {
+        Set<Long> productIds = orderItems.stream()
+                .map(OrderItemDto::getProductId)
+                .collect(Collectors.toSet());
+        
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found: " + productId);
+            }
+        }
+        return products;
     }
     
     private OrderDto convertToDto(Order order) {
+        return convertToDto(order, orderItemRepository.findByOrderIdWithDetails(order.getId()));
+    }
+    
+    private Page<OrderDto> convertPageToDto(Page<Order> orders) {
+        Map<Long, List<OrderItem>> itemsByOrderId = loadOrderItems(orders.getContent());
+        return orders.map(order -> convertToDto(order, itemsByOrderId.getOrDefault(order.getId(), List.of())));
+    }
+    
+    private List<OrderDto> convertListToDto(List<Order> orders) {
+        Map<Long, List<OrderItem>> itemsByOrderId = loadOrderItems(orders);
+        return orders.stream()
+                .map(order -> convertToDto(order, itemsByOrderId.getOrDefault(order.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+    
+    private Map<Long, List<OrderItem>> loadOrderItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
+        }
+        
+        // Load the items of every order on the page in one query instead of one per order
+        List<Long> orderIds = orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        return orderItemRepository.findByOrderIdInWithDetails(orderIds).stream()
+                .collect(Collectors.groupingBy(orderItem -> orderItem.getOrder().getId()));
+    }
+    
+    private OrderDto convertToDto(Order order, List<OrderItem> orderItems) {
+        return convertToDto(order, orderItems, order.getUser().getUsername());
+    }
+    
+    // New orders only hold a reference to their user; the caller's identity already has the username
+    private OrderDto convertToDto(Order order, List<OrderItem> orderItems, String username) {
         OrderDto dto = new OrderDto();
         dto.setId(order.getId());
         dto.setOrderNumber(order.getOrderNumber());
@@ -165,10 +457,9 @@ public class OrderService {
         dto.setTotalAmount(order.getTotalAmount());
         dto.setStatus(order.getStatus());
         dto.setUserId(order.getUser().getId());
-        dto.setUsername(order.getUser().getUsername());
+        dto.setUsername(username);
         dto.setCreatedAt(order.getCreatedAt());
         
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
         List<OrderItemDto> orderItemDtos = orderItems.stream()
                 .map(this::convertOrderItemToDto)
                 .collect(Collectors.toList());
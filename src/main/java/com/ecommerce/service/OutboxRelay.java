@@ -0,0 +1,188 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+import com.ecommerce.entity.OutboxEvent;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox events to the {@link OrderEventListener}s. Each poll claims a batch by leasing it, so several
+ * instances can relay side by side, and dispatches it on a bounded worker pool with the events of one order
+ * kept in sequence. Delivered events are deleted; an event whose delivery failed, or whose relay died, becomes
+ * available again when its lease runs out. Events of an order that follow a failed one are held back with it
+ * within the batch, but a retried event can still arrive after events claimed by a later poll.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OrderEventListener> listeners;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer deliveryLag;
+    private final Counter deliveredEvents;
+    private final Counter failedDeliveries;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestEventAgeMillis = new AtomicLong();
+
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${app.outbox.lease-ms:30000}")
+    private long leaseMillis = 30000;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, ObjectProvider<OrderEventListener> listeners,
+                       ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.dispatch-threads:4}") int dispatchThreads,
+                       @Value("${app.outbox.dispatch-queue-capacity:1000}") int dispatchQueueCapacity) {
+        this(outboxEventRepository, listeners.orderedStream().collect(Collectors.toList()), objectMapper,
+                transactionManager, meterRegistry, dispatchThreads, dispatchQueueCapacity);
+    }
+
+    OutboxRelay(OutboxEventRepository outboxEventRepository, List<OrderEventListener> listeners,
+                ObjectMapper objectMapper, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                int dispatchThreads, int dispatchQueueCapacity) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.listeners = listeners;
+        this.objectMapper = objectMapper;
+        this.transactionManager = transactionManager;
+        // A full queue makes the polling thread dispatch itself, which also slows down claiming
+        this.executor = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatchQueueCapacity), new CustomizableThreadFactory("outbox-relay-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.deliveryLag = Timer.builder("outbox.delivery.lag")
+                .description("Time from an order change committing to its event being delivered")
+                .register(meterRegistry);
+        this.deliveredEvents = Counter.builder("outbox.events.delivered").register(meterRegistry);
+        this.failedDeliveries = Counter.builder("outbox.events.failed").register(meterRegistry);
+        Gauge.builder("outbox.events.pending", pendingEvents, AtomicLong::get).register(meterRegistry);
+        TimeGauge.builder("outbox.events.oldest.age", oldestEventAgeMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        // Keep draining while full batches come back instead of waiting for the next poll
+        List<OutboxEvent> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.metrics-interval-ms:10000}")
+    public void refreshMetrics() {
+        pendingEvents.set(outboxEventRepository.count());
+        LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt();
+        oldestEventAgeMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Whatever is still running is redelivered once its lease expires
+            executor.shutdownNow();
+        }
+    }
+
+    private List<OutboxEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        String claimToken = UUID.randomUUID().toString();
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> ids = outboxEventRepository.findAvailableIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            outboxEventRepository.claim(ids, claimToken, now, now.plus(Duration.ofMillis(leaseMillis)));
+            return outboxEventRepository.findByClaimTokenOrderByCreatedAtAscIdAsc(claimToken);
+        });
+    }
+
+    private void deliver(List<OutboxEvent> batch) {
+        Map<Long, List<OutboxEvent>> byOrder = batch.stream()
+                .collect(Collectors.groupingBy(OutboxEvent::getAggregateId, LinkedHashMap::new, Collectors.toList()));
+
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (List<OutboxEvent> events : byOrder.values()) {
+            futures.add(executor.submit(() -> dispatchInOrder(events)));
+        }
+
+        List<Long> deliveredIds = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            try {
+                deliveredIds.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Dispatching outbox events failed", e.getCause());
+            }
+        }
+
+        if (!deliveredIds.isEmpty()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    outboxEventRepository.deleteAllByIdInBatch(deliveredIds));
+        }
+    }
+
+    private List<Long> dispatchInOrder(List<OutboxEvent> events) {
+        List<Long> deliveredIds = new ArrayList<>();
+        for (OutboxEvent outboxEvent : events) {
+            try {
+                OrderEvent event = objectMapper.readValue(outboxEvent.getPayload(), OrderEvent.class);
+                for (OrderEventListener listener : listeners) {
+                    listener.onOrderEvent(event);
+                }
+            } catch (Exception e) {
+                failedDeliveries.increment();
+                log.warn("Delivering outbox event {} ({}, attempt {}) failed, retrying after its lease",
+                        outboxEvent.getId(), outboxEvent.getEventType(), outboxEvent.getAttempts(), e);
+                break;
+            }
+            deliveredIds.add(outboxEvent.getId());
+            deliveredEvents.increment();
+            if (outboxEvent.getCreatedAt() != null) {
+                deliveryLag.record(Duration.between(outboxEvent.getCreatedAt(), LocalDateTime.now()));
+            }
+        }
+        return deliveredIds;
+    }
+}
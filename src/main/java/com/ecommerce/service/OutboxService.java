@@ -0,0 +1,39 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+import com.ecommerce.entity.OutboxEvent;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records order events in the outbox table. The row is part of the caller's transaction, so an event exists
+ * exactly when the order change it describes was committed; {@link OutboxRelay} delivers it afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OrderEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(event.getOrderId());
+        outboxEvent.setEventType(event.getType().name());
+        outboxEvent.setAvailableAt(LocalDateTime.now());
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order event for order " + event.getOrderId(), e);
+        }
+        outboxEventRepository.save(outboxEvent);
+    }
+}
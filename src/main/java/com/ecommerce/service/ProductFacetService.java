@@ -0,0 +1,224 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.FacetCount;
+import com.ecommerce.dto.ProductFacetEntry;
+import com.ecommerce.dto.ProductFacets;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Category and brand -> active product counts, per tenant and across all tenants.
+ * Writers adjust the counts under a lock and publish immutable snapshots, so reads never touch the database.
+ * The counts are reloaded on start and periodically, which also picks up products changed through other instances.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductFacetService {
+
+    private static final ProductFacets EMPTY = new ProductFacets(List.of(), List.of());
+
+    private final ProductRepository productRepository;
+
+    private final Map<Long, ProductFacetEntry> activeProducts = new HashMap<>();
+    private final Map<Long, FacetCounts> tenantCounts = new HashMap<>();
+    private final FacetCounts globalCounts = new FacetCounts();
+
+    private final Map<Long, ProductFacets> tenantSnapshots = new ConcurrentHashMap<>();
+    private volatile ProductFacets globalSnapshot = EMPTY;
+    private volatile boolean ready;
+
+    // Changes applied while a load reads the products, replayed onto the loaded counts; null when no load runs
+    private List<Runnable> updatesDuringLoad;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.facets.reload-interval-ms:300000}",
+               initialDelayString = "${app.facets.reload-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void loadAll() {
+        List<Runnable> pending = new ArrayList<>();
+        synchronized (this) {
+            updatesDuringLoad = pending;
+        }
+        List<ProductFacetEntry> entries = productRepository.findActiveFacetEntries();
+        synchronized (this) {
+            // Skipped when a later load started while this one was reading
+            if (updatesDuringLoad != pending) {
+                return;
+            }
+            updatesDuringLoad = null;
+            activeProducts.clear();
+            tenantCounts.clear();
+            globalCounts.clear();
+            tenantSnapshots.clear();
+            for (ProductFacetEntry entry : entries) {
+                include(entry);
+            }
+            pending.forEach(Runnable::run);
+            new ArrayList<>(tenantCounts.keySet()).forEach(this::publish);
+            globalSnapshot = globalCounts.snapshot();
+            ready = true;
+        }
+        log.info("Product facets loaded for {} active products", entries.size());
+    }
+
+    /**
+     * Applies the current state of a product; the previous state is remembered here,
+     * so callers don't need to load it before saving.
+     */
+    public synchronized void update(ProductFacetEntry entry) {
+        apply(() -> {
+            ProductFacetEntry previous = activeProducts.get(entry.getProductId());
+            if (previous != null) {
+                exclude(previous);
+            }
+            if (Boolean.TRUE.equals(entry.getIsActive())) {
+                include(entry);
+            }
+            publishChanges(previous, entry);
+        });
+    }
+
+    public synchronized void remove(Long productId) {
+        apply(() -> {
+            ProductFacetEntry previous = activeProducts.get(productId);
+            if (previous != null) {
+                exclude(previous);
+                publishChanges(previous, null);
+            }
+        });
+    }
+
+    public synchronized void removeTenant(Long tenantId) {
+        apply(() -> {
+            List<ProductFacetEntry> tenantProducts = new ArrayList<>();
+            for (ProductFacetEntry entry : activeProducts.values()) {
+                if (entry.getTenantId().equals(tenantId)) {
+                    tenantProducts.add(entry);
+                }
+            }
+            tenantProducts.forEach(this::exclude);
+            tenantCounts.remove(tenantId);
+            tenantSnapshots.remove(tenantId);
+            globalSnapshot = globalCounts.snapshot();
+        });
+    }
+
+    public ProductFacets getFacets(Long tenantId) {
+        if (tenantId == null) {
+            return globalSnapshot;
+        }
+        return tenantSnapshots.getOrDefault(tenantId, EMPTY);
+    }
+
+    public List<String> getCategories(Long tenantId) {
+        return values(getFacets(tenantId).getCategories());
+    }
+
+    public List<String> getBrands(Long tenantId) {
+        return values(getFacets(tenantId).getBrands());
+    }
+
+    private void apply(Runnable change) {
+        change.run();
+        if (updatesDuringLoad != null) {
+            updatesDuringLoad.add(change);
+        }
+    }
+
+    private void include(ProductFacetEntry entry) {
+        activeProducts.put(entry.getProductId(), entry);
+        tenantCounts.computeIfAbsent(entry.getTenantId(), id -> new FacetCounts()).adjust(entry, 1);
+        globalCounts.adjust(entry, 1);
+    }
+
+    private void exclude(ProductFacetEntry entry) {
+        activeProducts.remove(entry.getProductId());
+        FacetCounts counts = tenantCounts.get(entry.getTenantId());
+        if (counts != null) {
+            counts.adjust(entry, -1);
+        }
+        globalCounts.adjust(entry, -1);
+    }
+
+    private void publishChanges(ProductFacetEntry previous, ProductFacetEntry current) {
+        if (previous != null) {
+            publish(previous.getTenantId());
+        }
+        if (current != null && (previous == null || !previous.getTenantId().equals(current.getTenantId()))) {
+            publish(current.getTenantId());
+        }
+        globalSnapshot = globalCounts.snapshot();
+    }
+
+    private void publish(Long tenantId) {
+        FacetCounts counts = tenantCounts.get(tenantId);
+        if (counts == null || counts.isEmpty()) {
+            tenantCounts.remove(tenantId);
+            tenantSnapshots.remove(tenantId);
+        } else {
+            tenantSnapshots.put(tenantId, counts.snapshot());
+        }
+    }
+
+    private static List<String> values(List<FacetCount> facets) {
+        List<String> values = new ArrayList<>(facets.size());
+        for (FacetCount facet : facets) {
+            values.add(facet.getValue());
+        }
+        return values;
+    }
+
+    private static class FacetCounts {
+
+        private final Map<String, Long> categories = new TreeMap<>();
+        private final Map<String, Long> brands = new TreeMap<>();
+
+        void adjust(ProductFacetEntry entry, long delta) {
+            adjust(categories, entry.getCategory(), delta);
+            adjust(brands, entry.getBrand(), delta);
+        }
+
+        boolean isEmpty() {
+            return categories.isEmpty() && brands.isEmpty();
+        }
+
+        void clear() {
+            categories.clear();
+            brands.clear();
+        }
+
+        ProductFacets snapshot() {
+            return new ProductFacets(toList(categories), toList(brands));
+        }
+
+        private static void adjust(Map<String, Long> counts, String value, long delta) {
+            if (value == null) {
+                return;
+            }
+            counts.compute(value, (key, count) -> {
+                long updated = (count != null ? count : 0) + delta;
+                return updated > 0 ? updated : null;
+            });
+        }
+
+        private static List<FacetCount> toList(Map<String, Long> counts) {
+            List<FacetCount> facets = new ArrayList<>(counts.size());
+            counts.forEach((value, count) -> facets.add(new FacetCount(value, count)));
+            return Collections.unmodifiableList(facets);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductSearchDocument;
+import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.TenantRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Per-tenant inverted index over product name, description, brand and category with BM25 ranking.
+ * Results are returned as ranked product ids; callers load the rows by primary key.
+ * Product changes update it once they commit. It is rebuilt on start and periodically, which also picks up
+ * the changes made through other instances.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    public static final String SORT_RELEVANCE = "relevance";
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_CATEGORY_WEIGHT = 2;
+
+    private final ProductRepository productRepository;
+    private final TenantRepository tenantRepository;
+
+    private final Map<Long, TenantIndex> tenantIndexes = new ConcurrentHashMap<>();
+    private final Map<Long, Queue<Consumer<TenantIndex>>> updatesDuringRebuild = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Updates hold the read lock, swapping in a rebuilt tenant holds the write lock so no update falls in between
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    @Value("${app.search.rebuild-threads:4}")
+    private int rebuildThreads = 4;
+
+    @Value("${app.search.rebuild-chunk-size:5000}")
+    private int rebuildChunkSize = 5000;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.search.rebuild-interval-ms:300000}",
+               initialDelayString = "${app.search.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        Set<Long> indexedTenantIds = new HashSet<>(tenantIndexes.keySet());
+        List<Long> tenantIds = tenantRepository.findAllIds();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(rebuildThreads, tenantIds.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long tenantId : tenantIds) {
+                futures.add(executor.submit(() -> rebuildTenant(tenantId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            // Tenants that were indexed before the ids were read but are gone now were deleted elsewhere
+            indexedTenantIds.removeAll(tenantIds);
+            indexedTenantIds.forEach(this::removeTenant);
+            ready = true;
+            log.info("Product search index rebuilt for {} tenants in {} ms", tenantIds.size(),
+                    System.currentTimeMillis() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Product search index rebuild interrupted; falling back to database search");
+        } catch (ExecutionException e) {
+            log.error("Product search index rebuild failed; falling back to database search", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Reads one tenant's products in keyset chunks into a new index. Products indexed or removed while it is read
+     * are replayed onto the new index before it replaces the old one.
+     */
+    public void rebuildTenant(Long tenantId) {
+        Queue<Consumer<TenantIndex>> pending = new ConcurrentLinkedQueue<>();
+        updatesDuringRebuild.put(tenantId, pending);
+        try {
+            TenantIndex rebuilt = new TenantIndex();
+            long afterId = 0;
+            List<ProductSearchDocument> chunk;
+            do {
+                chunk = productRepository.findSearchDocumentsByTenantAfter(tenantId, afterId,
+                        PageRequest.of(0, rebuildChunkSize));
+                chunk.forEach(rebuilt::add);
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == rebuildChunkSize);
+
+            swapLock.writeLock().lock();
+            try {
+                // Skipped when the tenant was removed while it was read
+                if (updatesDuringRebuild.get(tenantId) == pending) {
+                    pending.forEach(update -> update.accept(rebuilt));
+                    tenantIndexes.put(tenantId, rebuilt);
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            updatesDuringRebuild.remove(tenantId, pending);
+        }
+    }
+
+    public void index(ProductSearchDocument document) {
+        update(document.getTenantId(), tenantIndex -> tenantIndex.add(document));
+    }
+
+    public void remove(Long tenantId, Long productId) {
+        update(tenantId, tenantIndex -> tenantIndex.remove(productId));
+    }
+
+    public void removeTenant(Long tenantId) {
+        swapLock.writeLock().lock();
+        try {
+            tenantIndexes.remove(tenantId);
+            updatesDuringRebuild.remove(tenantId);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private void update(Long tenantId, Consumer<TenantIndex> update) {
+        swapLock.readLock().lock();
+        try {
+            update.accept(tenantIndexes.computeIfAbsent(tenantId, id -> new TenantIndex()));
+            Queue<Consumer<TenantIndex>> pending = updatesDuringRebuild.get(tenantId);
+            if (pending != null) {
+                pending.add(update);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches one tenant, or every tenant when tenantId is null. All query terms must match;
+     * the last term is treated as a prefix so results follow the user while typing. Category,
+     * brand and price criteria are applied from the indexed values; stock is not indexed.
+     */
+    public Hits search(Long tenantId, ProductSearchDto criteria) {
+        List<String> terms = tokenize(criteria.getName());
+        if (terms.isEmpty()) {
+            return new Hits(List.of(), 0);
+        }
+
+        Filter filter = new Filter(criteria);
+        List<ScoredDocument> matches = new ArrayList<>();
+        if (tenantId != null) {
+            TenantIndex tenantIndex = tenantIndexes.get(tenantId);
+            if (tenantIndex != null) {
+                tenantIndex.search(terms, filter, matches);
+            }
+        } else {
+            for (TenantIndex tenantIndex : tenantIndexes.values()) {
+                tenantIndex.search(terms, filter, matches);
+            }
+        }
+
+        matches.sort(comparator(criteria.getSortBy(), criteria.getSortDirection()));
+        int page = criteria.getPage();
+        int size = criteria.getSize();
+        int from = Math.min(page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        List<Long> ids = new ArrayList<>(to - from);
+        for (ScoredDocument match : matches.subList(from, to)) {
+            ids.add(match.document.id);
+        }
+        return new Hits(ids, matches.size());
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letterOrDigit = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Comparator<ScoredDocument> comparator(String sortBy, String sortDirection) {
+        Comparator<ScoredDocument> byRelevance = Comparator.comparingDouble((ScoredDocument match) -> match.score).reversed();
+        Comparator<ScoredDocument> comparator;
+        if ("name".equals(sortBy)) {
+            comparator = Comparator.comparing((ScoredDocument match) -> match.document.name, String.CASE_INSENSITIVE_ORDER);
+        } else if ("price".equals(sortBy)) {
+            comparator = Comparator.comparing((ScoredDocument match) -> match.document.price);
+        } else {
+            return byRelevance.thenComparing(match -> match.document.id);
+        }
+        if ("DESC".equalsIgnoreCase(sortDirection)) {
+            comparator = comparator.reversed();
+        }
+        return comparator.thenComparing(byRelevance).thenComparing(match -> match.document.id);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Hits {
+        private final List<Long> productIds;
+        private final long total;
+    }
+
+    private static class Filter {
+        private final Set<String> categories;
+        private final Set<String> brands;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+
+        private Filter(ProductSearchDto criteria) {
+            this.categories = lowerCase(criteria.getCategories());
+            this.brands = lowerCase(criteria.getBrands());
+            this.minPrice = criteria.getMinPrice();
+            this.maxPrice = criteria.getMaxPrice();
+        }
+
+        private boolean matches(IndexedDocument document) {
+            return document.active
+                    && (categories.isEmpty() || categories.contains(document.category))
+                    && (brands.isEmpty() || brands.contains(document.brand))
+                    && (minPrice == null || document.price.compareTo(minPrice) >= 0)
+                    && (maxPrice == null || document.price.compareTo(maxPrice) <= 0);
+        }
+
+        private static Set<String> lowerCase(List<String> values) {
+            if (values == null || values.isEmpty()) {
+                return Set.of();
+            }
+            Set<String> result = new HashSet<>();
+            for (String value : values) {
+                result.add(value.toLowerCase(Locale.ROOT));
+            }
+            return result;
+        }
+    }
+
+    private static class IndexedDocument {
+        private final Long id;
+        private final String name;
+        private final String category;
+        private final String brand;
+        private final BigDecimal price;
+        private final boolean active;
+        private final Map<String, Integer> termFrequencies;
+        private final int length;
+
+        private IndexedDocument(ProductSearchDocument document) {
+            this.id = document.getId();
+            this.name = document.getName() != null ? document.getName() : "";
+            this.category = document.getCategory() != null ? document.getCategory().toLowerCase(Locale.ROOT) : null;
+            this.brand = document.getBrand() != null ? document.getBrand().toLowerCase(Locale.ROOT) : null;
+            this.price = document.getPrice() != null ? document.getPrice() : BigDecimal.ZERO;
+            this.active = !Boolean.FALSE.equals(document.getIsActive());
+            this.termFrequencies = new HashMap<>();
+            addTerms(document.getName(), NAME_WEIGHT);
+            addTerms(document.getBrand(), BRAND_CATEGORY_WEIGHT);
+            addTerms(document.getCategory(), BRAND_CATEGORY_WEIGHT);
+            addTerms(document.getDescription(), 1);
+            this.length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        private void addTerms(String text, int weight) {
+            for (String token : tokenize(text)) {
+                termFrequencies.merge(token, weight, Integer::sum);
+            }
+        }
+    }
+
+    private static class ScoredDocument {
+        private final IndexedDocument document;
+        private final double score;
+
+        private ScoredDocument(IndexedDocument document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+
+    private static class TenantIndex {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, IndexedDocument> documents = new HashMap<>();
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private long totalLength;
+
+        private void add(ProductSearchDocument source) {
+            IndexedDocument document = new IndexedDocument(source);
+            lock.writeLock().lock();
+            try {
+                removeLocked(document.id);
+                documents.put(document.id, document);
+                totalLength += document.length;
+                document.termFrequencies.forEach((term, frequency) ->
+                        postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id, frequency));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(Long productId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(productId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long productId) {
+            IndexedDocument existing = documents.remove(productId);
+            if (existing == null) {
+                return;
+            }
+            totalLength -= existing.length;
+            for (String term : existing.termFrequencies.keySet()) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(productId);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        private void search(List<String> terms, Filter filter, List<ScoredDocument> results) {
+            lock.readLock().lock();
+            try {
+                if (documents.isEmpty()) {
+                    return;
+                }
+                int documentCount = documents.size();
+                double averageLength = (double) totalLength / documentCount;
+
+                Map<Long, Double> scores = null;
+                for (int i = 0; i < terms.size(); i++) {
+                    String term = terms.get(i);
+                    Collection<Map<Long, Integer>> matchingPostings;
+                    if (i == terms.size() - 1) {
+                        matchingPostings = postings.subMap(term, true, term + Character.MAX_VALUE, false).values();
+                    } else {
+                        Map<Long, Integer> posting = postings.get(term);
+                        matchingPostings = posting != null ? List.of(posting) : List.of();
+                    }
+
+                    // Score each document by its best-matching expansion of this query term
+                    Map<Long, Double> termScores = new HashMap<>();
+                    for (Map<Long, Integer> posting : matchingPostings) {
+                        double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                        for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                            if (scores != null && !scores.containsKey(entry.getKey())) {
+                                continue;
+                            }
+                            IndexedDocument document = documents.get(entry.getKey());
+                            double frequency = entry.getValue();
+                            double score = idf * frequency * (K1 + 1)
+                                    / (frequency + K1 * (1 - B + B * document.length / averageLength));
+                            termScores.merge(entry.getKey(), score, Math::max);
+                        }
+                    }
+
+                    if (scores == null) {
+                        scores = termScores;
+                    } else {
+                        Map<Long, Double> previous = scores;
+                        termScores.replaceAll((id, score) -> score + previous.get(id));
+                        scores = termScores;
+                    }
+                    if (scores.isEmpty()) {
+                        return;
+                    }
+                }
+
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    IndexedDocument document = documents.get(entry.getKey());
+                    if (filter.matches(document)) {
+                        results.add(new ScoredDocument(document, entry.getValue()));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ProductFacetEntry;
+import com.ecommerce.dto.ProductSearchDocument;
 import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.dto.ProductSearchResponse;
 import com.ecommerce.entity.Product;
 import com.ecommerce.entity.Tenant;
 import com.ecommerce.exception.ResourceNotFoundException;
@@ -10,21 +14,39 @@ import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.TenantRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ProductService {
     
+    private static final Set<String> SORT_FIELDS =
+            Set.of(ProductSearchIndex.SORT_RELEVANCE, "name", "price", "quantity", "createdAt", "favoriteCount");
+    private static final Set<String> INDEX_SORT_FIELDS = Set.of(ProductSearchIndex.SORT_RELEVANCE, "name", "price");
+    
     private final ProductRepository productRepository;
     private final TenantRepository tenantRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetService productFacetService;
+    private final ProductStockService productStockService;
     
     public ProductDto createProduct(ProductDto productDto, Long tenantId) {
         Tenant tenant = tenantRepository.findById(tenantId)
@@ -41,6 +63,12 @@ public class ProductService {
         product.setTenant(tenant);
         
         Product savedProduct = productRepository.save(product);
+        ProductSearchDocument document = toSearchDocument(savedProduct);
+        ProductFacetEntry facetEntry = toFacetEntry(savedProduct);
+        afterCommit(() -> {
+            productSearchIndex.index(document);
+            productFacetService.update(facetEntry);
+        });
         return convertToDto(savedProduct);
     }
     
@@ -62,7 +90,7 @@ public class ProductService {
             product.setPrice(productDto.getPrice());
         }
         if (productDto.getQuantity() != null) {
-            product.setQuantity(productDto.getQuantity());
+            setQuantity(product, productDto.getQuantity());
         }
         if (productDto.getCategory() != null) {
             product.setCategory(productDto.getCategory());
@@ -75,6 +103,12 @@ public class ProductService {
         }
         
         Product savedProduct = productRepository.save(product);
+        ProductSearchDocument document = toSearchDocument(savedProduct);
+        ProductFacetEntry facetEntry = toFacetEntry(savedProduct);
+        afterCommit(() -> {
+            productSearchIndex.index(document);
+            productFacetService.update(facetEntry);
+        });
         return convertToDto(savedProduct);
     }
     
@@ -89,48 +123,61 @@ public class ProductService {
         return convertToDto(product);
     }
     
+    @Transactional(readOnly = true)
     public Page<ProductDto> getProductsByTenant(Long tenantId, Pageable pageable) {
-        Page<Product> products = productRepository.findByTenantIdAndIsActive(tenantId, pageable);
-        return products.map(this::convertToDto);
+        return productRepository.findByTenantIdAndIsActive(tenantId, pageable);
     }
     
+    @Transactional(readOnly = true)
     public Page<ProductDto> getAllProducts(Pageable pageable) {
-        Page<Product> products = productRepository.findActiveProducts(pageable);
-        return products.map(this::convertToDto);
+        return productRepository.findActiveProducts(pageable);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDto> getProductsByTenantAfter(Long tenantId, String after, Integer size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        Pageable limit = PageRequest.of(0, KeysetCursor.normalizeSize(size));
+        Slice<ProductDto> products = cursor == null
+                ? productRepository.findFirstByTenantIdKeyset(tenantId, limit)
+                : productRepository.findNextByTenantIdKeyset(tenantId, cursor.getSortKey(), cursor.getId(), limit);
+        return toCursorPage(products);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDto> getAllProductsAfter(String after, Integer size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        Pageable limit = PageRequest.of(0, KeysetCursor.normalizeSize(size));
+        Slice<ProductDto> products = cursor == null
+                ? productRepository.findFirstActiveKeyset(limit)
+                : productRepository.findNextActiveKeyset(cursor.getSortKey(), cursor.getId(), limit);
+        return toCursorPage(products);
+    }
+    
+    @Transactional(readOnly = true)
     public Page<ProductDto> searchProducts(ProductSearchDto searchDto, Long tenantId) {
-        Pageable pageable = createPageable(searchDto);
+        ProductSearchDto criteria = normalizeCriteria(searchDto);
+        Pageable pageable = createPageable(criteria);
         
-        if (tenantId != null) {
-            if (searchDto.getName() != null && !searchDto.getName().trim().isEmpty()) {
-                return productRepository.findByTenantIdAndNameContaining(tenantId, searchDto.getName(), pageable)
-                        .map(this::convertToDto);
-            } else if (searchDto.getCategory() != null && !searchDto.getCategory().trim().isEmpty()) {
-                return productRepository.findByTenantIdAndCategory(tenantId, searchDto.getCategory(), pageable)
-                        .map(this::convertToDto);
-            } else {
-                return productRepository.findByTenantIdAndIsActive(tenantId, pageable)
-                        .map(this::convertToDto);
-            }
-        } else {
-            if (searchDto.getName() != null && !searchDto.getName().trim().isEmpty()) {
-                return productRepository.findByNameContaining(searchDto.getName(), pageable)
-                        .map(this::convertToDto);
-            } else if (searchDto.getCategory() != null && !searchDto.getCategory().trim().isEmpty()) {
-                return productRepository.findByCategory(searchDto.getCategory(), pageable)
-                        .map(this::convertToDto);
-            } else if (searchDto.getBrand() != null && !searchDto.getBrand().trim().isEmpty()) {
-                return productRepository.findByBrand(searchDto.getBrand(), pageable)
-                        .map(this::convertToDto);
-            } else {
-                return productRepository.findActiveProducts(pageable)
-                        .map(this::convertToDto);
-            }
+        // Stock changes on every order and is not indexed, so in-stock searches stay in the database
+        if (productSearchIndex.isReady() && criteria.getName() != null
+                && !Boolean.TRUE.equals(criteria.getInStock())
+                && INDEX_SORT_FIELDS.contains(criteria.getSortBy())) {
+            return searchIndex(criteria, tenantId);
         }
+        
+        return productRepository.search(criteria, tenantId, pageable);
+    }
+    
+    @Transactional(readOnly = true)
+    public ProductSearchResponse searchProductsWithFacets(ProductSearchDto searchDto, Long tenantId) {
+        Page<ProductDto> products = searchProducts(searchDto, tenantId);
+        return new ProductSearchResponse(products, productFacetService.getFacets(tenantId));
     }
     
     public List<String> getCategories(Long tenantId) {
+        if (productFacetService.isReady()) {
+            return productFacetService.getCategories(tenantId);
+        }
         if (tenantId != null) {
             return productRepository.findDistinctCategoriesByTenantId(tenantId);
         } else {
@@ -139,6 +186,9 @@ public class ProductService {
     }
     
     public List<String> getBrands(Long tenantId) {
+        if (productFacetService.isReady()) {
+            return productFacetService.getBrands(tenantId);
+        }
         if (tenantId != null) {
             return productRepository.findDistinctBrandsByTenantId(tenantId);
         } else {
@@ -155,6 +205,10 @@ public class ProductService {
         }
         
         productRepository.deleteById(id);
+        afterCommit(() -> {
+            productSearchIndex.remove(tenantId, id);
+            productFacetService.remove(id);
+        });
     }
     
     public ProductDto updateProductQuantity(Long id, Integer quantity, Long tenantId) {
@@ -169,14 +223,134 @@ public class ProductService {
             throw new ValidationException("Quantity cannot be negative");
         }
         
-        product.setQuantity(quantity);
+        setQuantity(product, quantity);
         Product savedProduct = productRepository.save(product);
         return convertToDto(savedProduct);
     }
     
-    private Pageable createPageable(ProductSearchDto searchDto) {
-        Sort sort = Sort.by(Sort.Direction.fromString(searchDto.getSortDirection()), searchDto.getSortBy());
-        return PageRequest.of(searchDto.getPage(), searchDto.getSize(), sort);
+    public ProductDto updateStockBuckets(Long id, Integer buckets, Long tenantId) {
+        Product product = productRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + id));
+        
+        if (!product.getTenant().getId().equals(tenantId)) {
+            throw new ValidationException("Product does not belong to this tenant");
+        }
+        
+        productStockService.configureBuckets(product, buckets);
+        Product savedProduct = productRepository.save(product);
+        return convertToDto(savedProduct);
+    }
+    
+    private void setQuantity(Product product, Integer quantity) {
+        if (product.isStockSharded()) {
+            productStockService.setQuantity(product, quantity);
+        } else {
+            product.setQuantity(quantity);
+        }
+    }
+    
+    private Page<ProductDto> searchIndex(ProductSearchDto criteria, Long tenantId) {
+        ProductSearchIndex.Hits hits = productSearchIndex.search(tenantId, criteria);
+        Pageable pageable = PageRequest.of(criteria.getPage(), criteria.getSize());
+        if (hits.getProductIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.getTotal());
+        }
+        
+        // Rows come back in primary key order; restore the ranking from the index
+        Map<Long, ProductDto> productsById = productRepository.findDtosByIdIn(hits.getProductIds()).stream()
+                .collect(Collectors.toMap(ProductDto::getId, Function.identity()));
+        List<ProductDto> content = hits.getProductIds().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, hits.getTotal());
+    }
+    
+    private ProductSearchDto normalizeCriteria(ProductSearchDto searchDto) {
+        ProductSearchDto criteria = new ProductSearchDto();
+        criteria.setName(trimToNull(searchDto.getName()));
+        criteria.setCategories(mergeValues(searchDto.getCategory(), searchDto.getCategories()));
+        criteria.setBrands(mergeValues(searchDto.getBrand(), searchDto.getBrands()));
+        criteria.setMinPrice(searchDto.getMinPrice());
+        criteria.setMaxPrice(searchDto.getMaxPrice());
+        criteria.setInStock(searchDto.getInStock());
+        criteria.setPage(searchDto.getPage() != null ? searchDto.getPage() : 0);
+        criteria.setSize(searchDto.getSize() != null ? searchDto.getSize() : 10);
+        criteria.setSortBy(searchDto.getSortBy() != null ? searchDto.getSortBy() : ProductSearchIndex.SORT_RELEVANCE);
+        criteria.setSortDirection(searchDto.getSortDirection() != null ? searchDto.getSortDirection() : "ASC");
+        
+        if (!SORT_FIELDS.contains(criteria.getSortBy())) {
+            throw new ValidationException("Unsupported sort field: " + criteria.getSortBy() +
+                    ". Allowed: " + SORT_FIELDS);
+        }
+        if (!"ASC".equalsIgnoreCase(criteria.getSortDirection()) && !"DESC".equalsIgnoreCase(criteria.getSortDirection())) {
+            throw new ValidationException("Unsupported sort direction: " + criteria.getSortDirection());
+        }
+        if (criteria.getMinPrice() != null && criteria.getMaxPrice() != null
+                && criteria.getMinPrice().compareTo(criteria.getMaxPrice()) > 0) {
+            throw new ValidationException("minPrice cannot be greater than maxPrice");
+        }
+        return criteria;
+    }
+    
+    private List<String> mergeValues(String single, List<String> values) {
+        Set<String> merged = new LinkedHashSet<>();
+        if (trimToNull(single) != null) {
+            merged.add(single.trim());
+        }
+        if (values != null) {
+            for (String value : values) {
+                if (trimToNull(value) != null) {
+                    merged.add(value.trim());
+                }
+            }
+        }
+        return new ArrayList<>(merged);
+    }
+    
+    private String trimToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+    
+    private Pageable createPageable(ProductSearchDto criteria) {
+        String sortBy = ProductSearchIndex.SORT_RELEVANCE.equals(criteria.getSortBy()) ? "name" : criteria.getSortBy();
+        Sort sort = Sort.by(Sort.Direction.fromString(criteria.getSortDirection()), sortBy);
+        return PageRequest.of(criteria.getPage(), criteria.getSize(), sort);
+    }
+    
+    // The in-memory indexes must not show a change that is rolled back, so they are updated once it commits
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+    
+    private ProductSearchDocument toSearchDocument(Product product) {
+        return new ProductSearchDocument(product.getId(), product.getTenant().getId(), product.getName(),
+                product.getDescription(), product.getCategory(), product.getBrand(), product.getPrice(),
+                product.getIsActive());
+    }
+    
+    private ProductFacetEntry toFacetEntry(Product product) {
+        return new ProductFacetEntry(product.getId(), product.getTenant().getId(), product.getCategory(),
+                product.getBrand(), product.getIsActive());
+    }
+    
+    private CursorPage<ProductDto> toCursorPage(Slice<ProductDto> products) {
+        List<ProductDto> content = products.getContent();
+        String nextCursor = null;
+        if (products.hasNext() && !content.isEmpty()) {
+            ProductDto last = content.get(content.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getName(), last.getId());
+        }
+        return new CursorPage<>(content, content.size(), products.hasNext(), nextCursor);
     }
     
     private ProductDto convertToDto(Product product) {
@@ -185,7 +359,9 @@ public class ProductService {
         dto.setName(product.getName());
         dto.setDescription(product.getDescription());
         dto.setPrice(product.getPrice());
-        dto.setQuantity(product.getQuantity());
+        dto.setQuantity(product.isStockSharded()
+                ? productStockService.getAvailableQuantity(product)
+                : product.getQuantity());
         dto.setCategory(product.getCategory());
         dto.setBrand(product.getBrand());
         dto.setIsActive(product.getIsActive());
@@ -0,0 +1,107 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.ProductStockBucket;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.ProductStockBucketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock for hot products split across several bucket rows, so concurrent checkouts of the same product
+ * lock different rows instead of queueing on one. A product's available quantity is the sum of its buckets.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ProductStockService {
+
+    static final int MAX_BUCKETS = 64;
+
+    private final ProductStockBucketRepository bucketRepository;
+
+    /**
+     * Takes the quantity from one bucket, or from several when no single bucket covers it. A failed guarded
+     * update still locks its row, so two reservations can deadlock when stock runs low; callers run this in a
+     * {@link RetryingTransactionTemplate}, which starts the losing transaction over.
+     */
+    public boolean reserve(Product product, int quantity) {
+        int buckets = product.getStockBucketCount();
+        // One random bucket spreads the load; after that buckets are tried in index order like the fallback,
+        // so only the first probe can lock out of order
+        int start = ThreadLocalRandom.current().nextInt(buckets);
+        if (bucketRepository.decrementIfAvailable(product.getId(), start, quantity) != 0) {
+            return true;
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (bucket != start && bucketRepository.decrementIfAvailable(product.getId(), bucket, quantity) != 0) {
+                return true;
+            }
+        }
+
+        // No single bucket covers the quantity; lock them all and take from several
+        List<ProductStockBucket> locked = bucketRepository.findByProductIdForUpdate(product.getId());
+        int available = locked.stream().mapToInt(ProductStockBucket::getQuantity).sum();
+        if (available < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (ProductStockBucket bucket : locked) {
+            int taken = Math.min(bucket.getQuantity(), remaining);
+            bucket.setQuantity(bucket.getQuantity() - taken);
+            remaining -= taken;
+        }
+        return true;
+    }
+
+    public void release(Product product, int quantity) {
+        int bucket = ThreadLocalRandom.current().nextInt(product.getStockBucketCount());
+        bucketRepository.increment(product.getId(), bucket, quantity);
+    }
+
+    public int getAvailableQuantity(Product product) {
+        return (int) bucketRepository.sumQuantityByProductId(product.getId());
+    }
+
+    public void setQuantity(Product product, int quantity) {
+        bucketRepository.findByProductIdForUpdate(product.getId());
+        distribute(product, quantity, product.getStockBucketCount());
+    }
+
+    /**
+     * Moves the product's stock into {@code buckets} rows, or back onto the product row for one bucket.
+     * The caller is expected to hold a lock on the product row.
+     */
+    public void configureBuckets(Product product, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new ValidationException("Stock buckets must be between 1 and " + MAX_BUCKETS);
+        }
+        int total = product.getQuantity();
+        for (ProductStockBucket bucket : bucketRepository.findByProductIdForUpdate(product.getId())) {
+            total += bucket.getQuantity();
+        }
+        distribute(product, total, buckets);
+    }
+
+    private void distribute(Product product, int total, int buckets) {
+        bucketRepository.deleteByProductId(product.getId());
+        if (buckets == 1) {
+            product.setStockBucketCount(null);
+            product.setQuantity(total);
+            return;
+        }
+
+        List<ProductStockBucket> rows = new ArrayList<>();
+        for (int i = 0; i < buckets; i++) {
+            rows.add(new ProductStockBucket(product, i, total / buckets + (i < total % buckets ? 1 : 0)));
+        }
+        bucketRepository.saveAll(rows);
+        product.setStockBucketCount(buckets);
+        product.setQuantity(0);
+    }
+}
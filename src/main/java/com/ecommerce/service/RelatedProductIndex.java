@@ -0,0 +1,295 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.OrderItemRef;
+import com.ecommerce.dto.RelatedProductDto;
+import com.ecommerce.entity.Order;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.TenantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Frequently bought together": per tenant, how many orders contain each pair of products, kept as a sparse
+ * matrix in memory with the top neighbours of every product ready to serve.
+ * Created and cancelled orders update it from the order events. The whole matrix is rebuilt from the order items
+ * on start and periodically, which also picks up the orders relayed to other instances.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelatedProductIndex implements OrderEventListener {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    private final OrderItemRepository orderItemRepository;
+    private final TenantRepository tenantRepository;
+
+    private final Map<Long, TenantMatrix> matrices = new ConcurrentHashMap<>();
+    private final Map<Long, Queue<OrderUpdate>> updatesDuringRebuild = new ConcurrentHashMap<>();
+
+    // Updates hold the read lock, swapping in a rebuilt tenant holds the write lock so no update falls in between
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    @Value("${app.recommendations.top-k:20}")
+    private int topK = 20;
+
+    @Value("${app.recommendations.max-items-per-order:50}")
+    private int maxItemsPerOrder = 50;
+
+    @Value("${app.recommendations.rebuild-threads:4}")
+    private int rebuildThreads = 4;
+
+    @Value("${app.recommendations.rebuild-chunk-size:5000}")
+    private int rebuildChunkSize = 5000;
+
+    @Override
+    public void onOrderEvent(OrderEvent event) {
+        int delta;
+        if (event.getType() == OrderEvent.Type.ORDER_CREATED) {
+            delta = 1;
+        } else if (event.getType() == OrderEvent.Type.ORDER_CANCELLED) {
+            delta = -1;
+        } else {
+            return;
+        }
+        if (event.getTenantId() == null || event.getOrderItems() == null) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>();
+        for (OrderItemDto item : event.getOrderItems()) {
+            productIds.add(item.getProductId());
+        }
+        OrderUpdate update = new OrderUpdate(productIds(productIds), delta);
+        if (update.productIds.length < 2) {
+            return;
+        }
+
+        swapLock.readLock().lock();
+        try {
+            matrices.computeIfAbsent(event.getTenantId(), id -> new TenantMatrix()).apply(update, topK);
+            Queue<OrderUpdate> pending = updatesDuringRebuild.get(event.getTenantId());
+            if (pending != null) {
+                pending.add(update);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products most often bought together with the given one, best first. Answered from memory only.
+     */
+    public List<RelatedProductDto> getRelatedProducts(Long tenantId, Long productId, Integer limit) {
+        int size = limit != null ? Math.max(1, Math.min(limit, topK)) : Math.min(DEFAULT_LIMIT, topK);
+        TenantMatrix matrix = matrices.get(tenantId);
+        ProductRow row = matrix != null ? matrix.rows.get(productId) : null;
+        return row != null ? row.top(size, topK) : List.of();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.recommendations.rebuild-interval-ms:21600000}",
+               initialDelayString = "${app.recommendations.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        List<Long> tenantIds = tenantRepository.findAllIds();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(rebuildThreads, tenantIds.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long tenantId : tenantIds) {
+                futures.add(executor.submit(() -> rebuildTenant(tenantId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            matrices.keySet().retainAll(new HashSet<>(tenantIds));
+            log.info("Related products rebuilt for {} tenants in {} ms", tenantIds.size(),
+                    System.currentTimeMillis() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Related products rebuild interrupted; keeping the incrementally maintained matrix");
+        } catch (ExecutionException e) {
+            log.error("Related products rebuild failed; keeping the incrementally maintained matrix", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Recounts one tenant from the items of its orders that are not cancelled, reading them in keyset chunks.
+     * Orders that change while the tenant is read are applied to the new matrix before it replaces the old one;
+     * one that committed just before its chunk was read may end up counted twice until the next rebuild.
+     */
+    public void rebuildTenant(Long tenantId) {
+        Queue<OrderUpdate> pending = new ConcurrentLinkedQueue<>();
+        updatesDuringRebuild.put(tenantId, pending);
+        try {
+            TenantMatrix rebuilt = new TenantMatrix();
+            List<Long> orderProducts = new ArrayList<>();
+            long currentOrderId = 0;
+            long afterOrderId = 0;
+            long afterId = 0;
+            List<OrderItemRef> chunk;
+            do {
+                chunk = orderItemRepository.findRefsByTenantAfter(tenantId, Order.OrderStatus.CANCELLED,
+                        afterOrderId, afterId, PageRequest.of(0, rebuildChunkSize));
+                for (OrderItemRef item : chunk) {
+                    if (item.getOrderId() != currentOrderId) {
+                        rebuilt.apply(new OrderUpdate(productIds(orderProducts), 1), topK);
+                        orderProducts.clear();
+                        currentOrderId = item.getOrderId();
+                    }
+                    orderProducts.add(item.getProductId());
+                }
+                if (!chunk.isEmpty()) {
+                    OrderItemRef last = chunk.get(chunk.size() - 1);
+                    afterOrderId = last.getOrderId();
+                    afterId = last.getId();
+                }
+            } while (chunk.size() == rebuildChunkSize);
+            rebuilt.apply(new OrderUpdate(productIds(orderProducts), 1), topK);
+
+            swapLock.writeLock().lock();
+            try {
+                for (OrderUpdate update : pending) {
+                    rebuilt.apply(update, topK);
+                }
+                matrices.put(tenantId, rebuilt);
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            updatesDuringRebuild.remove(tenantId, pending);
+        }
+    }
+
+    public void removeTenant(Long tenantId) {
+        matrices.remove(tenantId);
+    }
+
+    // Distinct and sorted, so creating and cancelling an order pick the same products when it is over the cap
+    private long[] productIds(List<Long> productIds) {
+        return productIds.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .distinct()
+                .sorted()
+                .limit(maxItemsPerOrder)
+                .toArray();
+    }
+
+    private static class OrderUpdate {
+        private final long[] productIds;
+        private final int delta;
+
+        private OrderUpdate(long[] productIds, int delta) {
+            this.productIds = productIds;
+            this.delta = delta;
+        }
+    }
+
+    private static class TenantMatrix {
+        private final Map<Long, ProductRow> rows = new ConcurrentHashMap<>();
+
+        private void apply(OrderUpdate update, int topK) {
+            long[] productIds = update.productIds;
+            if (productIds.length < 2) {
+                return;
+            }
+            for (long productId : productIds) {
+                ProductRow row = rows.computeIfAbsent(productId, id -> new ProductRow());
+                for (long other : productIds) {
+                    if (other != productId) {
+                        row.add(other, update.delta, topK);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class ProductRow {
+        private final LongIntHashMap counts = new LongIntHashMap(4);
+        private long[] topIds = new long[0];
+        private int[] topCounts = new int[0];
+        private int topSize;
+        private boolean stale;
+
+        private synchronized void add(long productId, int delta, int topK) {
+            int count = counts.addTo(productId, delta);
+            if (stale) {
+                return;
+            }
+            int index = indexOf(productId);
+            if (delta < 0 && index >= 0) {
+                // A neighbour below the top may now outrank it; recount on the next read
+                stale = true;
+            } else if (delta > 0) {
+                offer(productId, count, index, topK);
+            }
+        }
+
+        private synchronized List<RelatedProductDto> top(int limit, int topK) {
+            if (stale) {
+                topSize = 0;
+                counts.forEach((productId, count) -> offer(productId, count, -1, topK));
+                stale = false;
+            }
+            List<RelatedProductDto> related = new ArrayList<>(Math.min(limit, topSize));
+            for (int i = 0; i < Math.min(limit, topSize); i++) {
+                related.add(new RelatedProductDto(topIds[i], topCounts[i]));
+            }
+            return related;
+        }
+
+        private int indexOf(long productId) {
+            for (int i = 0; i < topSize; i++) {
+                if (topIds[i] == productId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Keeps topIds ordered by count, highest first, then by product id
+        private void offer(long productId, int count, int index, int topK) {
+            if (index < 0) {
+                if (topSize == topK) {
+                    if (!ranksAbove(count, productId, topSize - 1)) {
+                        return;
+                    }
+                    index = topSize - 1;
+                } else {
+                    if (topSize == topIds.length) {
+                        int capacity = Math.min(topK, Math.max(4, topSize * 2));
+                        topIds = Arrays.copyOf(topIds, capacity);
+                        topCounts = Arrays.copyOf(topCounts, capacity);
+                    }
+                    index = topSize++;
+                }
+            }
+            while (index > 0 && ranksAbove(count, productId, index - 1)) {
+                topIds[index] = topIds[index - 1];
+                topCounts[index] = topCounts[index - 1];
+                index--;
+            }
+            topIds[index] = productId;
+            topCounts[index] = count;
+        }
+
+        private boolean ranksAbove(int count, long productId, int index) {
+            return count > topCounts[index] || (count == topCounts[index] && productId < topIds[index]);
+        }
+    }
+}
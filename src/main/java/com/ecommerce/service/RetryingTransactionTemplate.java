@@ -0,0 +1,42 @@
+package com.ecommerce.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Transaction template that starts the transaction over when the database aborts it on a lock conflict,
+ * such as a deadlock between concurrent bucketed stock reservations. The callback must be safe to repeat.
+ * Inside an existing transaction it runs once, since only the outermost transaction can be retried.
+ */
+@Slf4j
+public class RetryingTransactionTemplate extends TransactionTemplate {
+
+    private final int maxAttempts;
+
+    public RetryingTransactionTemplate(PlatformTransactionManager transactionManager, int maxAttempts) {
+        super(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return super.execute(action);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return super.execute(action);
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Retrying transaction after lock conflict (attempt {} of {})", attempt, maxAttempts, e);
+            }
+        }
+    }
+}
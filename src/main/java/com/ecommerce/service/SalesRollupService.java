@@ -0,0 +1,388 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.SalesReport;
+import com.ecommerce.dto.SalesReportRow;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.SalesRollup;
+import com.ecommerce.entity.SalesRollupEvent;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.SalesRollupEventRepository;
+import com.ecommerce.repository.SalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps per-tenant sales totals by day, product and category from the order events, so reports never scan orders.
+ * Creating an order adds to the rollups of the day it was created on and cancelling it takes the same amounts back
+ * out. Each event is applied once: a row in {@code sales_rollup_events} is written in the same transaction as the
+ * rollup updates. The last {@code app.rollups.hot-window-days} days are also held in memory and answer reports
+ * that fall inside them; older ranges are summed from the rollup table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService implements OrderEventListener {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String NO_KEY = "";
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupEventRepository rollupEventRepository;
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // An event holds the read lock from its transaction until it is in the window, so a refresh never loads a
+    // committed event that is then added to the window again
+    private final ReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private volatile HotWindow window;
+
+    @Value("${app.rollups.hot-window-days:7}")
+    private int hotWindowDays = 7;
+
+    @Value("${app.rollups.max-range-days:400}")
+    private int maxRangeDays = 400;
+
+    @Value("${app.rollups.event-retention-days:180}")
+    private int eventRetentionDays = 180;
+
+    @Override
+    public void onOrderEvent(OrderEvent event) {
+        if (event.getType() == OrderEvent.Type.ORDER_STATUS_CHANGED || event.getTenantId() == null
+                || event.getOrderCreatedAt() == null) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            windowLock.readLock().lock();
+            try {
+                List<RollupDelta> deltas = new TransactionTemplate(transactionManager).execute(status -> apply(event));
+                if (deltas != null && !deltas.isEmpty()) {
+                    addToWindow(event.getTenantId(), event.getOrderCreatedAt().toLocalDate(), deltas);
+                }
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Another instance applied the same event, or inserted the same rollup row first
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            } finally {
+                windowLock.readLock().unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rollups.refresh-interval-ms:60000}")
+    public void refreshWindow() {
+        LocalDate start = LocalDate.now().minusDays(hotWindowDays - 1L);
+        windowLock.writeLock().lock();
+        try {
+            HotWindow loaded = new HotWindow(start);
+            for (SalesRollup row : salesRollupRepository.findBySalesDateGreaterThanEqual(start)) {
+                loaded.day(row.getTenantId(), row.getSalesDate()).add(row.getDimension(), row.getDimensionKey(),
+                        row.getCategory(), row.getOrders(), row.getUnits(), row.getRevenue());
+            }
+            window = loaded;
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rollups.purge-interval-ms:86400000}")
+    public void purgeAppliedEvents() {
+        LocalDateTime before = LocalDateTime.now().minusDays(eventRetentionDays);
+        int deleted = new TransactionTemplate(transactionManager).execute(status ->
+                rollupEventRepository.deleteCreatedBefore(before));
+        if (deleted > 0) {
+            log.debug("Purged {} applied sales rollup events", deleted);
+        }
+    }
+
+    public SalesReport getSalesReport(Long tenantId, LocalDate from, LocalDate to, String groupBy) {
+        SalesReport.GroupBy grouping = parseGroupBy(groupBy);
+        if (from.isAfter(to)) {
+            throw new ValidationException("Report start must not be after its end");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new ValidationException("Report range must not exceed " + maxRangeDays + " days");
+        }
+
+        HotWindow current = window;
+        boolean inWindow = current != null && !from.isBefore(current.start);
+        List<SalesReportRow> rows = switch (grouping) {
+            case DAY -> inWindow ? dailyFromWindow(current, tenantId, from, to) : dailyFromTable(tenantId, from, to);
+            case PRODUCT -> sum(current, inWindow, tenantId, SalesRollup.Dimension.PRODUCT, from, to);
+            case CATEGORY -> sum(current, inWindow, tenantId, SalesRollup.Dimension.CATEGORY, from, to);
+        };
+        rows.removeIf(row -> row.getOrders() == 0 && row.getUnits() == 0 && row.getRevenue().signum() == 0);
+        if (grouping != SalesReport.GroupBy.DAY) {
+            rows.sort(Comparator.comparing(SalesReportRow::getRevenue).reversed()
+                    .thenComparing(SalesReportRow::getKey));
+        }
+
+        List<SalesReportRow> totals = sum(current, inWindow, tenantId, SalesRollup.Dimension.TOTAL, from, to);
+        SalesReportRow total = totals.isEmpty()
+                ? new SalesReportRow(NO_KEY, null, 0L, 0L, BigDecimal.ZERO) : totals.get(0);
+        return new SalesReport(tenantId, from, to, grouping, total.getOrders(), total.getUnits(), total.getRevenue(),
+                rows);
+    }
+
+    private List<RollupDelta> apply(OrderEvent event) {
+        List<String> applied = rollupEventRepository.findEventTypesByOrderId(event.getOrderId());
+        if (applied.contains(event.getType().name())) {
+            return List.of();
+        }
+        rollupEventRepository.saveAndFlush(new SalesRollupEvent(event.getOrderId(), event.getType().name()));
+
+        // A cancellation only counts if the creation did, and a creation delivered after its cancellation is
+        // cancelled out already
+        boolean cancelling = event.getType() == OrderEvent.Type.ORDER_CANCELLED;
+        boolean counts = cancelling
+                ? applied.contains(OrderEvent.Type.ORDER_CREATED.name())
+                : !applied.contains(OrderEvent.Type.ORDER_CANCELLED.name());
+        if (!counts || event.getOrderItems() == null || event.getOrderItems().isEmpty()) {
+            return List.of();
+        }
+
+        Long tenantId = event.getTenantId();
+        LocalDate salesDate = event.getOrderCreatedAt().toLocalDate();
+        List<RollupDelta> deltas = deltas(event, cancelling ? -1 : 1,
+                categories(tenantId, salesDate, event.getOrderItems(), cancelling));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SalesRollup> inserts = new ArrayList<>();
+        for (RollupDelta delta : deltas) {
+            int updated = salesRollupRepository.addTo(tenantId, salesDate, delta.dimension, delta.key,
+                    delta.totals.orders, delta.totals.units, delta.totals.revenue, now);
+            if (updated == 0) {
+                inserts.add(delta.toRow(tenantId, salesDate));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            salesRollupRepository.saveAllAndFlush(inserts);
+        }
+        return deltas;
+    }
+
+    // Rows are updated in key order so that concurrent events lock them in the same order
+    private List<RollupDelta> deltas(OrderEvent event, int sign, Map<Long, String> categories) {
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        Map<String, RollupDelta> products = new TreeMap<>();
+        Map<String, RollupDelta> byCategory = new TreeMap<>();
+        long units = 0;
+        for (OrderItemDto item : event.getOrderItems()) {
+            String category = categories.getOrDefault(item.getProductId(), NO_KEY);
+            long quantity = (long) sign * item.getQuantity();
+            BigDecimal revenue = item.getTotalPrice().multiply(factor);
+            products.computeIfAbsent(item.getProductId().toString(),
+                    key -> new RollupDelta(SalesRollup.Dimension.PRODUCT, key, category, sign)).add(quantity, revenue);
+            byCategory.computeIfAbsent(category,
+                    key -> new RollupDelta(SalesRollup.Dimension.CATEGORY, key, null, sign)).add(quantity, revenue);
+            units += quantity;
+        }
+
+        List<RollupDelta> deltas = new ArrayList<>();
+        RollupDelta total = new RollupDelta(SalesRollup.Dimension.TOTAL, NO_KEY, null, sign);
+        total.add(units, event.getTotalAmount().multiply(factor));
+        deltas.add(total);
+        deltas.addAll(products.values());
+        deltas.addAll(byCategory.values());
+        return deltas;
+    }
+
+    private Map<Long, String> categories(Long tenantId, LocalDate salesDate, List<OrderItemDto> items,
+                                         boolean cancelling) {
+        Set<Long> productIds = new HashSet<>();
+        for (OrderItemDto item : items) {
+            productIds.add(item.getProductId());
+        }
+        Map<Long, String> categories = new HashMap<>();
+        if (cancelling) {
+            // Take the amounts out of the category they were added to, even if the product has moved since
+            List<String> keys = productIds.stream().map(String::valueOf).toList();
+            for (SalesRollup row : salesRollupRepository.findByTenantIdAndSalesDateAndDimensionAndDimensionKeyIn(
+                    tenantId, salesDate, SalesRollup.Dimension.PRODUCT, keys)) {
+                categories.put(Long.valueOf(row.getDimensionKey()), row.getCategory());
+            }
+            productIds.removeAll(categories.keySet());
+        }
+        if (!productIds.isEmpty()) {
+            for (Product product : productRepository.findAllById(productIds)) {
+                categories.put(product.getId(), product.getCategory() != null ? product.getCategory() : NO_KEY);
+            }
+        }
+        return categories;
+    }
+
+    private void addToWindow(Long tenantId, LocalDate salesDate, List<RollupDelta> deltas) {
+        HotWindow current = window;
+        if (current == null || salesDate.isBefore(current.start)) {
+            return;
+        }
+        DayRollup day = current.day(tenantId, salesDate);
+        for (RollupDelta delta : deltas) {
+            day.add(delta.dimension, delta.key, delta.category, delta.totals.orders, delta.totals.units,
+                    delta.totals.revenue);
+        }
+    }
+
+    private List<SalesReportRow> dailyFromWindow(HotWindow current, Long tenantId, LocalDate from, LocalDate to) {
+        List<SalesReportRow> rows = new ArrayList<>();
+        for (Map.Entry<LocalDate, DayRollup> entry : current.days(tenantId).subMap(from, true, to, true).entrySet()) {
+            Totals totals = entry.getValue().get(SalesRollup.Dimension.TOTAL, NO_KEY);
+            if (totals != null) {
+                rows.add(totals.toRow(entry.getKey().toString()));
+            }
+        }
+        return rows;
+    }
+
+    private List<SalesReportRow> dailyFromTable(Long tenantId, LocalDate from, LocalDate to) {
+        List<SalesReportRow> rows = new ArrayList<>();
+        for (SalesRollup row : salesRollupRepository.findByTenantIdAndDimensionAndSalesDateBetweenOrderBySalesDate(
+                tenantId, SalesRollup.Dimension.TOTAL, from, to)) {
+            rows.add(new SalesReportRow(row.getSalesDate().toString(), null, row.getOrders(), row.getUnits(),
+                    row.getRevenue()));
+        }
+        return rows;
+    }
+
+    private List<SalesReportRow> sum(HotWindow current, boolean inWindow, Long tenantId,
+                                     SalesRollup.Dimension dimension, LocalDate from, LocalDate to) {
+        if (!inWindow) {
+            return new ArrayList<>(salesRollupRepository.sumByKey(tenantId, dimension, from, to));
+        }
+        Map<String, Totals> sums = new TreeMap<>();
+        for (DayRollup day : current.days(tenantId).subMap(from, true, to, true).values()) {
+            day.addTo(dimension, sums);
+        }
+        List<SalesReportRow> rows = new ArrayList<>();
+        sums.forEach((key, totals) -> rows.add(totals.toRow(key)));
+        return rows;
+    }
+
+    private static SalesReport.GroupBy parseGroupBy(String groupBy) {
+        try {
+            return SalesReport.GroupBy.valueOf(groupBy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown report grouping: " + groupBy);
+        }
+    }
+
+    private static final class HotWindow {
+        private final LocalDate start;
+        private final Map<Long, NavigableMap<LocalDate, DayRollup>> tenants = new ConcurrentHashMap<>();
+
+        private HotWindow(LocalDate start) {
+            this.start = start;
+        }
+
+        private DayRollup day(Long tenantId, LocalDate salesDate) {
+            return tenants.computeIfAbsent(tenantId, id -> new ConcurrentSkipListMap<>())
+                    .computeIfAbsent(salesDate, date -> new DayRollup());
+        }
+
+        private NavigableMap<LocalDate, DayRollup> days(Long tenantId) {
+            return tenants.getOrDefault(tenantId, Collections.emptyNavigableMap());
+        }
+    }
+
+    private static final class DayRollup {
+        private final Map<SalesRollup.Dimension, Map<String, Totals>> totals =
+                new EnumMap<>(SalesRollup.Dimension.class);
+
+        private synchronized void add(SalesRollup.Dimension dimension, String key, String category, long orders,
+                                      long units, BigDecimal revenue) {
+            Totals entry = totals.computeIfAbsent(dimension, d -> new HashMap<>())
+                    .computeIfAbsent(key, k -> new Totals(category));
+            entry.add(orders, units, revenue);
+        }
+
+        private synchronized Totals get(SalesRollup.Dimension dimension, String key) {
+            Totals entry = totals.getOrDefault(dimension, Map.of()).get(key);
+            return entry != null ? entry.copy() : null;
+        }
+
+        private synchronized void addTo(SalesRollup.Dimension dimension, Map<String, Totals> sums) {
+            totals.getOrDefault(dimension, Map.of()).forEach((key, entry) ->
+                    sums.computeIfAbsent(key, k -> new Totals(entry.category))
+                            .add(entry.orders, entry.units, entry.revenue));
+        }
+    }
+
+    private static final class Totals {
+        private final String category;
+        private long orders;
+        private long units;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private Totals(String category) {
+            this.category = category;
+        }
+
+        private void add(long orders, long units, BigDecimal revenue) {
+            this.orders += orders;
+            this.units += units;
+            this.revenue = this.revenue.add(revenue);
+        }
+
+        private Totals copy() {
+            Totals copy = new Totals(category);
+            copy.add(orders, units, revenue);
+            return copy;
+        }
+
+        private SalesReportRow toRow(String key) {
+            return new SalesReportRow(key, category, orders, units, revenue);
+        }
+    }
+
+    private static final class RollupDelta {
+        private final SalesRollup.Dimension dimension;
+        private final String key;
+        private final String category;
+        private final Totals totals;
+
+        private RollupDelta(SalesRollup.Dimension dimension, String key, String category, int orders) {
+            this.dimension = dimension;
+            this.key = key;
+            this.category = category;
+            this.totals = new Totals(category);
+            this.totals.orders = orders;
+        }
+
+        private void add(long units, BigDecimal revenue) {
+            totals.add(0, units, revenue);
+        }
+
+        private SalesRollup toRow(Long tenantId, LocalDate salesDate) {
+            SalesRollup row = new SalesRollup();
+            row.setTenantId(tenantId);
+            row.setSalesDate(salesDate);
+            row.setDimension(dimension);
+            row.setDimensionKey(key);
+            row.setCategory(category);
+            row.setOrders(totals.orders);
+            row.setUnits(totals.units);
+            row.setRevenue(totals.revenue);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.OrderRequestDto;
+import com.ecommerce.dto.ReservationDto;
+import com.ecommerce.entity.StockReservation;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.StockReservationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Holds stock for a user's checkout for a limited time. Reserving takes the stock immediately and keeps the
+ * reservation in memory; its rows are written in batches by {@link #flush()}, so the request makes no write
+ * besides the stock update. A reservation is confirmed into an order, cancelled, or released by the reaper
+ * once it expires.
+ * Each instance owns the reservations it created ({@code app.order-number.node-id}) and reloads them on start.
+ * Flushed reservations can also be confirmed or cancelled on another instance, and rows left well past their
+ * expiry by a node that is gone are released by any instance's reaper. Whoever deletes the rows under lock owns
+ * the reservation, so it is settled only once. Reservations made since the last flush are lost on a crash, and
+ * their stock stays taken.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private final OrderService orderService;
+    private final StockReservationRepository reservationRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final NavigableSet<Reservation> expiryIndex = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong((Reservation reservation) -> reservation.expiresAt)
+                    .thenComparing(reservation -> reservation.id));
+    private final Queue<Reservation> pendingInserts = new ConcurrentLinkedQueue<>();
+
+    // Guards the persisted/pending/released flags, and is held for the whole of a flush
+    private final Object flushLock = new Object();
+
+    @Value("${app.reservations.ttl-ms:900000}")
+    private long ttlMillis = 900000;
+
+    @Value("${app.reservations.max-ttl-ms:3600000}")
+    private long maxTtlMillis = 3600000;
+
+    @Value("${app.reservations.reaper-batch-size:500}")
+    private int reaperBatchSize = 500;
+
+    @Value("${app.reservations.orphan-grace-ms:60000}")
+    private long orphanGraceMillis = 60000;
+
+    @Autowired
+    public StockReservationService(OrderService orderService, StockReservationRepository reservationRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   OrderNumberGenerator orderNumberGenerator) {
+        this(orderService, reservationRepository, transactionManager, orderNumberGenerator.getNodeId(),
+                System::currentTimeMillis);
+    }
+
+    StockReservationService(OrderService orderService, StockReservationRepository reservationRepository,
+                            PlatformTransactionManager transactionManager, long nodeId, LongSupplier clock) {
+        this.orderService = orderService;
+        this.reservationRepository = reservationRepository;
+        this.transactionManager = transactionManager;
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        Map<String, List<StockReservation>> rows = reservationRepository.findByNodeId(nodeId).stream()
+                .collect(Collectors.groupingBy(StockReservation::getReservationId));
+        for (List<StockReservation> lines : rows.values()) {
+            Reservation reservation = fromRows(lines);
+            if (reservations.putIfAbsent(reservation.id, reservation) == null) {
+                expiryIndex.add(reservation);
+            }
+        }
+        log.info("Loaded {} stock reservations", rows.size());
+    }
+
+    public ReservationDto reserve(OrderRequestDto orderRequest, Long userId, Long ttlSeconds) {
+        if (orderRequest.getOrderItems() == null || orderRequest.getOrderItems().isEmpty()) {
+            throw new ValidationException("Reservation must contain at least one item");
+        }
+        long ttl = ttlSeconds != null ? TimeUnit.SECONDS.toMillis(ttlSeconds) : ttlMillis;
+        if (ttl <= 0 || ttl > maxTtlMillis) {
+            throw new ValidationException("Reservation TTL must be between 1 and " +
+                    TimeUnit.MILLISECONDS.toSeconds(maxTtlMillis) + " seconds");
+        }
+
+        orderService.reserveStock(orderRequest.getOrderItems());
+
+        Map<Long, Integer> items = new TreeMap<>();
+        for (OrderItemDto item : orderRequest.getOrderItems()) {
+            items.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), userId, items,
+                clock.getAsLong() + ttl);
+        reservation.pending = true;
+        pendingInserts.add(reservation);
+        reservations.put(reservation.id, reservation);
+        expiryIndex.add(reservation);
+        return toDto(reservation);
+    }
+
+    public ReservationDto getReservation(String reservationId, Long userId) {
+        Reservation reservation = find(reservationId);
+        if (reservation == null || !reservation.userId.equals(userId)) {
+            throw new ResourceNotFoundException("Reservation not found: " + reservationId);
+        }
+        return toDto(reservation);
+    }
+
+    public OrderDto confirm(String reservationId, Long userId) {
+        Reservation reservation = take(reservationId, userId);
+        OrderDto order;
+        try {
+            order = new TransactionTemplate(transactionManager).execute(status -> claim(List.of(reservation)).isEmpty()
+                    ? null : orderService.createOrderFromReservation(toOrderItems(reservation), userId));
+        } catch (RuntimeException e) {
+            restore(reservation);
+            throw e;
+        }
+        if (order == null) {
+            throw new ResourceNotFoundException("Reservation not found: " + reservationId);
+        }
+        return order;
+    }
+
+    public void cancel(String reservationId, Long userId) {
+        Reservation reservation = take(reservationId, userId);
+        boolean cancelled;
+        try {
+            cancelled = new TransactionTemplate(transactionManager).execute(status -> {
+                if (claim(List.of(reservation)).isEmpty()) {
+                    return false;
+                }
+                orderService.releaseStock(reservation.items);
+                return true;
+            });
+        } catch (RuntimeException e) {
+            restore(reservation);
+            throw e;
+        }
+        if (!cancelled) {
+            throw new ResourceNotFoundException("Reservation not found: " + reservationId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.reaper-interval-ms:5000}")
+    public void releaseExpired() {
+        long now = clock.getAsLong();
+        int released = 0;
+        List<Reservation> batch = new ArrayList<>();
+        for (Reservation reservation : expiryIndex) {
+            if (reservation.expiresAt > now) {
+                break;
+            }
+            expiryIndex.remove(reservation);
+            if (reservations.remove(reservation.id, reservation)) {
+                batch.add(reservation);
+            }
+            if (batch.size() == reaperBatchSize) {
+                released += release(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        released += release(batch);
+        released += releaseOrphaned(now);
+        if (released > 0) {
+            log.info("Released {} expired stock reservations", released);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.flush-interval-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            List<Reservation> batch = new ArrayList<>();
+            Reservation reservation;
+            while ((reservation = pendingInserts.poll()) != null) {
+                reservation.pending = false;
+                if (!reservation.released) {
+                    batch.add(reservation);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<StockReservation> rows = new ArrayList<>();
+            for (Reservation pending : batch) {
+                LocalDateTime expiresAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(pending.expiresAt),
+                        ZoneId.systemDefault());
+                pending.items.forEach((productId, quantity) -> rows.add(new StockReservation(pending.id, nodeId,
+                        pending.userId, productId, quantity, expiresAt)));
+            }
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                        reservationRepository.saveAll(rows));
+                batch.forEach(persisted -> persisted.persisted = true);
+            } catch (RuntimeException e) {
+                log.warn("Writing {} stock reservations failed, retrying on the next flush", batch.size(), e);
+                batch.forEach(failed -> {
+                    failed.pending = true;
+                    pendingInserts.add(failed);
+                });
+            }
+        }
+    }
+
+    private int release(List<Reservation> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                List<Reservation> claimed = claim(batch);
+                Map<Long, Integer> quantities = new TreeMap<>();
+                for (Reservation reservation : claimed) {
+                    reservation.items.forEach((productId, quantity) ->
+                            quantities.merge(productId, quantity, Integer::sum));
+                }
+                if (!quantities.isEmpty()) {
+                    orderService.releaseStock(quantities);
+                }
+                return claimed.size();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Releasing {} expired stock reservations failed, retrying on the next run", batch.size(), e);
+            batch.forEach(this::restore);
+            return 0;
+        }
+    }
+
+    // Rows still there this long after they expired belong to a node that is gone or was renumbered
+    private int releaseOrphaned(long now) {
+        LocalDateTime cutoff = LocalDateTime.ofInstant(Instant.ofEpochMilli(now - orphanGraceMillis),
+                ZoneId.systemDefault());
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                List<String> ids = reservationRepository.findReservationIdsExpiredBefore(cutoff,
+                        PageRequest.of(0, reaperBatchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                // Lock and re-read, since the owner or another reaper may have settled some of them meanwhile
+                List<StockReservation> rows = reservationRepository.findByReservationIdInForUpdate(ids);
+                if (rows.isEmpty()) {
+                    return 0;
+                }
+                Map<Long, Integer> quantities = new TreeMap<>();
+                Set<String> claimedIds = new HashSet<>();
+                for (StockReservation row : rows) {
+                    quantities.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+                    claimedIds.add(row.getReservationId());
+                }
+                orderService.releaseStock(quantities);
+                reservationRepository.deleteByReservationIdIn(claimedIds);
+                return claimedIds.size();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Releasing orphaned stock reservations failed, retrying on the next run", e);
+            return 0;
+        }
+    }
+
+    // Reservations held by another instance, or left by one that is gone, are read from their rows
+    private Reservation find(String reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation != null) {
+            return reservation;
+        }
+        List<StockReservation> rows = reservationRepository.findByReservationId(reservationId);
+        return rows.isEmpty() ? null : fromRows(rows);
+    }
+
+    private Reservation take(String reservationId, Long userId) {
+        Reservation held = reservations.get(reservationId);
+        Reservation reservation = held != null ? held : find(reservationId);
+        if (reservation == null || !reservation.userId.equals(userId)) {
+            throw new ResourceNotFoundException("Reservation not found: " + reservationId);
+        }
+        if (reservation.expiresAt <= clock.getAsLong()) {
+            throw new ValidationException("Reservation has expired: " + reservationId);
+        }
+        if (held != null) {
+            if (!reservations.remove(reservationId, held)) {
+                throw new ResourceNotFoundException("Reservation not found: " + reservationId);
+            }
+            expiryIndex.remove(held);
+        }
+        return reservation;
+    }
+
+    /**
+     * Deletes the rows of the given reservations and returns those that are now settled by the caller's
+     * transaction: ones never flushed, whose rows the next flush skips instead, and ones whose rows were still
+     * there. Rows are locked first, so a reservation claimed concurrently by another instance is left out.
+     */
+    private List<Reservation> claim(List<Reservation> removed) {
+        List<String> persistedIds = new ArrayList<>();
+        synchronized (flushLock) {
+            for (Reservation reservation : removed) {
+                reservation.released = true;
+                if (reservation.persisted) {
+                    persistedIds.add(reservation.id);
+                }
+            }
+        }
+        if (persistedIds.isEmpty()) {
+            return removed;
+        }
+        List<String> present = reservationRepository.findByReservationIdInForUpdate(persistedIds).stream()
+                .map(StockReservation::getReservationId)
+                .distinct()
+                .collect(Collectors.toList());
+        if (!present.isEmpty()) {
+            reservationRepository.deleteByReservationIdIn(present);
+        }
+        return removed.stream()
+                .filter(reservation -> !reservation.persisted || present.contains(reservation.id))
+                .collect(Collectors.toList());
+    }
+
+    private void restore(Reservation reservation) {
+        synchronized (flushLock) {
+            reservation.released = false;
+            if (!reservation.persisted && !reservation.pending) {
+                reservation.pending = true;
+                pendingInserts.add(reservation);
+            }
+        }
+        reservations.put(reservation.id, reservation);
+        expiryIndex.add(reservation);
+    }
+
+    private static Reservation fromRows(List<StockReservation> lines) {
+        StockReservation first = lines.get(0);
+        Map<Long, Integer> items = new TreeMap<>();
+        for (StockReservation line : lines) {
+            items.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        Reservation reservation = new Reservation(first.getReservationId(), first.getUserId(), items,
+                first.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        reservation.persisted = true;
+        return reservation;
+    }
+
+    private List<OrderItemDto> toOrderItems(Reservation reservation) {
+        List<OrderItemDto> orderItems = new ArrayList<>();
+        reservation.items.forEach((productId, quantity) -> {
+            OrderItemDto item = new OrderItemDto();
+            item.setProductId(productId);
+            item.setQuantity(quantity);
+            orderItems.add(item);
+        });
+        return orderItems;
+    }
+
+    private ReservationDto toDto(Reservation reservation) {
+        return new ReservationDto(reservation.id, reservation.userId, toOrderItems(reservation),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(reservation.expiresAt), ZoneId.systemDefault()));
+    }
+
+    private static class Reservation {
+
+        private final String id;
+        private final Long userId;
+        private final Map<Long, Integer> items;
+        private final long expiresAt;
+
+        private boolean persisted;
+        private boolean pending;
+        private boolean released;
+
+        Reservation(String id, Long userId, Map<Long, Integer> items, long expiresAt) {
+            this.id = id;
+            this.userId = userId;
+            this.items = items;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
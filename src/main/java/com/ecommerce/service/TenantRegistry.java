@@ -0,0 +1,148 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ResolvedTenant;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.repository.TenantRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process domain -> tenant lookup used on every /{tenant}/** request.
+ * Unknown domains are remembered for a short time so bogus paths don't reach the database. Known tenants are
+ * reloaded after {@code app.tenant-registry.ttl-ms}, which picks up changes made through other instances;
+ * changes made here are applied once their transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class TenantRegistry {
+
+    private final TenantRepository tenantRepository;
+
+    private final Map<String, CachedTenant> tenantsByDomain = new ConcurrentHashMap<>();
+    private final Map<String, Long> unknownDomains = new ConcurrentHashMap<>();
+
+    // Bumped on every change; a lookup that overlapped one may have read the old row and is not kept
+    private final AtomicLong changes = new AtomicLong();
+
+    @Value("${app.tenant-registry.ttl-ms:300000}")
+    private long ttlMillis = 300000;
+
+    @Value("${app.tenant-registry.negative-ttl-ms:30000}")
+    private long negativeTtlMillis = 30000;
+
+    @Value("${app.tenant-registry.negative-max-entries:10000}")
+    private int negativeMaxEntries = 10000;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadAll() {
+        tenantsByDomain.clear();
+        unknownDomains.clear();
+        for (Tenant tenant : tenantRepository.findAll()) {
+            cache(toResolved(tenant));
+        }
+    }
+
+    public Optional<ResolvedTenant> resolve(String domain) {
+        CachedTenant cached = tenantsByDomain.get(domain);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return Optional.of(cached.tenant);
+        }
+
+        Long expiresAt = unknownDomains.get(domain);
+        if (expiresAt != null) {
+            if (expiresAt > System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            unknownDomains.remove(domain, expiresAt);
+        }
+
+        long generation = changes.get();
+        Optional<Tenant> loaded = tenantRepository.findByDomain(domain);
+        if (loaded.isPresent()) {
+            CachedTenant loadedTenant = cache(toResolved(loaded.get()));
+            if (changes.get() != generation) {
+                tenantsByDomain.remove(domain, loadedTenant);
+            }
+            return Optional.of(loadedTenant.tenant);
+        }
+        tenantsByDomain.remove(domain, cached);
+
+        if (unknownDomains.size() >= negativeMaxEntries) {
+            unknownDomains.clear();
+        }
+        unknownDomains.put(domain, System.currentTimeMillis() + negativeTtlMillis);
+        return Optional.empty();
+    }
+
+    public void register(Tenant tenant) {
+        ResolvedTenant resolved = toResolved(tenant);
+        afterCommit(() -> {
+            changes.incrementAndGet();
+            cache(resolved);
+        });
+    }
+
+    public void evict(String domain) {
+        if (domain != null) {
+            afterCommit(() -> {
+                changes.incrementAndGet();
+                tenantsByDomain.remove(domain);
+            });
+        }
+    }
+
+    public void evictById(Long tenantId) {
+        afterCommit(() -> {
+            changes.incrementAndGet();
+            tenantsByDomain.values().removeIf(cached -> cached.tenant.getId().equals(tenantId));
+        });
+    }
+
+    private CachedTenant cache(ResolvedTenant tenant) {
+        CachedTenant cached = new CachedTenant(tenant, System.currentTimeMillis() + ttlMillis);
+        tenantsByDomain.put(tenant.getDomain(), cached);
+        unknownDomains.remove(tenant.getDomain());
+        return cached;
+    }
+
+    private static ResolvedTenant toResolved(Tenant tenant) {
+        return new ResolvedTenant(tenant.getId(), tenant.getName(), tenant.getDomain(),
+                Boolean.TRUE.equals(tenant.getIsActive()));
+    }
+
+    // Registry changes made inside a transaction only become visible once it commits
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static class CachedTenant {
+        private final ResolvedTenant tenant;
+        private final long expiresAt;
+
+        private CachedTenant(ResolvedTenant tenant, long expiresAt) {
+            this.tenant = tenant;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -20,6 +20,11 @@ import java.util.stream.Collectors;
 public class TenantService {
     
     private final TenantRepository tenantRepository;
+    private final TenantRegistry tenantRegistry;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetService productFacetService;
+    private final RelatedProductIndex relatedProductIndex;
+    private final FavoriteCountService favoriteCountService;
     
     public TenantDto createTenant(TenantDto tenantDto) {
         validateTenantCreation(tenantDto);
@@ -31,12 +36,14 @@ public class TenantService {
         tenant.setIsActive(tenantDto.getIsActive() != null ? tenantDto.getIsActive() : true);
         
         Tenant savedTenant = tenantRepository.save(tenant);
+        tenantRegistry.register(savedTenant);
         return convertToDto(savedTenant);
     }
     
     public TenantDto updateTenant(Long id, TenantDto tenantDto) {
         Tenant tenant = tenantRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Tenant not found: " + id));
+        String previousDomain = tenant.getDomain();
         
         if (tenantDto.getName() != null && !tenantDto.getName().equals(tenant.getName())) {
             if (tenantRepository.existsByName(tenantDto.getName())) {
@@ -61,6 +68,8 @@ public class TenantService {
         }
         
         Tenant savedTenant = tenantRepository.save(tenant);
+        tenantRegistry.evict(previousDomain);
+        tenantRegistry.register(savedTenant);
         return convertToDto(savedTenant);
     }
     
@@ -102,6 +111,11 @@ public class TenantService {
             throw new ResourceNotFoundException("Tenant not found: " + id);
         }
         tenantRepository.deleteById(id);
+        tenantRegistry.evictById(id);
+        productSearchIndex.removeTenant(id);
+        productFacetService.removeTenant(id);
+        relatedProductIndex.removeTenant(id);
+        favoriteCountService.removeTenant(id);
     }
     
     private void validateTenantCreation(TenantDto tenantDto) {
@@ -0,0 +1,103 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Keycloak subject (and user id) -> the caller's id, tenant and role, so authenticated requests don't load the
+ * user every time. Entries expire after {@code app.user-identity.ttl-ms}; UserService evicts a user as soon as it
+ * is changed or deleted here, the TTL covers changes made through other instances.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserIdentityCache {
+
+    private final UserRepository userRepository;
+
+    private final Map<String, CachedIdentity> bySubject = new ConcurrentHashMap<>();
+    private final Map<Long, CachedIdentity> byId = new ConcurrentHashMap<>();
+
+    // Bumped before every eviction; a load that overlapped one may have read the old row and is not kept
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Value("${app.user-identity.ttl-ms:300000}")
+    private long ttlMillis = 300000;
+
+    @Value("${app.user-identity.max-entries:100000}")
+    private int maxEntries = 100000;
+
+    public Optional<AuthenticatedUser> findBySubject(String keycloakId) {
+        return lookup(bySubject, keycloakId, userRepository::findIdentityByKeycloakId);
+    }
+
+    public AuthenticatedUser getById(Long userId) {
+        return lookup(byId, userId, userRepository::findIdentityById)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
+    }
+
+    /**
+     * Forgets the user once the current transaction commits, or right away outside of one.
+     */
+    public void evict(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(userId);
+                }
+            });
+        } else {
+            evictNow(userId);
+        }
+    }
+
+    private void evictNow(Long userId) {
+        evictions.incrementAndGet();
+        byId.remove(userId);
+        bySubject.values().removeIf(cached -> cached.user.getId().equals(userId));
+    }
+
+    private <K> Optional<AuthenticatedUser> lookup(Map<K, CachedIdentity> cache, K key,
+                                                   Function<K, Optional<AuthenticatedUser>> loader) {
+        CachedIdentity cached = cache.get(key);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return Optional.of(cached.user);
+        }
+
+        long generation = evictions.get();
+        Optional<AuthenticatedUser> loaded = loader.apply(key);
+        if (loaded.isPresent()) {
+            if (cache.size() >= maxEntries) {
+                cache.clear();
+            }
+            CachedIdentity identity = new CachedIdentity(loaded.get(), System.currentTimeMillis() + ttlMillis);
+            cache.put(key, identity);
+            if (evictions.get() != generation) {
+                cache.remove(key, identity);
+            }
+        }
+        return loaded;
+    }
+
+    private static class CachedIdentity {
+        private final AuthenticatedUser user;
+        private final long expiresAt;
+
+        private CachedIdentity(AuthenticatedUser user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final TenantRepository tenantRepository;
+    private final UserIdentityCache userIdentityCache;
     
     public UserDto createUser(UserDto userDto) {
         validateUserCreation(userDto);
@@ -89,6 +90,7 @@ public class UserService {
         }
         
         User savedUser = userRepository.save(user);
+        userIdentityCache.evict(id);
         return convertToDto(savedUser);
     }
     
@@ -125,6 +127,7 @@ public class UserService {
             throw new ResourceNotFoundException("User not found: " + id);
         }
         userRepository.deleteById(id);
+        userIdentityCache.evict(id);
     }
     
     private void validateUserCreation(UserDto userDto) {
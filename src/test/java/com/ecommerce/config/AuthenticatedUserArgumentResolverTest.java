@@ -0,0 +1,137 @@
+package com.ecommerce.config;
+
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.entity.Role;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.service.UserIdentityCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticatedUserArgumentResolverTest {
+
+    private static final String SUBJECT = "kc-1";
+
+    @Mock
+    private UserIdentityCache userIdentityCache;
+
+    @Mock
+    private MethodParameter parameter;
+
+    @Mock
+    private NativeWebRequest webRequest;
+
+    private AuthenticatedUserArgumentResolver resolver;
+    private AuthenticatedUser caller;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new AuthenticatedUserArgumentResolver(userIdentityCache);
+        caller = new AuthenticatedUser(1L, "caller", 10L, Role.RoleType.USER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolveArgument_Jwt_ReturnsTheCaller() {
+        authenticate();
+        when(userIdentityCache.findBySubject(SUBJECT)).thenReturn(Optional.of(caller));
+
+        assertSame(caller, resolve());
+        verify(userIdentityCache, never()).getById(any());
+    }
+
+    @Test
+    void resolveArgument_JwtWithMatchingUserId_ReturnsTheCaller() {
+        authenticate();
+        when(webRequest.getParameter("userId")).thenReturn("1");
+        when(userIdentityCache.findBySubject(SUBJECT)).thenReturn(Optional.of(caller));
+
+        assertSame(caller, resolve());
+    }
+
+    @Test
+    void resolveArgument_JwtWithOtherUserId_ThrowsValidationException() {
+        authenticate();
+        when(webRequest.getParameter("userId")).thenReturn("2");
+        when(userIdentityCache.findBySubject(SUBJECT)).thenReturn(Optional.of(caller));
+
+        assertThrows(ValidationException.class, this::resolve);
+    }
+
+    @Test
+    void resolveArgument_UnknownSubject_NullableParameterIsLeftNull() {
+        authenticate();
+        when(userIdentityCache.findBySubject(SUBJECT)).thenReturn(Optional.empty());
+        when(parameter.isOptional()).thenReturn(true);
+
+        assertNull(resolve());
+    }
+
+    @Test
+    void resolveArgument_UnknownSubject_ThrowsResourceNotFoundException() {
+        authenticate();
+        when(userIdentityCache.findBySubject(SUBJECT)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, this::resolve);
+    }
+
+    @Test
+    void resolveArgument_NoToken_UsesUserIdParameter() {
+        when(webRequest.getParameter("userId")).thenReturn(" 1 ");
+        when(userIdentityCache.getById(1L)).thenReturn(caller);
+
+        assertSame(caller, resolve());
+        verify(userIdentityCache, never()).findBySubject(any());
+    }
+
+    @Test
+    void resolveArgument_NoTokenNoUserId_ThrowsValidationException() {
+        assertThrows(ValidationException.class, this::resolve);
+        verifyNoInteractions(userIdentityCache);
+    }
+
+    @Test
+    void resolveArgument_NoTokenNoUserId_NullableParameterIsLeftNull() {
+        when(parameter.isOptional()).thenReturn(true);
+
+        assertNull(resolve());
+    }
+
+    @Test
+    void resolveArgument_InvalidUserId_ThrowsValidationException() {
+        when(webRequest.getParameter("userId")).thenReturn("abc");
+
+        assertThrows(ValidationException.class, this::resolve);
+    }
+
+    private void authenticate() {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(SUBJECT)
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    private AuthenticatedUser resolve() {
+        return resolver.resolveArgument(parameter, null, webRequest, null);
+    }
+}
@@ -1,18 +1,30 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.config.SecurityConfig;
+import com.ecommerce.dto.BulkOrderCancelRequest;
+import com.ecommerce.dto.BulkOrderCancelResult;
+import com.ecommerce.dto.BulkOrderStatusRequest;
+import com.ecommerce.dto.BulkOrderStatusResult;
+import com.ecommerce.dto.OrderStatusOutcome;
 import com.ecommerce.dto.TenantDto;
 import com.ecommerce.dto.UserDto;
+import com.ecommerce.entity.Order;
 import com.ecommerce.entity.Role;
+import com.ecommerce.service.OrderBulkService;
 import com.ecommerce.service.TenantService;
+import com.ecommerce.service.TenantRegistry;
+import com.ecommerce.service.UserIdentityCache;
 import com.ecommerce.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,6 +39,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AdminController.class)
+@Import(SecurityConfig.class)
+@MockBean(JpaMetamodelMappingContext.class)
 class AdminControllerTest {
     
     @Autowired
@@ -38,6 +52,15 @@ class AdminControllerTest {
     @MockBean
     private UserService userService;
     
+    @MockBean
+    private TenantRegistry tenantRegistry;
+    
+    @MockBean
+    private OrderBulkService orderBulkService;
+    
+    @MockBean
+    private UserIdentityCache userIdentityCache;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -69,7 +92,7 @@ class AdminControllerTest {
         tenantDto.setName("Test Tenant");
         tenantDto.setDomain("test");
         
-        Page<TenantDto> tenantPage = new PageImpl<>(List.of(tenantDto));
+        Page<TenantDto> tenantPage = new PageImpl<>(List.of(tenantDto), PageRequest.of(0, 20), 1);
         when(tenantService.getAllTenants(any())).thenReturn(tenantPage);
         
         mockMvc.perform(get("/api/admin/tenants"))
@@ -127,4 +150,47 @@ class AdminControllerTest {
                 .content(objectMapper.writeValueAsString(tenantDto)))
                 .andExpect(status().isForbidden());
     }
+    
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void cancelOrders_Success() throws Exception {
+        when(orderBulkService.cancelOrders(List.of(1L, 2L, 3L)))
+                .thenReturn(new BulkOrderCancelResult(3, 2, List.of(2L)));
+        
+        mockMvc.perform(post("/api/admin/orders/cancel")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkOrderCancelRequest(List.of(1L, 2L, 3L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cancelled").value(2))
+                .andExpect(jsonPath("$.skipped[0]").value(2));
+    }
+    
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void cancelOrders_NoIds_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/admin/orders/cancel")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkOrderCancelRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void transitionOrders_Success() throws Exception {
+        when(orderBulkService.transitionOrders(List.of(1L), Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED))
+                .thenReturn(new BulkOrderStatusResult(Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED, 1, 1,
+                        List.of(new OrderStatusOutcome(1L, OrderStatusOutcome.Result.TRANSITIONED,
+                                Order.OrderStatus.SHIPPED))));
+        
+        mockMvc.perform(post("/api/admin/orders/status")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkOrderStatusRequest(List.of(1L),
+                        Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transitioned").value(1))
+                .andExpect(jsonPath("$.outcomes[0].result").value("TRANSITIONED"));
+    }
 }
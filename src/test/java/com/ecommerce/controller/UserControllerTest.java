@@ -1,34 +1,54 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.dto.BulkFavoriteRequest;
+import com.ecommerce.dto.BulkFavoriteResult;
 import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderItemDto;
 import com.ecommerce.dto.OrderRequestDto;
 import com.ecommerce.dto.ProductDto;
 import com.ecommerce.entity.Order;
+import com.ecommerce.entity.Role;
+import com.ecommerce.service.OrderIdempotencyService;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.service.StockReservationService;
 import com.ecommerce.service.FavoriteProductService;
+import com.ecommerce.service.TenantRegistry;
+import com.ecommerce.service.UserIdentityCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@MockBean(JpaMetamodelMappingContext.class)
 class UserControllerTest {
     
     @Autowired
@@ -40,12 +60,31 @@ class UserControllerTest {
     @MockBean
     private OrderService orderService;
     
+    @MockBean
+    private OrderIdempotencyService orderIdempotencyService;
+    
+    @MockBean
+    private StockReservationService stockReservationService;
+    
     @MockBean
     private FavoriteProductService favoriteProductService;
     
+    @MockBean
+    private TenantRegistry tenantRegistry;
+    
+    @MockBean
+    private UserIdentityCache userIdentityCache;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
+    private final AuthenticatedUser identity = new AuthenticatedUser(1L, "testuser", 1L, Role.RoleType.USER);
+    
+    @BeforeEach
+    void setUp() {
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+    }
+    
     @Test
     @WithMockUser(roles = "USER")
     void getAllProducts_Success() throws Exception {
@@ -55,7 +94,7 @@ class UserControllerTest {
         productDto.setPrice(new BigDecimal("99.99"));
         productDto.setQuantity(10);
         
-        Page<ProductDto> productPage = new PageImpl<>(List.of(productDto));
+        Page<ProductDto> productPage = new PageImpl<>(List.of(productDto), PageRequest.of(0, 20), 1);
         when(productService.getAllProducts(any())).thenReturn(productPage);
         
         mockMvc.perform(get("/api/user/products"))
@@ -68,6 +107,7 @@ class UserControllerTest {
     @WithMockUser(roles = "USER")
     void createOrder_Success() throws Exception {
         OrderRequestDto orderRequest = new OrderRequestDto();
+        orderRequest.setOrderItems(List.of(new OrderItemDto(null, 1L, null, 2, null, null)));
         OrderDto orderDto = new OrderDto();
         orderDto.setId(1L);
         orderDto.setOrderNumber("ORD-12345678");
@@ -92,8 +132,8 @@ class UserControllerTest {
         orderDto.setOrderNumber("ORD-12345678");
         orderDto.setTotalAmount(new BigDecimal("199.98"));
         
-        Page<OrderDto> orderPage = new PageImpl<>(List.of(orderDto));
-        when(orderService.getOrdersByUser(1L, any())).thenReturn(orderPage);
+        Page<OrderDto> orderPage = new PageImpl<>(List.of(orderDto), PageRequest.of(0, 20), 1);
+        when(orderService.getOrdersByUser(eq(1L), any())).thenReturn(orderPage);
         
         mockMvc.perform(get("/api/user/orders?userId=1"))
                 .andExpect(status().isOk())
@@ -101,6 +141,39 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.content[0].orderNumber").value("ORD-12345678"));
     }
     
+    @Test
+    void getUserOrders_WithJwt_IdentifiesUserFromSubject() throws Exception {
+        when(userIdentityCache.findBySubject("kc-1")).thenReturn(Optional.of(identity));
+        when(orderService.getOrdersByUser(eq(1L), any()))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+        
+        mockMvc.perform(get("/api/user/orders")
+                        .with(jwt().jwt(token -> token.subject("kc-1"))
+                                .authorities(new SimpleGrantedAuthority("ROLE_USER"))))
+                .andExpect(status().isOk());
+        
+        verify(userIdentityCache, never()).getById(anyLong());
+    }
+    
+    @Test
+    void getUserOrders_WithJwtAndOtherUserId_ReturnsBadRequest() throws Exception {
+        when(userIdentityCache.findBySubject("kc-1")).thenReturn(Optional.of(identity));
+        
+        mockMvc.perform(get("/api/user/orders?userId=2")
+                        .with(jwt().jwt(token -> token.subject("kc-1"))
+                                .authorities(new SimpleGrantedAuthority("ROLE_USER"))))
+                .andExpect(status().isBadRequest());
+        
+        verify(orderService, never()).getOrdersByUser(anyLong(), any());
+    }
+    
+    @Test
+    @WithMockUser(roles = "USER")
+    void getUserOrders_WithoutUser_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/user/orders"))
+                .andExpect(status().isBadRequest());
+    }
+    
     @Test
     @WithMockUser(roles = "USER")
     void addToFavorites_Success() throws Exception {
@@ -117,6 +190,23 @@ class UserControllerTest {
                 .andExpect(status().isOk());
     }
     
+    @Test
+    @WithMockUser(roles = "USER")
+    void updateFavorites_Success() throws Exception {
+        BulkFavoriteRequest request = new BulkFavoriteRequest(List.of(1L, 2L), List.of(3L));
+        when(favoriteProductService.updateFavorites(1L, List.of(1L, 2L), List.of(3L)))
+                .thenReturn(new BulkFavoriteResult(List.of(1L), List.of(3L), List.of(2L)));
+        
+        mockMvc.perform(post("/api/user/favorites/batch?userId=1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.added[0]").value(1))
+                .andExpect(jsonPath("$.removed[0]").value(3))
+                .andExpect(jsonPath("$.notFound[0]").value(2));
+    }
+    
     @Test
     @WithMockUser(roles = "USER")
     void getFavoriteProducts_Success() throws Exception {
@@ -125,8 +215,8 @@ class UserControllerTest {
         productDto.setName("Favorite Product");
         productDto.setPrice(new BigDecimal("99.99"));
         
-        Page<ProductDto> productPage = new PageImpl<>(List.of(productDto));
-        when(favoriteProductService.getFavoriteProducts(1L, any())).thenReturn(productPage);
+        Page<ProductDto> productPage = new PageImpl<>(List.of(productDto), PageRequest.of(0, 20), 1);
+        when(favoriteProductService.getFavoriteProducts(eq(1L), any())).thenReturn(productPage);
         
         mockMvc.perform(get("/api/user/favorites?userId=1"))
                 .andExpect(status().isOk())
@@ -143,4 +233,15 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").value(true));
     }
+    
+    @Test
+    @WithMockUser(roles = "USER")
+    void areFavorites_Success() throws Exception {
+        when(favoriteProductService.isFavorite(1L, List.of(1L, 2L))).thenReturn(Map.of(1L, true, 2L, false));
+        
+        mockMvc.perform(get("/api/user/favorites/check?userId=1&productIds=1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['1']").value(true))
+                .andExpect(jsonPath("$['2']").value(false));
+    }
 }
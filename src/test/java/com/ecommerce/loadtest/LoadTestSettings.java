@@ -0,0 +1,44 @@
+package com.ecommerce.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Size of the synthetic data set and shape of the workload, read from {@code -Dloadtest.*} system properties.
+ */
+@Getter
+@Builder
+@ToString
+public class LoadTestSettings {
+
+    private final String prefix;
+    private final int tenants;
+    private final int productsPerTenant;
+    private final int usersPerTenant;
+    private final int ordersPerUser;
+    private final int itemsPerOrder;
+    private final int batchSize;
+    private final long seed;
+    private final int threads;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final double maxErrorRate;
+
+    public static LoadTestSettings fromSystemProperties() {
+        return LoadTestSettings.builder()
+                .prefix(System.getProperty("loadtest.prefix", "load"))
+                .tenants(Integer.getInteger("loadtest.tenants", 20))
+                .productsPerTenant(Integer.getInteger("loadtest.products-per-tenant", 500))
+                .usersPerTenant(Integer.getInteger("loadtest.users-per-tenant", 20))
+                .ordersPerUser(Integer.getInteger("loadtest.orders-per-user", 5))
+                .itemsPerOrder(Integer.getInteger("loadtest.items-per-order", 3))
+                .batchSize(Integer.getInteger("loadtest.batch-size", 500))
+                .seed(Long.getLong("loadtest.seed", 42L))
+                .threads(Integer.getInteger("loadtest.threads", 16))
+                .warmupSeconds(Integer.getInteger("loadtest.warmup-seconds", 5))
+                .durationSeconds(Integer.getInteger("loadtest.duration-seconds", 30))
+                .maxErrorRate(Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")))
+                .build();
+    }
+}
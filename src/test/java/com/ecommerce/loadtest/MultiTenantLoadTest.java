@@ -0,0 +1,61 @@
+package com.ecommerce.loadtest;
+
+import com.ecommerce.service.ProductFacetService;
+import com.ecommerce.service.ProductSearchIndex;
+import com.ecommerce.service.TenantRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test against an embedded server with the permit-all test security chain.
+ * Skipped unless run with {@code -Dloadtest=true}; see LoadTestSettings for the sizing properties.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class MultiTenantLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TenantRegistry tenantRegistry;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Test
+    void replayStorefrontWorkload() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        SyntheticDataset dataset = new SyntheticDataGenerator(jdbcTemplate, transactionManager, settings).generate();
+
+        // The in-memory caches were loaded at startup, before the bulk insert
+        tenantRegistry.loadAll();
+        productSearchIndex.rebuild();
+        productFacetService.loadAll();
+
+        WorkloadDriver.Report report = new WorkloadDriver("http://localhost:" + port, dataset, settings).run();
+        report.print(System.out);
+
+        assertTrue(report.requests() > 0);
+        assertTrue(report.errorRate() <= settings.getMaxErrorRate(),
+                "error rate " + report.errorRate() + " exceeds " + settings.getMaxErrorRate());
+    }
+}
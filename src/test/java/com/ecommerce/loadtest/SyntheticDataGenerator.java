@@ -0,0 +1,187 @@
+package com.ecommerce.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk-loads tenants x products x users x orders with JDBC batch inserts, bypassing the JPA layer.
+ * Synthetic rows take explicit ids from a high range so they never collide with ids the pooled
+ * generators hand out to the application. Run it against MySQL with {@code rewriteBatchedStatements=true}.
+ */
+@Slf4j
+public class SyntheticDataGenerator {
+
+    private static final long SYNTHETIC_ID_BASE = 1_000_000_000L;
+
+    private static final List<String> CATEGORIES = List.of(
+            "Shoes", "Apparel", "Accessories", "Equipment", "Outdoor", "Kids", "Running", "Training");
+    private static final List<String> BRANDS = List.of(
+            "Nike", "Adidas", "Puma", "Reebok", "Asics", "New Balance", "Under Armour", "Salomon", "Fila", "Vans");
+    private static final List<String> ADJECTIVES = List.of(
+            "Classic", "Ultra", "Lite", "Pro", "Trail", "Urban", "Retro", "Dynamic", "Essential", "Premium");
+    private static final List<String> NOUNS = List.of(
+            "Runner", "Jacket", "Hoodie", "Backpack", "Sneaker", "Short", "Tee", "Cap", "Boot", "Legging");
+    private static final List<String> STATUSES = List.of("PENDING", "CONFIRMED", "SHIPPED", "DELIVERED");
+
+    private static final String INSERT_TENANT = "INSERT INTO tenants (id, name, domain, description, is_active, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PRODUCT = "INSERT INTO products (id, name, description, price, quantity, " +
+            "category, brand, is_active, tenant_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER = "INSERT INTO users (id, username, email, first_name, last_name, " +
+            "role_id, tenant_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER = "INSERT INTO orders (id, order_number, total_quantity, total_amount, " +
+            "status, user_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER_ITEM = "INSERT INTO order_items (id, order_id, product_id, quantity, " +
+            "unit_price, total_price, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoadTestSettings settings;
+    private final Random random;
+    private final Map<String, Long> nextIds = new HashMap<>();
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  LoadTestSettings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = settings;
+        this.random = new Random(settings.getSeed());
+    }
+
+    public SyntheticDataset generate() {
+        long startedAt = System.currentTimeMillis();
+        Long roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'USER'", Long.class);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<SyntheticDataset.TenantData> tenants = new ArrayList<>();
+        List<Object[]> tenantRows = new ArrayList<>();
+        for (int i = 0; i < settings.getTenants(); i++) {
+            long tenantId = nextId("tenants");
+            String domain = settings.getPrefix() + "-" + i;
+            tenantRows.add(new Object[]{tenantId, "Load Tenant " + domain, domain, "Synthetic tenant " + i, true, now, now});
+            tenants.add(new SyntheticDataset.TenantData(tenantId, domain, new ArrayList<>(), new ArrayList<>(),
+                    new ArrayList<>()));
+        }
+        insert(INSERT_TENANT, tenantRows);
+
+        for (SyntheticDataset.TenantData tenant : tenants) {
+            insertProducts(tenant);
+            insertUsers(tenant, roleId, now);
+            insertOrders(tenant, now);
+        }
+
+        log.info("Generated {} in {} ms", settings, System.currentTimeMillis() - startedAt);
+        return new SyntheticDataset(tenants, CATEGORIES, searchTerms());
+    }
+
+    private void insertProducts(SyntheticDataset.TenantData tenant) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < settings.getProductsPerTenant(); i++) {
+            long productId = nextId("products");
+            String name = pick(ADJECTIVES) + " " + pick(NOUNS) + " " + i;
+            BigDecimal price = BigDecimal.valueOf(5 + random.nextInt(49500) / 100.0).setScale(2, RoundingMode.HALF_UP);
+            boolean active = random.nextInt(20) != 0;
+            Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusDays(random.nextInt(365)));
+            rows.add(new Object[]{productId, name, "Synthetic product " + name, price, 1_000_000, pick(CATEGORIES),
+                    pick(BRANDS), active, tenant.getId(), createdAt, createdAt});
+            if (active) {
+                tenant.getProductIds().add(productId);
+                tenant.getProductPrices().add(price);
+            }
+            if (rows.size() == settings.getBatchSize()) {
+                insert(INSERT_PRODUCT, rows);
+                rows = new ArrayList<>();
+            }
+        }
+        insert(INSERT_PRODUCT, rows);
+    }
+
+    private void insertUsers(SyntheticDataset.TenantData tenant, Long roleId, Timestamp now) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < settings.getUsersPerTenant(); i++) {
+            long userId = nextId("users");
+            String username = tenant.getDomain() + "-user-" + i;
+            rows.add(new Object[]{userId, username, username + "@example.com", "Load", "User " + i, roleId,
+                    tenant.getId(), now, now});
+            tenant.getUserIds().add(userId);
+        }
+        insert(INSERT_USER, rows);
+    }
+
+    private void insertOrders(SyntheticDataset.TenantData tenant, Timestamp now) {
+        if (tenant.getProductIds().isEmpty()) {
+            return;
+        }
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        for (Long userId : tenant.getUserIds()) {
+            for (int k = 0; k < settings.getOrdersPerUser(); k++) {
+                long orderId = nextId("orders");
+                BigDecimal totalAmount = BigDecimal.ZERO;
+                int totalQuantity = 0;
+                for (int i = 0; i < settings.getItemsPerOrder(); i++) {
+                    int index = random.nextInt(tenant.getProductIds().size());
+                    int quantity = 1 + random.nextInt(3);
+                    BigDecimal unitPrice = tenant.getProductPrices().get(index);
+                    BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+                    items.add(new Object[]{nextId("order_items"), orderId, tenant.getProductIds().get(index), quantity,
+                            unitPrice, totalPrice, now, now});
+                    totalAmount = totalAmount.add(totalPrice);
+                    totalQuantity += quantity;
+                }
+                Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusMinutes(random.nextInt(90 * 24 * 60)));
+                orders.add(new Object[]{orderId, settings.getPrefix() + "-ORD-" + orderId, totalQuantity, totalAmount,
+                        pick(STATUSES), userId, createdAt, createdAt});
+            }
+            // Orders go first so the items' foreign keys resolve
+            if (items.size() >= settings.getBatchSize()) {
+                insert(INSERT_ORDER, orders);
+                insert(INSERT_ORDER_ITEM, items);
+                orders = new ArrayList<>();
+                items = new ArrayList<>();
+            }
+        }
+        insert(INSERT_ORDER, orders);
+        insert(INSERT_ORDER_ITEM, items);
+    }
+
+    private long nextId(String table) {
+        Long next = nextIds.get(table);
+        if (next == null) {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            next = Math.max(SYNTHETIC_ID_BASE, max != null ? max + 1 : 0);
+        }
+        nextIds.put(table, next + 1);
+        return next;
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += settings.getBatchSize()) {
+            List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + settings.getBatchSize()));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        }
+    }
+
+    private List<String> searchTerms() {
+        List<String> terms = new ArrayList<>();
+        for (String word : ADJECTIVES) {
+            terms.add(word.toLowerCase());
+        }
+        for (String word : NOUNS) {
+            terms.add(word.toLowerCase());
+        }
+        return terms;
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.loadtest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Ids of the generated rows, used by the workload driver to build valid requests.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SyntheticDataset {
+
+    private final List<TenantData> tenants;
+    private final List<String> categories;
+    private final List<String> searchTerms;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class TenantData {
+
+        private final Long id;
+        private final String domain;
+        private final List<Long> userIds;
+        private final List<Long> productIds;
+        private final List<BigDecimal> productPrices;
+    }
+}
@@ -0,0 +1,212 @@
+package com.ecommerce.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+
+/**
+ * Replays a weighted mix of storefront requests against a running server from a fixed number of
+ * closed-loop workers, then reports throughput and latency percentiles per endpoint.
+ */
+@Slf4j
+public class WorkloadDriver {
+
+    private final String baseUrl;
+    private final SyntheticDataset dataset;
+    private final LoadTestSettings settings;
+    private final HttpClient httpClient;
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    public WorkloadDriver(String baseUrl, SyntheticDataset dataset, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        defineMix();
+    }
+
+    private void defineMix() {
+        add("GET /{tenant}/products", 25, (tenant, random) ->
+                get("/" + tenant.getDomain() + "/products?page=" + random.nextInt(5) + "&size=20"));
+        add("GET /{tenant}/products?after", 10, (tenant, random) ->
+                get("/" + tenant.getDomain() + "/products?after=&size=20"));
+        add("GET /{tenant}/products/search", 15, (tenant, random) ->
+                get("/" + tenant.getDomain() + "/products/search?name=" + pick(dataset.getSearchTerms(), random)));
+        add("GET /{tenant}/products/search/faceted", 5, (tenant, random) ->
+                get("/" + tenant.getDomain() + "/products/search/faceted?category=" +
+                        pick(dataset.getCategories(), random)));
+        add("GET /{tenant}/products/categories", 10, (tenant, random) ->
+                get("/" + tenant.getDomain() + "/products/categories"));
+        add("GET /{tenant}/orders", 8, (tenant, random) ->
+                get("/" + tenant.getDomain() + "/orders?userId=" + pick(tenant.getUserIds(), random) + "&size=10"));
+        add("POST /{tenant}/orders", 8, (tenant, random) ->
+                post("/" + tenant.getDomain() + "/orders?userId=" + pick(tenant.getUserIds(), random),
+                        orderBody(tenant, random)));
+        add("GET /api/user/products/search", 7, (tenant, random) ->
+                get("/api/user/products/search?category=" + pick(dataset.getCategories(), random) +
+                        "&maxPrice=" + (50 + random.nextInt(450)) + "&sortBy=price"));
+        add("GET /api/user/orders", 6, (tenant, random) ->
+                get("/api/user/orders?userId=" + pick(tenant.getUserIds(), random) + "&size=10"));
+        add("GET /api/user/favorites/check", 6, (tenant, random) ->
+                get("/api/user/favorites/check/" + pick(tenant.getProductIds(), random) +
+                        "?userId=" + pick(tenant.getUserIds(), random)));
+    }
+
+    public Report run() throws InterruptedException {
+        if (settings.getWarmupSeconds() > 0) {
+            drive(settings.getWarmupSeconds());
+        }
+        long startedAt = System.nanoTime();
+        Map<String, LatencyRecorder> results = drive(settings.getDurationSeconds());
+        return new Report(results, (System.nanoTime() - startedAt) / 1_000_000_000.0);
+    }
+
+    private Map<String, LatencyRecorder> drive(int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(settings.getThreads());
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < settings.getThreads(); i++) {
+            Random random = new Random(settings.getSeed() + i);
+            futures.add(workers.submit(() -> work(random, deadline)));
+        }
+        workers.shutdown();
+
+        Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            merged.put(operation.name, new LatencyRecorder());
+        }
+        for (Future<Map<String, LatencyRecorder>> future : futures) {
+            try {
+                future.get().forEach((name, recorder) -> merged.get(name).merge(recorder));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load test worker failed", e.getCause());
+            }
+        }
+        return merged;
+    }
+
+    private Map<String, LatencyRecorder> work(Random random, long deadline) {
+        Map<String, LatencyRecorder> recorders = new HashMap<>();
+        while (System.nanoTime() < deadline) {
+            Operation operation = pickOperation(random);
+            SyntheticDataset.TenantData tenant = pick(dataset.getTenants(), random);
+            HttpRequest request = operation.request.apply(tenant, random);
+
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() < 300;
+            } catch (Exception e) {
+                log.debug("{} failed", operation.name, e);
+                success = false;
+            }
+            recorders.computeIfAbsent(operation.name, name -> new LatencyRecorder())
+                    .record(System.nanoTime() - start, success);
+        }
+        return recorders;
+    }
+
+    private void add(String name, int weight, BiFunction<SyntheticDataset.TenantData, Random, HttpRequest> request) {
+        operations.add(new Operation(name, weight, request));
+        totalWeight += weight;
+    }
+
+    private Operation pickOperation(Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            roll -= operation.weight;
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private String orderBody(SyntheticDataset.TenantData tenant, Random random) {
+        int lines = 1 + random.nextInt(3);
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            items.add("{\"productId\":" + pick(tenant.getProductIds(), random) + ",\"quantity\":" + (1 + random.nextInt(2)) + "}");
+        }
+        return "{\"orderItems\":[" + String.join(",", items) + "]}";
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static class Operation {
+
+        private final String name;
+        private final int weight;
+        private final BiFunction<SyntheticDataset.TenantData, Random, HttpRequest> request;
+
+        Operation(String name, int weight, BiFunction<SyntheticDataset.TenantData, Random, HttpRequest> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+    }
+
+    public static class Report {
+
+        private final Map<String, LatencyRecorder> results;
+        private final double seconds;
+
+        Report(Map<String, LatencyRecorder> results, double seconds) {
+            this.results = results;
+            this.seconds = seconds;
+        }
+
+        public int requests() {
+            return results.values().stream().mapToInt(LatencyRecorder::count).sum();
+        }
+
+        public double errorRate() {
+            int requests = requests();
+            int errors = results.values().stream().mapToInt(LatencyRecorder::errors).sum();
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%-40s %9s %7s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+            LatencyRecorder total = new LatencyRecorder();
+            for (Map.Entry<String, LatencyRecorder> entry : results.entrySet()) {
+                print(out, entry.getKey(), entry.getValue());
+                total.merge(entry.getValue());
+            }
+            print(out, "TOTAL", total);
+        }
+
+        private void print(PrintStream out, String name, LatencyRecorder recorder) {
+            out.printf("%-40s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, recorder.count(), recorder.errors(),
+                    recorder.count() / seconds, recorder.percentile(50), recorder.percentile(95),
+                    recorder.percentile(99), recorder.percentile(100));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that inserts go out in JDBC batches; the throughput of IDENTITY against pooled sequence ids is
+ * measured by InsertBatchingBenchmark.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InsertBatchingTest {
+
+    private static final int CATALOG_SIZE = 2000;
+    private static final int ORDER_COUNT = 200;
+    private static final int ITEMS_PER_ORDER = 5;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Tenant tenant;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        tenant = new Tenant();
+        tenant.setName("Batch Tenant");
+        tenant.setDomain("batch");
+        tenant = tenantRepository.save(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        role = roleRepository.save(role);
+
+        user = new User();
+        user.setUsername("batcher");
+        user.setEmail("batcher@example.com");
+        user.setRole(role);
+        user.setTenant(tenant);
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        tenantRepository.deleteAll();
+    }
+
+    @Test
+    void catalogImport_InsertsInJdbcBatches() {
+        List<Product> products = newProducts(CATALOG_SIZE);
+
+        long statements = countStatements(
+                () -> transactionTemplate.executeWithoutResult(status -> productRepository.saveAll(products)));
+
+        assertEquals(CATALOG_SIZE, productRepository.count());
+        assertTrue(statements <= CATALOG_SIZE / 10,
+                "expected batched inserts and pooled ids but prepared " + statements + " statements");
+    }
+
+    @Test
+    void orderCreation_InsertsOrdersAndItemsInJdbcBatches() {
+        List<Product> products = transactionTemplate.execute(status ->
+                productRepository.saveAll(newProducts(ITEMS_PER_ORDER)));
+        int rows = ORDER_COUNT * (ITEMS_PER_ORDER + 1);
+
+        long statements = countStatements(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < ORDER_COUNT; i++) {
+                orders.add(newOrder("ORD-BATCH-" + i, products));
+            }
+            orderRepository.saveAll(orders);
+        }));
+
+        assertEquals(ORDER_COUNT, orderRepository.count());
+        assertTrue(statements <= rows / 10,
+                "expected batched inserts and pooled ids but prepared " + statements + " statements");
+    }
+
+    private long countStatements(Runnable insert) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        insert.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Product> newProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName("Imported " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(100);
+            product.setCategory("Shoes");
+            product.setBrand("Nike");
+            product.setTenant(tenant);
+            products.add(product);
+        }
+        return products;
+    }
+
+    private Order newOrder(String orderNumber, List<Product> products) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setUser(user);
+        order.setTotalQuantity(products.size());
+        order.setTotalAmount(new BigDecimal("10.00").multiply(BigDecimal.valueOf(products.size())));
+        for (Product product : products) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProduct(product);
+            orderItem.setQuantity(1);
+            orderItem.setUnitPrice(product.getPrice());
+            orderItem.setTotalPrice(product.getPrice());
+            order.getOrderItems().add(orderItem);
+        }
+        return order;
+    }
+}
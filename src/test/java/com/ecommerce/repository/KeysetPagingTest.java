@@ -0,0 +1,230 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductDto;
+import com.ecommerce.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks the keyset listings page by page with runs of equal product names crossing the page boundaries, and checks
+ * that every row comes back exactly once, in order, with one query per page and no count query.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class KeysetPagingTest {
+
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Tenant tenant;
+    private Tenant otherTenant;
+    private User user;
+    private User otherUser;
+
+    @BeforeEach
+    void setUp() {
+        tenant = tenantRepository.save(tenant("Keyset Tenant", "keyset"));
+        otherTenant = tenantRepository.save(tenant("Other Tenant", "keyset-other"));
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        roleRepository.save(role);
+        user = userRepository.save(user("pager", role));
+        otherUser = userRepository.save(user("other-pager", role));
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        tenantRepository.deleteAll();
+    }
+
+    @Test
+    void productKeyset_DuplicateNamesAcrossPageBoundaries_ReturnsEveryRowOnce() {
+        // Runs of 3, 6 and 5 equal names against pages of 4, interleaved so ids and names disagree on the order
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            products.add(product("Bravo", tenant, true));
+            if (i < 5) {
+                products.add(product("Alpha", tenant, true));
+            }
+            if (i < 3) {
+                products.add(product("Charlie", tenant, true));
+            }
+        }
+        products.add(product("Alpha", tenant, false));
+        products.add(product("Alpha", otherTenant, true));
+        productRepository.saveAll(products);
+
+        List<Long> expected = products.stream()
+                .filter(product -> product.getIsActive() && product.getTenant() == tenant)
+                .sorted(Comparator.comparing(Product::getName).thenComparing(Product::getId))
+                .map(Product::getId)
+                .collect(Collectors.toList());
+
+        List<Long> seen = walk(
+                limit -> productRepository.findFirstByTenantIdKeyset(tenant.getId(), limit),
+                (last, limit) -> productRepository.findNextByTenantIdKeyset(tenant.getId(), last.getName(), last.getId(),
+                        limit),
+                ProductDto::getId);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void activeProductKeyset_SpansTenantsAndSkipsInactiveRows() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            products.add(product("Delta", i % 2 == 0 ? tenant : otherTenant, true));
+            products.add(product("Echo", tenant, i != 2));
+        }
+        productRepository.saveAll(products);
+
+        List<Long> expected = products.stream()
+                .filter(Product::getIsActive)
+                .sorted(Comparator.comparing(Product::getName).thenComparing(Product::getId))
+                .map(Product::getId)
+                .collect(Collectors.toList());
+
+        List<Long> seen = walk(
+                productRepository::findFirstActiveKeyset,
+                (last, limit) -> productRepository.findNextActiveKeyset(last.getName(), last.getId(), limit),
+                ProductDto::getId);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void orderKeyset_PagesNewestFirstAcrossBoundaries() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(order("ORD-KEYSET-" + i, i == 4 ? otherUser : user));
+        }
+        orderRepository.saveAll(orders);
+
+        List<Long> expected = orders.stream()
+                .filter(order -> order.getUser() == user)
+                .map(Order::getId)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+
+        List<Long> seen = walk(
+                limit -> orderRepository.findFirstByUserIdKeyset(user.getId(), limit),
+                (last, limit) -> orderRepository.findNextByUserIdKeyset(user.getId(), last.getId(), limit),
+                Order::getId);
+
+        assertEquals(expected, seen);
+    }
+
+    private <T> List<Long> walk(Function<Pageable, Slice<T>> first,
+                                BiFunction<T, Pageable, Slice<T>> next,
+                                Function<T, Long> id) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Pageable limit = PageRequest.of(0, PAGE_SIZE);
+
+        List<Long> seen = new ArrayList<>();
+        Set<Long> distinct = new HashSet<>();
+        int pages = 0;
+        Slice<T> page = first.apply(limit);
+        while (true) {
+            pages++;
+            for (T row : page.getContent()) {
+                assertTrue(distinct.add(id.apply(row)), "row " + id.apply(row) + " returned twice");
+                seen.add(id.apply(row));
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            assertEquals(PAGE_SIZE, page.getNumberOfElements());
+            page = next.apply(page.getContent().get(PAGE_SIZE - 1), limit);
+        }
+
+        assertTrue(pages > 1, "expected more than one page");
+        assertEquals(pages, statistics.getQueryExecutionCount());
+        for (String query : statistics.getQueries()) {
+            assertFalse(query.toLowerCase(Locale.ROOT).contains("count("), "unexpected count query " + query);
+        }
+        return seen;
+    }
+
+    private Tenant tenant(String name, String domain) {
+        Tenant tenant = new Tenant();
+        tenant.setName(name);
+        tenant.setDomain(domain);
+        return tenant;
+    }
+
+    private User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setRole(role);
+        user.setTenant(tenant);
+        return user;
+    }
+
+    private Product product(String name, Tenant owner, boolean active) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(5);
+        product.setIsActive(active);
+        product.setTenant(owner);
+        return product;
+    }
+
+    private Order order(String orderNumber, User owner) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setUser(owner);
+        order.setTotalQuantity(1);
+        order.setTotalAmount(new BigDecimal("10.00"));
+        order.setCreatedAt(LocalDateTime.now());
+        return order;
+    }
+}
@@ -0,0 +1,189 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.service.ProductStockService;
+import com.ecommerce.service.RetryingTransactionTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductStockService.class)
+class ProductStockBucketTest {
+
+    private static final int INITIAL_STOCK = 500;
+    private static final int ORDER_ATTEMPTS = 2000;
+    private static final int THREADS = 32;
+    private static final int BUCKETS = 8;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockBucketRepository bucketRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private ProductStockService productStockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate retryingTemplate;
+    private Long tenantId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        retryingTemplate = new RetryingTransactionTemplate(transactionManager, 5);
+
+        Tenant tenant = new Tenant();
+        tenant.setName("Drop Tenant");
+        tenant.setDomain("drop");
+        tenantId = tenantRepository.save(tenant).getId();
+
+        Product product = new Product();
+        product.setName("Hot SKU");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(INITIAL_STOCK);
+        product.setTenant(tenant);
+        productId = productRepository.save(product).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        tenantRepository.deleteAll();
+    }
+
+    @Test
+    void configureBuckets_SplitsStockAndKeepsTotal() {
+        Product product = configure(BUCKETS);
+
+        assertEquals(0, product.getQuantity());
+        assertEquals(BUCKETS, bucketRepository.count());
+        assertEquals(INITIAL_STOCK, bucketRepository.sumQuantityByProductId(productId));
+        assertEquals(INITIAL_STOCK, findDto().getQuantity());
+
+        product = configure(1);
+
+        assertEquals(INITIAL_STOCK, product.getQuantity());
+        assertNull(product.getStockBucketCount());
+        assertEquals(0, bucketRepository.count());
+        assertEquals(INITIAL_STOCK, findDto().getQuantity());
+    }
+
+    @Test
+    void reserve_ParallelOrders_NeverOversell() throws Exception {
+        Product product = configure(BUCKETS);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ORDER_ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                Boolean ok = retryingTemplate.execute(status -> productStockService.reserve(product, 1));
+                if (Boolean.TRUE.equals(ok)) {
+                    reserved.incrementAndGet();
+                } else {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(INITIAL_STOCK, reserved.get());
+        assertEquals(ORDER_ATTEMPTS - INITIAL_STOCK, rejected.get());
+        assertEquals(0, bucketRepository.sumQuantityByProductId(productId));
+    }
+
+    @Test
+    void reserve_NoSingleBucketCovers_TakesFromSeveral() {
+        Product product = configure(BUCKETS);
+        int perBucket = INITIAL_STOCK / BUCKETS;
+
+        Boolean spanning = transactionTemplate.execute(status -> productStockService.reserve(product, perBucket * 3));
+        Boolean tooMuch = transactionTemplate.execute(status -> productStockService.reserve(product, INITIAL_STOCK));
+
+        assertTrue(spanning);
+        assertFalse(tooMuch);
+        assertEquals(INITIAL_STOCK - perBucket * 3, bucketRepository.sumQuantityByProductId(productId));
+    }
+
+    @Test
+    void release_ReturnsStockToTheSum() {
+        Product product = configure(BUCKETS);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productStockService.reserve(product, 5);
+            productStockService.release(product, 2);
+        });
+
+        assertEquals(INITIAL_STOCK - 3, findDto().getQuantity());
+    }
+
+    @Test
+    void search_InStockAndQuantitySort_UseBucketTotal() {
+        configure(BUCKETS);
+        ProductSearchDto criteria = new ProductSearchDto();
+        criteria.setInStock(true);
+
+        Page<ProductDto> inStock = productRepository.search(criteria, tenantId,
+                PageRequest.of(0, 10, Sort.by("quantity")));
+
+        assertEquals(1, inStock.getTotalElements());
+        assertEquals(INITIAL_STOCK, inStock.getContent().get(0).getQuantity());
+    }
+
+    private Product configure(int buckets) {
+        return transactionTemplate.execute(status -> {
+            Product product = productRepository.findByIdForUpdate(productId).orElseThrow();
+            productStockService.configureBuckets(product, buckets);
+            return product;
+        });
+    }
+
+    private ProductDto findDto() {
+        return productRepository.findDtosByIdIn(List.of(productId)).get(0);
+    }
+}
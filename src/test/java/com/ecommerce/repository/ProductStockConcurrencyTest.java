@@ -0,0 +1,168 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Tenant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductStockConcurrencyTest {
+
+    private static final int INITIAL_STOCK = 500;
+    private static final int ORDER_ATTEMPTS = 2000;
+    private static final int THREADS = 32;
+    private static final int LOAD_ATTEMPTS = 20_000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        Tenant tenant = new Tenant();
+        tenant.setName("Stock Tenant");
+        tenant.setDomain("stock");
+        tenant = tenantRepository.save(tenant);
+
+        Product product = new Product();
+        product.setName("Hot SKU");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(INITIAL_STOCK);
+        product.setTenant(tenant);
+        productId = productRepository.save(product).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        tenantRepository.deleteAll();
+    }
+
+    @Test
+    void decrementQuantityIfAvailable_ParallelOrders_NeverOversell() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Run run = reserveInParallel(ORDER_ATTEMPTS, () -> transactionTemplate.execute(status ->
+                productRepository.decrementQuantityIfAvailable(productId, 1) == 1));
+
+        assertEquals(INITIAL_STOCK, run.reserved);
+        assertEquals(ORDER_ATTEMPTS - INITIAL_STOCK, run.rejected);
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getQuantity());
+    }
+
+    /**
+     * The path createOrder used before: read the product, check the quantity in Java and save it back. Without
+     * a row lock that oversells, so the baseline takes the lock it would have needed to stay correct.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest", matches = "true")
+    void decrementQuantityIfAvailable_OutpacesReadCheckSave() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        setQuantity(LOAD_ATTEMPTS);
+        Run readCheckSave = reserveInParallel(LOAD_ATTEMPTS, () -> transactionTemplate.execute(status -> {
+            Product product = productRepository.findByIdForUpdate(productId).orElseThrow();
+            if (product.getQuantity() < 1) {
+                return false;
+            }
+            product.setQuantity(product.getQuantity() - 1);
+            productRepository.save(product);
+            return true;
+        }));
+        assertEquals(LOAD_ATTEMPTS, readCheckSave.reserved);
+
+        setQuantity(LOAD_ATTEMPTS);
+        Run guarded = reserveInParallel(LOAD_ATTEMPTS, () -> transactionTemplate.execute(status ->
+                productRepository.decrementQuantityIfAvailable(productId, 1) == 1));
+        assertEquals(LOAD_ATTEMPTS, guarded.reserved);
+
+        assertTrue(guarded.elapsedMillis < readCheckSave.elapsedMillis,
+                "guarded decrement took " + guarded.elapsedMillis + " ms but read-check-save took "
+                        + readCheckSave.elapsedMillis + " ms");
+    }
+
+    @Test
+    void decrementQuantityIfAvailable_InsufficientStock_UpdatesNothing() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Integer updated = transactionTemplate.execute(status ->
+                productRepository.decrementQuantityIfAvailable(productId, INITIAL_STOCK + 1));
+
+        assertEquals(0, updated);
+        assertEquals(INITIAL_STOCK, productRepository.findById(productId).orElseThrow().getQuantity());
+    }
+
+    private void setQuantity(int quantity) {
+        Product product = productRepository.findById(productId).orElseThrow();
+        product.setQuantity(quantity);
+        productRepository.save(product);
+    }
+
+    private Run reserveInParallel(int attempts, Callable<Boolean> reserve) throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                if (Boolean.TRUE.equals(reserve.call())) {
+                    reserved.incrementAndGet();
+                } else {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        executor.shutdown();
+        return new Run(reserved.get(), rejected.get(), elapsedMillis);
+    }
+
+    private static class Run {
+        private final int reserved;
+        private final int rejected;
+        private final long elapsedMillis;
+
+        private Run(int reserved, int rejected, long elapsedMillis) {
+            this.reserved = reserved;
+            this.rejected = rejected;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.LovedProductDto;
+import com.ecommerce.entity.FavoriteProduct;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "app.favorites.top-k=2")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(FavoriteCountService.class)
+class FavoriteCountServiceTest {
+
+    @Autowired
+    private FavoriteCountService favoriteCountService;
+
+    @Autowired
+    private FavoriteProductRepository favoriteProductRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    private Tenant tenant;
+    private final List<User> users = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setName("Loved Tenant");
+        tenant.setDomain("loved");
+        tenantRepository.save(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        roleRepository.save(role);
+
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setUsername("fan" + i);
+            user.setEmail("fan" + i + "@example.com");
+            user.setRole(role);
+            user.setTenant(tenant);
+            users.add(userRepository.save(user));
+
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(100);
+            product.setTenant(tenant);
+            products.add(productRepository.save(product));
+        }
+        favoriteCountService.refreshRankings();
+    }
+
+    @AfterEach
+    void tearDown() {
+        favoriteCountService.removeTenant(tenant.getId());
+        favoriteProductRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        roleRepository.deleteAllInBatch();
+        tenantRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void flush_WritesCountsAndKeepsTheTopProducts() {
+        favoriteCountService.favoriteAdded(id(0));
+        favoriteCountService.favoriteAdded(id(1));
+        favoriteCountService.favoriteAdded(id(1));
+        favoriteCountService.favoriteAdded(id(2));
+        favoriteCountService.favoriteAdded(id(2));
+        favoriteCountService.favoriteAdded(id(2));
+
+        favoriteCountService.flush();
+
+        assertEquals(3L, productRepository.findById(id(2)).orElseThrow().getFavoriteCount());
+        assertEquals(List.of(loved(2, 3), loved(1, 2)), favoriteCountService.getMostLoved(tenant.getId(), null));
+        assertEquals(List.of(loved(2, 3)), favoriteCountService.getMostLoved(tenant.getId(), 1));
+
+        favoriteCountService.favoriteRemoved(id(2));
+        favoriteCountService.favoriteRemoved(id(2));
+        favoriteCountService.flush();
+        favoriteCountService.flush();
+
+        assertEquals(1L, productRepository.findById(id(2)).orElseThrow().getFavoriteCount());
+        assertEquals(List.of(loved(1, 2), loved(0, 1)), favoriteCountService.getMostLoved(tenant.getId(), null));
+        assertTrue(favoriteCountService.getMostLoved(tenant.getId() + 1, null).isEmpty());
+    }
+
+    @Test
+    void recount_CorrectsDriftFromTheFavoritesTable() {
+        favorite(0, 0);
+        favorite(1, 0);
+        favorite(2, 1);
+        favoriteCountService.favoriteAdded(id(2));
+
+        favoriteCountService.recount();
+
+        assertEquals(0L, productRepository.findById(id(2)).orElseThrow().getFavoriteCount());
+        assertEquals(List.of(loved(0, 2), loved(1, 1)), favoriteCountService.getMostLoved(tenant.getId(), null));
+
+        favoriteCountService.flush();
+        assertEquals(0L, productRepository.findById(id(2)).orElseThrow().getFavoriteCount());
+    }
+
+    @Test
+    void saveProduct_ReadBeforeFlush_KeepsFlushedCount() {
+        Product stale = productRepository.findById(id(0)).orElseThrow();
+        favoriteCountService.favoriteAdded(id(0));
+        favoriteCountService.flush();
+
+        stale.setQuantity(50);
+        productRepository.save(stale);
+
+        Product saved = productRepository.findById(id(0)).orElseThrow();
+        assertEquals(50, saved.getQuantity());
+        assertEquals(1L, saved.getFavoriteCount());
+    }
+
+    private void favorite(int userIndex, int productIndex) {
+        FavoriteProduct favoriteProduct = new FavoriteProduct();
+        favoriteProduct.setUser(users.get(userIndex));
+        favoriteProduct.setProduct(products.get(productIndex));
+        favoriteProductRepository.save(favoriteProduct);
+    }
+
+    private Long id(int index) {
+        return products.get(index).getId();
+    }
+
+    private LovedProductDto loved(int index, long favoriteCount) {
+        return new LovedProductDto(id(index), favoriteCount);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.BulkFavoriteResult;
 import com.ecommerce.dto.ProductDto;
 import com.ecommerce.entity.FavoriteProduct;
 import com.ecommerce.entity.Product;
@@ -10,24 +11,32 @@ import com.ecommerce.exception.ValidationException;
 import com.ecommerce.repository.FavoriteProductRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +51,12 @@ class FavoriteProductServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private FavoriteCountService favoriteCountService;
+    
+    @Mock
+    private UserIdentityCache userIdentityCache;
+    
     @InjectMocks
     private FavoriteProductService favoriteProductService;
     
@@ -49,6 +64,7 @@ class FavoriteProductServiceTest {
     private Product product;
     private Tenant tenant;
     private FavoriteProduct favoriteProduct;
+    private ProductDto productDto;
     
     @BeforeEach
     void setUp() {
@@ -77,65 +93,126 @@ class FavoriteProductServiceTest {
         favoriteProduct.setId(1L);
         favoriteProduct.setUser(user);
         favoriteProduct.setProduct(product);
+        
+        productDto = new ProductDto(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getQuantity(), product.getCategory(), product.getBrand(), product.getIsActive(),
+                tenant.getId(), tenant.getName());
     }
     
     @Test
     void addToFavorites_Success() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(favoriteProductRepository.existsByUserIdAndProductId(1L, 1L)).thenReturn(false);
-        when(favoriteProductRepository.save(any(FavoriteProduct.class))).thenReturn(favoriteProduct);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(productRepository.getReferenceById(1L)).thenReturn(product);
+        when(favoriteProductRepository.saveAndFlush(any(FavoriteProduct.class))).thenReturn(favoriteProduct);
         
         favoriteProductService.addToFavorites(1L, 1L);
         
-        verify(favoriteProductRepository).save(any(FavoriteProduct.class));
+        verify(favoriteProductRepository).saveAndFlush(argThat((FavoriteProduct saved) ->
+                saved.getUser() == user && saved.getProduct() == product));
+        verify(favoriteProductRepository, never()).existsByUserIdAndProductId(anyLong(), anyLong());
+        verify(favoriteCountService).favoriteAdded(1L);
     }
     
     @Test
     void addToFavorites_UserNotFound_ThrowsResourceNotFoundException() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(favoriteProductRepository.saveAndFlush(any(FavoriteProduct.class)))
+                .thenThrow(violation(FavoriteProduct.USER_FOREIGN_KEY));
         
         assertThrows(ResourceNotFoundException.class, () -> favoriteProductService.addToFavorites(1L, 1L));
     }
     
     @Test
     void addToFavorites_ProductNotFound_ThrowsResourceNotFoundException() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+        when(favoriteProductRepository.saveAndFlush(any(FavoriteProduct.class)))
+                .thenThrow(violation(FavoriteProduct.PRODUCT_FOREIGN_KEY.toUpperCase()));
         
         assertThrows(ResourceNotFoundException.class, () -> favoriteProductService.addToFavorites(1L, 1L));
     }
     
     @Test
     void addToFavorites_AlreadyExists_ThrowsValidationException() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(favoriteProductRepository.existsByUserIdAndProductId(1L, 1L)).thenReturn(true);
+        when(favoriteProductRepository.saveAndFlush(any(FavoriteProduct.class)))
+                .thenThrow(violation(FavoriteProduct.USER_PRODUCT_UNIQUE));
         
         assertThrows(ValidationException.class, () -> favoriteProductService.addToFavorites(1L, 1L));
+        verifyNoInteractions(favoriteCountService);
+    }
+    
+    @Test
+    void addToFavorites_UnnamedDuplicate_ClassifiedByErrorCode() {
+        when(favoriteProductRepository.saveAndFlush(any(FavoriteProduct.class)))
+                .thenThrow(violation(null, 1062));
+        
+        assertThrows(ValidationException.class, () -> favoriteProductService.addToFavorites(1L, 1L));
+    }
+    
+    @Test
+    void addToFavorites_UnnamedForeignKey_ChecksWhichParentIsMissing() {
+        when(favoriteProductRepository.saveAndFlush(any(FavoriteProduct.class)))
+                .thenThrow(violation(null, 1452));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        
+        ResourceNotFoundException thrown = assertThrows(ResourceNotFoundException.class,
+                () -> favoriteProductService.addToFavorites(1L, 2L));
+        assertEquals("Product not found: 2", thrown.getMessage());
+    }
+    
+    @Test
+    void addToFavorites_OtherViolation_IsNotReportedAsDuplicate() {
+        DataIntegrityViolationException violation = violation("ck_something_else", 1048);
+        when(favoriteProductRepository.saveAndFlush(any(FavoriteProduct.class))).thenThrow(violation);
+        
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> favoriteProductService.addToFavorites(1L, 1L)));
     }
     
     @Test
     void removeFromFavorites_Success() {
-        when(favoriteProductRepository.existsByUserIdAndProductId(1L, 1L)).thenReturn(true);
+        when(favoriteProductRepository.deleteByUserIdAndProductId(1L, 1L)).thenReturn(1);
         
         favoriteProductService.removeFromFavorites(1L, 1L);
         
         verify(favoriteProductRepository).deleteByUserIdAndProductId(1L, 1L);
+        verify(favoriteCountService).favoriteRemoved(1L);
     }
     
     @Test
     void removeFromFavorites_NotExists_ThrowsValidationException() {
-        when(favoriteProductRepository.existsByUserIdAndProductId(1L, 1L)).thenReturn(false);
+        when(favoriteProductRepository.deleteByUserIdAndProductId(1L, 1L)).thenReturn(0);
         
         assertThrows(ValidationException.class, () -> favoriteProductService.removeFromFavorites(1L, 1L));
     }
     
+    @Test
+    void updateFavorites_SkipsUnchangedAndMissingProducts() {
+        when(favoriteProductRepository.findProductIdsByUserIdAndProductIdIn(eq(1L), anyCollection()))
+                .thenReturn(List.of(2L, 3L));
+        when(productRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+        
+        BulkFavoriteResult result = favoriteProductService.updateFavorites(1L, List.of(1L, 2L, 9L), List.of(3L, 4L));
+        
+        assertEquals(List.of(1L), result.getAdded());
+        assertEquals(List.of(3L), result.getRemoved());
+        assertEquals(List.of(9L), result.getNotFound());
+        verify(userIdentityCache).getById(1L);
+        verify(favoriteProductRepository).deleteByUserIdAndProductIdIn(1L, List.of(3L));
+        verify(favoriteProductRepository).saveAllAndFlush(anyList());
+        verify(favoriteCountService).favoriteAdded(1L);
+        verify(favoriteCountService).favoriteRemoved(3L);
+    }
+    
+    @Test
+    void updateFavorites_AddedAndRemoved_ThrowsValidationException() {
+        assertThrows(ValidationException.class,
+                () -> favoriteProductService.updateFavorites(1L, List.of(1L), List.of(1L)));
+        verifyNoInteractions(favoriteProductRepository);
+    }
+    
     @Test
     void getFavoriteProducts_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<FavoriteProduct> favoritePage = new PageImpl<>(List.of(favoriteProduct));
-        when(favoriteProductRepository.findByUserId(1L, pageable)).thenReturn(favoritePage);
+        Page<ProductDto> favoritePage = new PageImpl<>(List.of(productDto));
+        when(favoriteProductRepository.findProductsByUserId(1L, pageable)).thenReturn(favoritePage);
         
         Page<ProductDto> result = favoriteProductService.getFavoriteProducts(1L, pageable);
         
@@ -147,8 +224,8 @@ class FavoriteProductServiceTest {
     @Test
     void getFavoriteProductsByTenant_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<FavoriteProduct> favoritePage = new PageImpl<>(List.of(favoriteProduct));
-        when(favoriteProductRepository.findByUserIdAndTenantId(1L, 1L, pageable)).thenReturn(favoritePage);
+        Page<ProductDto> favoritePage = new PageImpl<>(List.of(productDto));
+        when(favoriteProductRepository.findProductsByUserIdAndTenantId(1L, 1L, pageable)).thenReturn(favoritePage);
         
         Page<ProductDto> result = favoriteProductService.getFavoriteProductsByTenant(1L, 1L, pageable);
         
@@ -159,7 +236,7 @@ class FavoriteProductServiceTest {
     
     @Test
     void isFavorite_True() {
-        when(favoriteProductRepository.existsByUserIdAndProductId(1L, 1L)).thenReturn(true);
+        when(favoriteProductRepository.findProductIdsByUserId(1L)).thenReturn(List.of(3L, 1L));
         
         boolean result = favoriteProductService.isFavorite(1L, 1L);
         
@@ -168,17 +245,66 @@ class FavoriteProductServiceTest {
     
     @Test
     void isFavorite_False() {
-        when(favoriteProductRepository.existsByUserIdAndProductId(1L, 1L)).thenReturn(false);
+        when(favoriteProductRepository.findProductIdsByUserId(1L)).thenReturn(List.of(3L));
         
         boolean result = favoriteProductService.isFavorite(1L, 1L);
         
         assertFalse(result);
     }
     
+    @Test
+    void isFavorite_Bulk_LoadsFavoritesOnce() {
+        when(favoriteProductRepository.findProductIdsByUserId(1L)).thenReturn(List.of(7L, 2L, 5L));
+        
+        Map<Long, Boolean> result = favoriteProductService.isFavorite(1L, List.of(5L, 6L, 7L));
+        boolean single = favoriteProductService.isFavorite(1L, 2L);
+        
+        assertEquals(Map.of(5L, true, 6L, false, 7L, true), result);
+        assertTrue(single);
+        verify(favoriteProductRepository, times(1)).findProductIdsByUserId(1L);
+    }
+    
+    @Test
+    void isFavorite_BulkOverLimit_ThrowsValidationException() {
+        List<Long> productIds = new ArrayList<>();
+        for (long id = 0; id <= FavoriteProductService.MAX_BULK_CHECK; id++) {
+            productIds.add(id);
+        }
+        
+        assertThrows(ValidationException.class, () -> favoriteProductService.isFavorite(1L, productIds));
+        verifyNoInteractions(favoriteProductRepository);
+    }
+    
+    @Test
+    void addAndRemove_UpdateCachedFavorites() {
+        when(favoriteProductRepository.findProductIdsByUserId(1L)).thenReturn(List.of(3L));
+        assertFalse(favoriteProductService.isFavorite(1L, 1L));
+        when(favoriteProductRepository.deleteByUserIdAndProductId(1L, 1L)).thenReturn(1);
+        
+        favoriteProductService.addToFavorites(1L, 1L);
+        assertTrue(favoriteProductService.isFavorite(1L, 1L));
+        
+        favoriteProductService.removeFromFavorites(1L, 1L);
+        assertFalse(favoriteProductService.isFavorite(1L, 1L));
+        assertTrue(favoriteProductService.isFavorite(1L, 3L));
+        verify(favoriteProductRepository, times(1)).findProductIdsByUserId(1L);
+    }
+    
+    @Test
+    void markFavorites_SetsFlagOnEveryProduct() {
+        ProductDto other = new ProductDto(2L, "Other", null, BigDecimal.ONE, 1, null, null, true, 1L, "Test Tenant");
+        when(favoriteProductRepository.findProductIdsByUserId(1L)).thenReturn(List.of(2L));
+        
+        favoriteProductService.markFavorites(1L, List.of(productDto, other));
+        
+        assertEquals(false, productDto.getFavorited());
+        assertEquals(true, other.getFavorited());
+    }
+    
     @Test
     void getAllFavoriteProducts_Success() {
-        Page<FavoriteProduct> favoritePage = new PageImpl<>(List.of(favoriteProduct));
-        when(favoriteProductRepository.findByUserId(1L, Pageable.unpaged())).thenReturn(favoritePage);
+        Page<ProductDto> favoritePage = new PageImpl<>(List.of(productDto));
+        when(favoriteProductRepository.findProductsByUserId(1L, Pageable.unpaged())).thenReturn(favoritePage);
         
         List<ProductDto> result = favoriteProductService.getAllFavoriteProducts(1L);
         
@@ -186,4 +312,14 @@ class FavoriteProductServiceTest {
         assertEquals(1, result.size());
         assertEquals(product.getName(), result.get(0).getName());
     }
+    
+    private DataIntegrityViolationException violation(String constraintName) {
+        return violation(constraintName, 0);
+    }
+    
+    private DataIntegrityViolationException violation(String constraintName, int errorCode) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement",
+                        new SQLException("constraint violated", "23000", errorCode), constraintName));
+    }
 }
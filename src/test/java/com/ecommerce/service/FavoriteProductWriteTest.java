@@ -0,0 +1,138 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.BulkFavoriteResult;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.entity.User;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FavoriteProductService.class, FavoriteCountService.class, UserIdentityCache.class})
+class FavoriteProductWriteTest {
+
+    @Autowired
+    private FavoriteProductService favoriteProductService;
+
+    @Autowired
+    private FavoriteProductRepository favoriteProductRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    private User user;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Tenant tenant = new Tenant();
+        tenant.setName("Favorites Tenant");
+        tenant.setDomain("favorites");
+        tenantRepository.save(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        roleRepository.save(role);
+
+        user = new User();
+        user.setUsername("collector");
+        user.setEmail("collector@example.com");
+        user.setRole(role);
+        user.setTenant(tenant);
+        userRepository.save(user);
+
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(100);
+            product.setTenant(tenant);
+            products.add(productRepository.save(product));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        favoriteProductRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        roleRepository.deleteAllInBatch();
+        tenantRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void addToFavorites_MapsConstraintViolations() {
+        favoriteProductService.addToFavorites(user.getId(), id(0));
+
+        assertThrows(ValidationException.class, () -> favoriteProductService.addToFavorites(user.getId(), id(0)));
+        assertThrows(ResourceNotFoundException.class,
+                () -> favoriteProductService.addToFavorites(user.getId(), id(2) + 1000));
+        assertThrows(ResourceNotFoundException.class,
+                () -> favoriteProductService.addToFavorites(user.getId() + 1000, id(0)));
+        assertEquals(1, favoriteProductRepository.count());
+        assertTrue(favoriteProductService.isFavorite(user.getId(), id(0)));
+    }
+
+    @Test
+    void removeFromFavorites_DeletesOnlyTheGivenProduct() {
+        favoriteProductService.addToFavorites(user.getId(), id(0));
+        favoriteProductService.addToFavorites(user.getId(), id(1));
+
+        favoriteProductService.removeFromFavorites(user.getId(), id(0));
+
+        assertThrows(ValidationException.class,
+                () -> favoriteProductService.removeFromFavorites(user.getId(), id(0)));
+        assertEquals(List.of(id(1)), favoriteProductRepository.findProductIdsByUserId(user.getId()));
+    }
+
+    @Test
+    void updateFavorites_AppliesAddsAndRemovesTogether() {
+        favoriteProductService.addToFavorites(user.getId(), id(0));
+        favoriteProductService.addToFavorites(user.getId(), id(1));
+
+        BulkFavoriteResult result = favoriteProductService.updateFavorites(user.getId(),
+                List.of(id(1), id(2), id(2) + 1000), List.of(id(0)));
+
+        assertEquals(List.of(id(2)), result.getAdded());
+        assertEquals(List.of(id(0)), result.getRemoved());
+        assertEquals(List.of(id(2) + 1000), result.getNotFound());
+        assertEquals(List.of(id(1), id(2)), favoriteProductRepository.findProductIdsByUserId(user.getId()).stream()
+                .sorted().toList());
+        assertFalse(favoriteProductService.isFavorite(user.getId(), id(0)));
+        assertTrue(favoriteProductService.isFavorite(user.getId(), id(2)));
+    }
+
+    private Long id(int index) {
+        return products.get(index).getId();
+    }
+}
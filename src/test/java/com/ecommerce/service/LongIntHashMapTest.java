@@ -0,0 +1,50 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void addTo_CountsUpAndRemovesAtZero() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertEquals(1, map.addTo(42L, 1));
+        assertEquals(3, map.addTo(42L, 2));
+        assertEquals(0, map.addTo(7L, -1));
+        assertEquals(0, map.addTo(42L, -3));
+
+        assertEquals(0, map.get(42L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void addTo_MatchesHashMapThroughResizesAndRemovals() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(17);
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000) * 1024L;
+            int delta = random.nextInt(5) - 2;
+            int count = map.addTo(key, delta);
+            int expectedCount = Math.max(0, expected.getOrDefault(key, 0) + delta);
+            if (expectedCount == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, expectedCount);
+            }
+            assertEquals(expectedCount, count);
+        }
+
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
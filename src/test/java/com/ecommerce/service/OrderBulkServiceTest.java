@@ -0,0 +1,81 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.BulkOrderCancelResult;
+import com.ecommerce.dto.BulkOrderStatusResult;
+import com.ecommerce.dto.OrderStatusOutcome;
+import com.ecommerce.entity.Order;
+import com.ecommerce.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBulkServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @InjectMocks
+    private OrderBulkService orderBulkService;
+
+    @Test
+    void cancelOrders_SplitsSortedIdsIntoChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().collect(Collectors.toList());
+        List<Long> reversed = new ArrayList<>(ids);
+        Collections.reverse(reversed);
+        when(orderService.cancelOrders(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkOrderCancelResult result = orderBulkService.cancelOrders(reversed);
+
+        verify(orderService).cancelOrders(ids.subList(0, 500));
+        verify(orderService).cancelOrders(ids.subList(500, 1000));
+        verify(orderService).cancelOrders(ids.subList(1000, 1200));
+        assertEquals(1200, result.getCancelled());
+        assertTrue(result.getSkipped().isEmpty());
+    }
+
+    @Test
+    void cancelOrders_ReportsIdsThatWereNotCancelled() {
+        when(orderService.cancelOrders(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        BulkOrderCancelResult result = orderBulkService.cancelOrders(Arrays.asList(3L, 1L, null, 2L, 1L));
+
+        assertEquals(3, result.getRequested());
+        assertEquals(2, result.getCancelled());
+        assertEquals(List.of(2L), result.getSkipped());
+    }
+
+    @Test
+    void transitionOrders_CountsTransitionedOutcomes() {
+        when(orderService.transitionOrders(List.of(1L, 2L), Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED))
+                .thenReturn(List.of(
+                        new OrderStatusOutcome(1L, OrderStatusOutcome.Result.TRANSITIONED, Order.OrderStatus.SHIPPED),
+                        new OrderStatusOutcome(2L, OrderStatusOutcome.Result.NOT_FOUND, null)));
+
+        BulkOrderStatusResult result = orderBulkService.transitionOrders(List.of(2L, 1L),
+                Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED);
+
+        assertEquals(2, result.getRequested());
+        assertEquals(1, result.getTransitioned());
+        assertEquals(2, result.getOutcomes().size());
+    }
+
+    @Test
+    void cancelOrders_NoIds_ThrowsValidationException() {
+        assertThrows(ValidationException.class, () -> orderBulkService.cancelOrders(List.of()));
+        verifyNoInteractions(orderService);
+    }
+}
@@ -0,0 +1,207 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.BulkOrderCancelResult;
+import com.ecommerce.entity.*;
+import com.ecommerce.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cancels the same number of orders one per transaction, the way cancelOrder used to restore stock, and through
+ * the bulk path, and checks that the bulk path is the faster one. The comparison takes minutes, so it only runs with
+ * {@code -Dloadtest=true}.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderService.class, OrderBulkService.class, OrderNumberGenerator.class, ProductStockService.class,
+        OutboxService.class, UserIdentityCache.class, JacksonAutoConfiguration.class})
+class OrderCancellationThroughputTest {
+
+    private static final int ORDER_COUNT = 10_000;
+    private static final int PRODUCT_COUNT = 50;
+    private static final int INSERT_CHUNK = 1_000;
+
+    @Autowired
+    private OrderBulkService orderBulkService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private List<Product> products;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Tenant tenant = new Tenant();
+        tenant.setName("Sweep Tenant");
+        tenant.setDomain("sweep");
+        tenantRepository.save(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        roleRepository.save(role);
+
+        user = new User();
+        user.setUsername("sweeper");
+        user.setEmail("sweeper@example.com");
+        user.setRole(role);
+        user.setTenant(tenant);
+        userRepository.save(user);
+
+        products = new ArrayList<>();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(0);
+            product.setTenant(tenant);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAllInBatch();
+        orderItemRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        roleRepository.deleteAllInBatch();
+        tenantRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest", matches = "true")
+    void cancelOrders_BulkComparedWithOneByOne() {
+        List<Long> oneByOneIds = createOrders("SEQ", ORDER_COUNT);
+        List<Long> bulkIds = createOrders("BULK", ORDER_COUNT);
+
+        long startedAt = System.nanoTime();
+        for (Long id : oneByOneIds) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Order order = orderRepository.findById(id).orElseThrow();
+                for (OrderItem orderItem : orderItemRepository.findByOrderId(id)) {
+                    Product product = orderItem.getProduct();
+                    product.setQuantity(product.getQuantity() + orderItem.getQuantity());
+                    productRepository.save(product);
+                }
+                order.setStatus(Order.OrderStatus.CANCELLED);
+                orderRepository.save(order);
+            });
+        }
+        long oneByOneMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        assertEquals(ORDER_COUNT * 3L, totalStock());
+
+        startedAt = System.nanoTime();
+        BulkOrderCancelResult result = orderBulkService.cancelOrders(bulkIds);
+        long bulkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        assertEquals(ORDER_COUNT, result.getCancelled());
+        assertTrue(result.getSkipped().isEmpty());
+        assertEquals(ORDER_COUNT * 6L, totalStock());
+        assertEquals(ORDER_COUNT * 2L, orderRepository.findByStatus(Order.OrderStatus.CANCELLED,
+                PageRequest.of(0, 1)).getTotalElements());
+        assertEquals(ORDER_COUNT, outboxEventRepository.count());
+        assertTrue(bulkMillis < oneByOneMillis,
+                "bulk took " + bulkMillis + " ms but one by one took " + oneByOneMillis + " ms");
+    }
+
+    @Test
+    void cancelOrders_AlreadyCancelledAndUnknownIds_AreSkipped() {
+        List<Long> ids = createOrders("SKIP", 3);
+        orderBulkService.cancelOrders(List.of(ids.get(0)));
+
+        BulkOrderCancelResult result = orderBulkService.cancelOrders(List.of(ids.get(0), ids.get(1), ids.get(2), -1L));
+
+        assertEquals(4, result.getRequested());
+        assertEquals(2, result.getCancelled());
+        assertEquals(List.of(-1L, ids.get(0)), result.getSkipped());
+        assertEquals(9, totalStock());
+    }
+
+    // Two lines per order: one unit of one product and two of another
+    private List<Long> createOrders(String prefix, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int from = 0; from < count; from += INSERT_CHUNK) {
+            int chunkStart = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Order> orders = new ArrayList<>();
+                for (int i = chunkStart; i < Math.min(chunkStart + INSERT_CHUNK, count); i++) {
+                    Order order = new Order();
+                    order.setOrderNumber("ORD-" + prefix + "-" + i);
+                    order.setUser(user);
+                    order.setTotalQuantity(3);
+                    order.setTotalAmount(new BigDecimal("30.00"));
+                    order.setCreatedAt(LocalDateTime.now());
+                    addItem(order, products.get(i % PRODUCT_COUNT), 1);
+                    addItem(order, products.get((i + 7) % PRODUCT_COUNT), 2);
+                    orders.add(order);
+                }
+                orderRepository.saveAll(orders).forEach(order -> ids.add(order.getId()));
+            });
+        }
+        return ids;
+    }
+
+    private void addItem(Order order, Product product, int quantity) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrder(order);
+        orderItem.setProduct(product);
+        orderItem.setQuantity(quantity);
+        orderItem.setUnitPrice(product.getPrice());
+        orderItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+        order.getOrderItems().add(orderItem);
+    }
+
+    private long totalStock() {
+        return productRepository.findAll().stream().mapToLong(Product::getQuantity).sum();
+    }
+}
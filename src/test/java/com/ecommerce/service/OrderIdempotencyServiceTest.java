@@ -0,0 +1,220 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.OrderRequestDto;
+import com.ecommerce.entity.OrderIdempotencyKey;
+import com.ecommerce.exception.InsufficientQuantityException;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.OrderIdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final String KEY = "checkout-42";
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderIdempotencyService orderIdempotencyService;
+
+    private OrderRequestDto orderRequest;
+    private OrderDto order;
+
+    @BeforeEach
+    void setUp() {
+        orderRequest = request(1L, 2);
+
+        order = new OrderDto();
+        order.setId(10L);
+        order.setOrderNumber("ORD-0000000000001");
+    }
+
+    @Test
+    void createOrder_RepeatedKey_ReturnsOriginalOrder() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(orderService.createOrder(orderRequest, USER_ID)).thenReturn(order);
+
+        OrderDto first = orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest);
+        OrderDto retry = orderIdempotencyService.createOrder(KEY, USER_ID, request(1L, 2));
+
+        assertSame(first, retry);
+        verify(orderService, times(1)).createOrder(any(OrderRequestDto.class), any());
+        verify(idempotencyKeyRepository).save(any(OrderIdempotencyKey.class));
+    }
+
+    @Test
+    void createOrder_SameKeyDifferentRequest_ThrowsValidationException() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(orderService.createOrder(orderRequest, USER_ID)).thenReturn(order);
+
+        orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest);
+
+        assertThrows(ValidationException.class,
+                () -> orderIdempotencyService.createOrder(KEY, USER_ID, request(1L, 3)));
+        verify(orderService, times(1)).createOrder(any(OrderRequestDto.class), any());
+    }
+
+    @Test
+    void createOrder_SameKeyForDifferentUsers_CreatesBothOrders() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(any(), any())).thenReturn(Optional.empty());
+        when(orderService.createOrder(any(OrderRequestDto.class), any())).thenReturn(order);
+
+        orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest);
+        orderIdempotencyService.createOrder(KEY, 2L, orderRequest);
+
+        verify(orderService).createOrder(orderRequest, USER_ID);
+        verify(orderService).createOrder(orderRequest, 2L);
+    }
+
+    @Test
+    void createOrder_ConcurrentDuplicates_CreateOneOrder() throws Exception {
+        int callers = 8;
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(orderService.createOrder(any(OrderRequestDto.class), any())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return order;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<OrderDto>> results = new ArrayList<>();
+        results.add(executor.submit(() -> orderIdempotencyService.createOrder(KEY, USER_ID, request(1L, 2))));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < callers; i++) {
+            results.add(executor.submit(() -> orderIdempotencyService.createOrder(KEY, USER_ID, request(1L, 2))));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<OrderDto> result : results) {
+            assertEquals(10L, result.get(10, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+        verify(orderService, times(1)).createOrder(any(OrderRequestDto.class), any());
+    }
+
+    @Test
+    void createOrder_KeyStoredByEarlierRun_ReplaysStoredOrder() {
+        OrderIdempotencyKey stored = new OrderIdempotencyKey(USER_ID, KEY,
+                OrderIdempotencyService.hash(orderRequest), 10L, LocalDateTime.now().plusHours(1));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(stored));
+        when(orderService.getOrderById(10L, USER_ID)).thenReturn(order);
+
+        OrderDto result = orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest);
+
+        assertEquals(10L, result.getId());
+        verify(orderService, never()).createOrder(any(OrderRequestDto.class), any());
+    }
+
+    @Test
+    void createOrder_ExpiredStoredKey_CreatesNewOrder() {
+        OrderIdempotencyKey stored = new OrderIdempotencyKey(USER_ID, KEY,
+                OrderIdempotencyService.hash(orderRequest), 5L, LocalDateTime.now().minusMinutes(1));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(stored));
+        when(orderService.createOrder(orderRequest, USER_ID)).thenReturn(order);
+
+        OrderDto result = orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest);
+
+        assertEquals(10L, result.getId());
+        verify(idempotencyKeyRepository).delete(stored);
+        verify(orderService, never()).getOrderById(any(), any());
+    }
+
+    @Test
+    void createOrder_CacheFull_EvictsLeastRecentlyUsedKey() {
+        ReflectionTestUtils.setField(orderIdempotencyService, "maxEntries", 2);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(eq(USER_ID), any())).thenReturn(Optional.empty());
+        when(orderService.createOrder(orderRequest, USER_ID)).thenReturn(order);
+
+        orderIdempotencyService.createOrder("a", USER_ID, orderRequest);
+        orderIdempotencyService.createOrder("b", USER_ID, orderRequest);
+        orderIdempotencyService.createOrder("a", USER_ID, orderRequest);
+        orderIdempotencyService.createOrder("c", USER_ID, orderRequest);
+        orderIdempotencyService.createOrder("a", USER_ID, orderRequest);
+        orderIdempotencyService.createOrder("b", USER_ID, orderRequest);
+
+        verify(idempotencyKeyRepository, times(1)).findByUserIdAndIdempotencyKey(USER_ID, "a");
+        verify(idempotencyKeyRepository, times(2)).findByUserIdAndIdempotencyKey(USER_ID, "b");
+        verify(idempotencyKeyRepository, times(1)).findByUserIdAndIdempotencyKey(USER_ID, "c");
+    }
+
+    @Test
+    void createOrder_KeyInsertedByAnotherInstance_ReturnsWinningOrder() {
+        OrderIdempotencyKey winner = new OrderIdempotencyKey(USER_ID, KEY,
+                OrderIdempotencyService.hash(orderRequest), 11L, LocalDateTime.now().plusHours(1));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(winner));
+        when(orderService.createOrder(orderRequest, USER_ID)).thenReturn(order);
+        when(idempotencyKeyRepository.save(any(OrderIdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate idempotency key"));
+        OrderDto winningOrder = new OrderDto();
+        winningOrder.setId(11L);
+        when(orderService.getOrderById(11L, USER_ID)).thenReturn(winningOrder);
+
+        OrderDto result = orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest);
+
+        assertEquals(11L, result.getId());
+    }
+
+    @Test
+    void createOrder_FailedAttempt_IsNotRemembered() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(orderService.createOrder(orderRequest, USER_ID))
+                .thenThrow(new InsufficientQuantityException("Insufficient quantity"))
+                .thenReturn(order);
+
+        assertThrows(InsufficientQuantityException.class,
+                () -> orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest));
+        OrderDto retry = orderIdempotencyService.createOrder(KEY, USER_ID, orderRequest);
+
+        assertEquals(10L, retry.getId());
+        verify(orderService, times(2)).createOrder(orderRequest, USER_ID);
+    }
+
+    @Test
+    void createOrder_BlankKey_ThrowsValidationException() {
+        assertThrows(ValidationException.class, () -> orderIdempotencyService.createOrder(" ", USER_ID, orderRequest));
+        verifyNoInteractions(orderService);
+    }
+
+    private OrderRequestDto request(Long productId, int quantity) {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderRequestDto request = new OrderRequestDto();
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderDto;
+import com.ecommerce.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderNumberGenerator.class, ProductStockService.class, OutboxService.class,
+        UserIdentityCache.class, JacksonAutoConfiguration.class})
+class OrderListingQueryCountTest {
+
+    private static final int ORDER_COUNT = 30;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setName("Listing Tenant");
+        tenant.setDomain("listing");
+        entityManager.persist(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        entityManager.persist(role);
+
+        user = new User();
+        user.setUsername("lister");
+        user.setEmail("lister@example.com");
+        user.setRole(role);
+        user.setTenant(tenant);
+        entityManager.persist(user);
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = new Order();
+            order.setOrderNumber("ORD-LIST-" + i);
+            order.setUser(user);
+            order.setTotalQuantity(ITEMS_PER_ORDER);
+            order.setTotalAmount(new BigDecimal("30.00"));
+            order.setCreatedAt(LocalDateTime.now());
+
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product product = new Product();
+                product.setName("Product " + i + "-" + j);
+                product.setPrice(new BigDecimal("10.00"));
+                product.setQuantity(100);
+                product.setTenant(tenant);
+                entityManager.persist(product);
+
+                OrderItem orderItem = new OrderItem();
+                orderItem.setOrder(order);
+                orderItem.setProduct(product);
+                orderItem.setQuantity(1);
+                orderItem.setUnitPrice(product.getPrice());
+                orderItem.setTotalPrice(product.getPrice());
+                order.getOrderItems().add(orderItem);
+            }
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getOrdersByUser_StatementCountIndependentOfPageSize() {
+        long smallPage = countStatements(() -> {
+            Page<OrderDto> page = orderService.getOrdersByUser(user.getId(), PageRequest.of(0, 5));
+            assertPageMapped(page, 5);
+        });
+        long largePage = countStatements(() -> {
+            Page<OrderDto> page = orderService.getOrdersByUser(user.getId(), PageRequest.of(0, 20));
+            assertPageMapped(page, 20);
+        });
+
+        assertEquals(smallPage, largePage);
+        assertTrue(largePage <= 3, "expected page, count and items queries only but was " + largePage);
+    }
+
+    @Test
+    void getOrdersByTenant_StatementCountIndependentOfPageSize() {
+        long smallPage = countStatements(() -> {
+            Page<OrderDto> page = orderService.getOrdersByTenant(tenant.getId(), PageRequest.of(0, 5));
+            assertPageMapped(page, 5);
+        });
+        long largePage = countStatements(() -> {
+            Page<OrderDto> page = orderService.getOrdersByTenant(tenant.getId(), PageRequest.of(0, 20));
+            assertPageMapped(page, 20);
+        });
+
+        assertEquals(smallPage, largePage);
+        assertTrue(largePage <= 3, "expected page, count and items queries only but was " + largePage);
+    }
+
+    private void assertPageMapped(Page<OrderDto> page, int expectedSize) {
+        assertEquals(expectedSize, page.getContent().size());
+        for (OrderDto dto : page.getContent()) {
+            assertEquals("lister", dto.getUsername());
+            assertEquals(ITEMS_PER_ORDER, dto.getOrderItems().size());
+            assertNotNull(dto.getOrderItems().get(0).getProductName());
+        }
+    }
+
+    private long countStatements(Runnable listing) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
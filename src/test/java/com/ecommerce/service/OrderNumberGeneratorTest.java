@@ -0,0 +1,115 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uniqueness and ordering of the generated numbers; their throughput is measured by OrderNumberGeneratorBenchmark.
+ */
+class OrderNumberGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int NUMBERS_PER_THREAD = 50_000;
+
+    @Test
+    void next_ParallelCallers_NeverCollide() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                String previous = null;
+                for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                    String number = generator.next();
+                    assertTrue(numbers.add(number), "duplicate " + number);
+                    if (previous != null) {
+                        assertTrue(number.compareTo(previous) > 0, previous + " then " + number);
+                    }
+                    previous = number;
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * NUMBERS_PER_THREAD, numbers.size());
+    }
+
+    @Test
+    void next_FixedWidthAndTimeOrdered() {
+        AtomicLong clock = new AtomicLong(OrderNumberGenerator.EPOCH_MILLIS + 1000);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, clock::get);
+
+        String first = generator.next();
+        clock.addAndGet(1);
+        String second = generator.next();
+
+        assertTrue(first.matches("ORD-[0-9A-Z]{13}"), first);
+        assertEquals(first.length(), second.length());
+        assertTrue(second.compareTo(first) > 0);
+    }
+
+    @Test
+    void nextId_ClockMovesBackwards_KeepsIncreasing() {
+        AtomicLong clock = new AtomicLong(OrderNumberGenerator.EPOCH_MILLIS + 5000);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-2000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void nextId_SequenceExhausted_BorrowsNextMillisecond() {
+        AtomicLong clock = new AtomicLong(OrderNumberGenerator.EPOCH_MILLIS + 5000);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, clock::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < (1 << OrderNumberGenerator.SEQUENCE_BITS) + 10; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void nextId_SameInstantOnDifferentNodes_DoNotCollide() {
+        AtomicLong clock = new AtomicLong(OrderNumberGenerator.EPOCH_MILLIS + 5000);
+        OrderNumberGenerator node1 = new OrderNumberGenerator(1, clock::get);
+        OrderNumberGenerator node2 = new OrderNumberGenerator(2, clock::get);
+
+        assertNotEquals(node1.nextId(), node2.nextId());
+    }
+
+    @Test
+    void constructor_NodeIdOutOfRange_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new OrderNumberGenerator(OrderNumberGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void constructor_NodeIdUnset_DefaultsToZeroOnlyForASingleInstance() {
+        assertEquals(0, new OrderNumberGenerator("", 1).getNodeId());
+        assertEquals(7, new OrderNumberGenerator(" 7 ", 3).getNodeId());
+        assertThrows(IllegalStateException.class, () -> new OrderNumberGenerator("", 3));
+    }
+}
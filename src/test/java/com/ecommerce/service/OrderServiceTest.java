@@ -1,8 +1,12 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.AuthenticatedUser;
 import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderEvent;
 import com.ecommerce.dto.OrderItemDto;
 import com.ecommerce.dto.OrderRequestDto;
+import com.ecommerce.dto.OrderStatusOutcome;
+import com.ecommerce.dto.OrderStatusSnapshot;
 import com.ecommerce.entity.*;
 import com.ecommerce.exception.InsufficientQuantityException;
 import com.ecommerce.exception.ResourceNotFoundException;
@@ -14,21 +18,27 @@ import com.ecommerce.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,10 +56,26 @@ class OrderServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    @Spy
+    private OrderNumberGenerator orderNumberGenerator = new OrderNumberGenerator(0);
+    
+    @Mock
+    private ProductStockService productStockService;
+    
+    @Mock
+    private OutboxService outboxService;
+    
+    @Mock
+    private UserIdentityCache userIdentityCache;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
     @InjectMocks
     private OrderService orderService;
     
     private User user;
+    private AuthenticatedUser identity;
     private Product product;
     private Order order;
     private OrderRequestDto orderRequestDto;
@@ -60,6 +86,7 @@ class OrderServiceTest {
         user.setId(1L);
         user.setUsername("testuser");
         user.setEmail("test@example.com");
+        identity = new AuthenticatedUser(1L, "testuser", null, Role.RoleType.USER);
         
         product = new Product();
         product.setId(1L);
@@ -86,10 +113,10 @@ class OrderServiceTest {
     
     @Test
     void createOrder_Success() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(productRepository.decrementQuantityIfAvailable(1L, 2)).thenReturn(1);
         when(orderRepository.save(any(Order.class))).thenReturn(order);
-        when(orderItemRepository.save(any(OrderItem.class))).thenReturn(new OrderItem());
         
         OrderDto result = orderService.createOrder(orderRequestDto, 1L);
         
@@ -97,19 +124,36 @@ class OrderServiceTest {
         assertEquals(order.getOrderNumber(), result.getOrderNumber());
         assertEquals(order.getTotalAmount(), result.getTotalAmount());
         verify(orderRepository).save(any(Order.class));
+        verify(userRepository, never()).findById(anyLong());
+    }
+    
+    @Test
+    void createOrder_PublishesOrderCreatedEvent() {
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(productRepository.decrementQuantityIfAvailable(1L, 2)).thenReturn(1);
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        
+        orderService.createOrder(orderRequestDto, 1L);
+        
+        ArgumentCaptor<OrderEvent> event = ArgumentCaptor.forClass(OrderEvent.class);
+        verify(outboxService).publish(event.capture());
+        assertEquals(OrderEvent.Type.ORDER_CREATED, event.getValue().getType());
+        assertEquals(order.getId(), event.getValue().getOrderId());
+        assertNull(event.getValue().getPreviousStatus());
     }
     
     @Test
     void createOrder_UserNotFound_ThrowsResourceNotFoundException() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userIdentityCache.getById(1L)).thenThrow(new ResourceNotFoundException("User not found: 1"));
         
         assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(orderRequestDto, 1L));
     }
     
     @Test
     void createOrder_ProductNotFound_ThrowsResourceNotFoundException() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of());
         
         assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(orderRequestDto, 1L));
     }
@@ -118,17 +162,81 @@ class OrderServiceTest {
     void createOrder_InsufficientQuantity_ThrowsInsufficientQuantityException() {
         product.setQuantity(1); // Less than requested quantity (2)
         
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
         
         assertThrows(InsufficientQuantityException.class, () -> orderService.createOrder(orderRequestDto, 1L));
     }
     
+    @Test
+    void createOrder_ConcurrentStockDepleted_ThrowsInsufficientQuantityException() {
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(productRepository.decrementQuantityIfAvailable(1L, 2)).thenReturn(0);
+        
+        assertThrows(InsufficientQuantityException.class, () -> orderService.createOrder(orderRequestDto, 1L));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+    
+    @Test
+    void createOrder_ShardedStock_ReservesFromBuckets() {
+        product.setQuantity(0);
+        product.setStockBucketCount(4);
+        
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(productStockService.reserve(product, 2)).thenReturn(true);
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        
+        OrderDto result = orderService.createOrder(orderRequestDto, 1L);
+        
+        assertNotNull(result);
+        verify(productRepository, never()).decrementQuantityIfAvailable(anyLong(), any());
+    }
+    
+    @Test
+    void createOrder_ShardedStockDepleted_ThrowsInsufficientQuantityException() {
+        product.setQuantity(0);
+        product.setStockBucketCount(4);
+        
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(productStockService.reserve(product, 2)).thenReturn(false);
+        
+        assertThrows(InsufficientQuantityException.class, () -> orderService.createOrder(orderRequestDto, 1L));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+    
+    @Test
+    void createOrder_RepeatedProductLines_LoadsAndReservesOnce() {
+        OrderItemDto first = new OrderItemDto();
+        first.setProductId(1L);
+        first.setQuantity(2);
+        OrderItemDto second = new OrderItemDto();
+        second.setProductId(1L);
+        second.setQuantity(3);
+        orderRequestDto.setOrderItems(List.of(first, second));
+        
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(productRepository.decrementQuantityIfAvailable(1L, 5)).thenReturn(1);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        OrderDto result = orderService.createOrder(orderRequestDto, 1L);
+        
+        assertEquals(2, result.getOrderItems().size());
+        assertEquals(5, result.getTotalQuantity());
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productRepository, never()).findById(anyLong());
+        verify(orderItemRepository, never()).save(any(OrderItem.class));
+    }
+    
     @Test
     void createOrder_EmptyOrderItems_ThrowsValidationException() {
         orderRequestDto.setOrderItems(List.of());
         
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userIdentityCache.getById(1L)).thenReturn(identity);
         
         assertThrows(ValidationException.class, () -> orderService.createOrder(orderRequestDto, 1L));
     }
@@ -136,7 +244,7 @@ class OrderServiceTest {
     @Test
     void getOrderById_Success() {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderItemRepository.findByOrderId(1L)).thenReturn(List.of());
+        when(orderItemRepository.findByOrderIdWithDetails(1L)).thenReturn(List.of());
         
         OrderDto result = orderService.getOrderById(1L, 1L);
         
@@ -163,7 +271,7 @@ class OrderServiceTest {
         Pageable pageable = PageRequest.of(0, 10);
         Page<Order> orderPage = new PageImpl<>(List.of(order));
         when(orderRepository.findByUserId(1L, pageable)).thenReturn(orderPage);
-        when(orderItemRepository.findByOrderId(1L)).thenReturn(List.of());
+        when(orderItemRepository.findByOrderIdInWithDetails(List.of(1L))).thenReturn(List.of());
         
         Page<OrderDto> result = orderService.getOrdersByUser(1L, pageable);
         
@@ -175,20 +283,60 @@ class OrderServiceTest {
     @Test
     void updateOrderStatus_Success() {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
-        when(orderItemRepository.findByOrderId(1L)).thenReturn(List.of());
+        when(orderRepository.updateStatusIfCurrent(eq(List.of(1L)), eq(Order.OrderStatus.PENDING),
+                eq(Order.OrderStatus.CONFIRMED), any())).thenReturn(1);
+        when(orderItemRepository.findByOrderIdWithDetails(1L)).thenReturn(List.of());
         
         OrderDto result = orderService.updateOrderStatus(1L, Order.OrderStatus.CONFIRMED, 1L);
         
-        assertNotNull(result);
-        assertEquals(Order.OrderStatus.CONFIRMED, order.getStatus());
-        verify(orderRepository).save(any(Order.class));
+        assertEquals(Order.OrderStatus.CONFIRMED, result.getStatus());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService).publish(any(OrderEvent.class));
     }
     
     @Test
-    void cancelOrder_Success() {
+    void updateOrderStatus_ChangedConcurrently_ThrowsValidationException() {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderItemRepository.findByOrderId(1L)).thenReturn(List.of());
+        when(orderRepository.updateStatusIfCurrent(eq(List.of(1L)), eq(Order.OrderStatus.PENDING),
+                eq(Order.OrderStatus.CONFIRMED), any())).thenReturn(0);
+        
+        assertThrows(ValidationException.class,
+                () -> orderService.updateOrderStatus(1L, Order.OrderStatus.CONFIRMED, 1L));
+        verifyNoInteractions(outboxService);
+    }
+    
+    @Test
+    void updateOrderStatus_TransitionNotAllowed_ThrowsValidationException() {
+        order.setStatus(Order.OrderStatus.DELIVERED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        
+        assertThrows(ValidationException.class,
+                () -> orderService.updateOrderStatus(1L, Order.OrderStatus.SHIPPED, 1L));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+    
+    @Test
+    void updateOrderStatus_UnknownStatus_ThrowsValidationException() {
+        assertThrows(ValidationException.class, () -> orderService.updateOrderStatus(1L, "lost", 1L));
+        verifyNoInteractions(orderRepository);
+    }
+    
+    @Test
+    void updateOrderStatus_Cancelled_RestoresStock() {
+        when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.findByOrderIdWithDetails(1L)).thenReturn(List.of(orderItem(order, product, 2)));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        
+        OrderDto result = orderService.updateOrderStatus(1L, "cancelled", 1L);
+        
+        assertEquals(Order.OrderStatus.CANCELLED, result.getStatus());
+        verify(productRepository).incrementQuantity(1L, 2);
+    }
+    
+    @Test
+    void cancelOrder_Success() {
+        when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.findByOrderIdWithDetails(1L)).thenReturn(List.of());
         when(orderRepository.save(any(Order.class))).thenReturn(order);
         
         orderService.cancelOrder(1L, 1L);
@@ -197,11 +345,130 @@ class OrderServiceTest {
         verify(orderRepository).save(any(Order.class));
     }
     
+    @Test
+    void cancelOrder_PublishesOrderCancelledEvent() {
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+        when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.findByOrderIdWithDetails(1L)).thenReturn(List.of());
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        
+        orderService.cancelOrder(1L, 1L);
+        
+        ArgumentCaptor<OrderEvent> event = ArgumentCaptor.forClass(OrderEvent.class);
+        verify(outboxService).publish(event.capture());
+        assertEquals(OrderEvent.Type.ORDER_CANCELLED, event.getValue().getType());
+        assertEquals(Order.OrderStatus.CANCELLED, event.getValue().getStatus());
+        assertEquals(Order.OrderStatus.CONFIRMED, event.getValue().getPreviousStatus());
+    }
+    
+    @Test
+    void cancelOrder_ShardedStock_ReleasesIntoBucket() {
+        product.setStockBucketCount(4);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setProduct(product);
+        orderItem.setQuantity(2);
+        when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.findByOrderIdWithDetails(1L)).thenReturn(List.of(orderItem));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        
+        orderService.cancelOrder(1L, 1L);
+        
+        verify(productStockService).release(product, 2);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+    
+    @Test
+    void cancelOrder_RepeatedProductLines_RestoresStockWithOneUpdate() {
+        when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.findByOrderIdWithDetails(1L))
+                .thenReturn(List.of(orderItem(order, product, 2), orderItem(order, product, 3)));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        
+        orderService.cancelOrder(1L, 1L);
+        
+        verify(productRepository).incrementQuantity(1L, 5);
+        verify(productRepository, never()).save(any(Product.class));
+        assertEquals(10, product.getQuantity());
+    }
+    
+    @Test
+    void cancelOrders_RestoresStockPerProductAndUpdatesStatusInBulk() {
+        Order second = new Order();
+        second.setId(2L);
+        second.setUser(user);
+        second.setStatus(Order.OrderStatus.CONFIRMED);
+        when(orderRepository.findByIdInAndStatusInForUpdate(List.of(1L, 2L),
+                Set.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED)))
+                .thenReturn(List.of(order, second));
+        when(orderItemRepository.findByOrderIdInWithDetails(List.of(1L, 2L)))
+                .thenReturn(List.of(orderItem(order, product, 2), orderItem(second, product, 1)));
+        
+        List<Long> cancelled = orderService.cancelOrders(List.of(1L, 2L));
+        
+        assertEquals(List.of(1L, 2L), cancelled);
+        verify(productRepository).incrementQuantity(1L, 3);
+        verify(orderRepository).updateStatus(eq(List.of(1L, 2L)), eq(Order.OrderStatus.CANCELLED), any());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService, times(2)).publish(any(OrderEvent.class));
+    }
+    
+    @Test
+    void cancelOrders_NothingCancellable_DoesNothing() {
+        when(orderRepository.findByIdInAndStatusInForUpdate(List.of(1L),
+                Set.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED)))
+                .thenReturn(List.of());
+        
+        assertTrue(orderService.cancelOrders(List.of(1L)).isEmpty());
+        verify(orderRepository, never()).updateStatus(any(), any(), any());
+        verifyNoInteractions(productRepository, outboxService);
+    }
+    
     @Test
     void cancelOrder_AlreadyCancelled_ThrowsValidationException() {
         order.setStatus(Order.OrderStatus.CANCELLED);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
         
         assertThrows(ValidationException.class, () -> orderService.cancelOrder(1L, 1L));
     }
+    
+    @Test
+    void cancelOrder_Shipped_ThrowsValidationException() {
+        order.setStatus(Order.OrderStatus.SHIPPED);
+        when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
+        
+        assertThrows(ValidationException.class, () -> orderService.cancelOrder(1L, 1L));
+        verifyNoInteractions(productRepository);
+    }
+    
+    @Test
+    void transitionOrders_StatusChangedConcurrently_ReportsConflict() {
+        // Order 2 was moved by someone else between the read and the update
+        when(orderRepository.findStatusSnapshotsByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(snapshot(1L, Order.OrderStatus.CONFIRMED), snapshot(2L, Order.OrderStatus.CONFIRMED)))
+                .thenReturn(List.of(snapshot(1L, Order.OrderStatus.SHIPPED), snapshot(2L, Order.OrderStatus.CANCELLED)));
+        when(orderRepository.updateStatusIfCurrent(eq(List.of(1L, 2L)), eq(Order.OrderStatus.CONFIRMED),
+                eq(Order.OrderStatus.SHIPPED), any())).thenReturn(1);
+        
+        List<OrderStatusOutcome> outcomes = orderService.transitionOrders(List.of(1L, 2L),
+                Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED);
+        
+        assertEquals(OrderStatusOutcome.Result.TRANSITIONED, outcomes.get(0).getResult());
+        assertEquals(OrderStatusOutcome.Result.CONFLICT, outcomes.get(1).getResult());
+        verify(outboxService, times(1)).publish(any(OrderEvent.class));
+    }
+    
+    private OrderStatusSnapshot snapshot(Long id, Order.OrderStatus status) {
+        return new OrderStatusSnapshot(id, status, "ORD-" + id, 1L, 1L, new BigDecimal("10.00"), 1,
+                LocalDateTime.now());
+    }
+    
+    private OrderItem orderItem(Order order, Product product, int quantity) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrder(order);
+        orderItem.setProduct(product);
+        orderItem.setQuantity(quantity);
+        orderItem.setUnitPrice(product.getPrice());
+        orderItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+        return orderItem;
+    }
 }
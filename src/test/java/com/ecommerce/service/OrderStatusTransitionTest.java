@@ -0,0 +1,127 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderStatusOutcome;
+import com.ecommerce.entity.*;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.OutboxEventRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderNumberGenerator.class, ProductStockService.class, OutboxService.class,
+        UserIdentityCache.class, JacksonAutoConfiguration.class})
+class OrderStatusTransitionTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Tenant tenant = new Tenant();
+        tenant.setName("Fulfilment Tenant");
+        tenant.setDomain("fulfilment");
+        entityManager.persist(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        entityManager.persist(role);
+
+        User user = new User();
+        user.setUsername("shipper");
+        user.setEmail("shipper@example.com");
+        user.setRole(role);
+        user.setTenant(tenant);
+        entityManager.persist(user);
+
+        Order.OrderStatus[] statuses = {Order.OrderStatus.CONFIRMED, Order.OrderStatus.CONFIRMED,
+                Order.OrderStatus.PENDING, Order.OrderStatus.DELIVERED};
+        for (int i = 0; i < statuses.length; i++) {
+            Order order = new Order();
+            order.setOrderNumber("ORD-SHIP-" + i);
+            order.setUser(user);
+            order.setStatus(statuses[i]);
+            order.setTotalQuantity(1);
+            order.setTotalAmount(new BigDecimal("10.00"));
+            order.setCreatedAt(LocalDateTime.now());
+            orderIds.add(entityManager.persist(order).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void transitionOrders_ReportsOutcomePerIdWithoutLoadingOrders() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<Long> requested = new ArrayList<>(orderIds);
+        requested.add(-1L);
+
+        List<OrderStatusOutcome> outcomes = orderService.transitionOrders(requested,
+                Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPED);
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(OrderStatusOutcome.Result.TRANSITIONED, outcomes.get(0).getResult());
+        assertEquals(OrderStatusOutcome.Result.TRANSITIONED, outcomes.get(1).getResult());
+        assertEquals(OrderStatusOutcome.Result.INVALID_STATUS, outcomes.get(2).getResult());
+        assertEquals(Order.OrderStatus.PENDING, outcomes.get(2).getStatus());
+        assertEquals(OrderStatusOutcome.Result.INVALID_STATUS, outcomes.get(3).getResult());
+        assertEquals(OrderStatusOutcome.Result.NOT_FOUND, outcomes.get(4).getResult());
+
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(Order.OrderStatus.SHIPPED, entityManager.find(Order.class, orderIds.get(0)).getStatus());
+        assertEquals(Order.OrderStatus.PENDING, entityManager.find(Order.class, orderIds.get(2)).getStatus());
+        assertEquals(2, outboxEventRepository.count());
+    }
+
+    @Test
+    void updateOrderStatus_MovesTheOrderWithAConditionalUpdate() {
+        Long userId = entityManager.find(Order.class, orderIds.get(2)).getUser().getId();
+
+        assertEquals(Order.OrderStatus.CONFIRMED,
+                orderService.updateOrderStatus(orderIds.get(2), Order.OrderStatus.CONFIRMED, userId).getStatus());
+
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(Order.OrderStatus.CONFIRMED, entityManager.find(Order.class, orderIds.get(2)).getStatus());
+        assertEquals(1, outboxEventRepository.count());
+    }
+
+    @Test
+    void transitionOrders_NotInTheGraph_ThrowsValidationException() {
+        assertThrows(ValidationException.class, () -> orderService.transitionOrders(orderIds,
+                Order.OrderStatus.DELIVERED, Order.OrderStatus.PENDING));
+        assertThrows(ValidationException.class, () -> orderService.transitionOrders(orderIds,
+                Order.OrderStatus.CONFIRMED, Order.OrderStatus.CANCELLED));
+    }
+}
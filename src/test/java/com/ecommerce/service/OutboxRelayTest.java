@@ -0,0 +1,127 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.OutboxEvent;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<OrderEvent> received = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository, List.of(event -> {
+            if (event.getOrderId() == 10L && event.getType() == OrderEvent.Type.ORDER_STATUS_CHANGED) {
+                throw new IllegalStateException("listener unavailable");
+            }
+            received.add(event);
+        }), objectMapper, transactionManager, meterRegistry, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        outboxRelay.shutdown();
+    }
+
+    @Test
+    void relay_DeliversEventsOfAnOrderInSequenceAndDeletesThem() throws Exception {
+        when(outboxEventRepository.findAvailableIds(any(), any())).thenReturn(List.of(1L, 2L));
+        when(outboxEventRepository.findByClaimTokenOrderByCreatedAtAscIdAsc(anyString())).thenReturn(List.of(
+                outboxEvent(1L, 20L, OrderEvent.Type.ORDER_CREATED),
+                outboxEvent(2L, 20L, OrderEvent.Type.ORDER_CANCELLED)));
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).claim(eq(List.of(1L, 2L)), anyString(), any(), any());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertEquals(List.of(OrderEvent.Type.ORDER_CREATED, OrderEvent.Type.ORDER_CANCELLED),
+                received.stream().map(OrderEvent::getType).toList());
+        assertEquals(2, meterRegistry.get("outbox.events.delivered").counter().count());
+        assertEquals(2, meterRegistry.get("outbox.delivery.lag").timer().count());
+    }
+
+    @Test
+    void relay_ListenerFails_HoldsBackTheRestOfThatOrder() throws Exception {
+        when(outboxEventRepository.findAvailableIds(any(), any())).thenReturn(List.of(1L, 2L, 3L));
+        when(outboxEventRepository.findByClaimTokenOrderByCreatedAtAscIdAsc(anyString())).thenReturn(List.of(
+                outboxEvent(1L, 10L, OrderEvent.Type.ORDER_STATUS_CHANGED),
+                outboxEvent(2L, 10L, OrderEvent.Type.ORDER_CANCELLED),
+                outboxEvent(3L, 20L, OrderEvent.Type.ORDER_CREATED)));
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+        assertEquals(1, received.size());
+        assertEquals(20L, received.get(0).getOrderId());
+        assertEquals(1, meterRegistry.get("outbox.events.failed").counter().count());
+    }
+
+    @Test
+    void relay_NothingAvailable_ClaimsNothing() {
+        when(outboxEventRepository.findAvailableIds(any(), any())).thenReturn(List.of());
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, never()).claim(any(), anyString(), any(), any());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void refreshMetrics_ReportsPendingCountAndOldestAge() {
+        when(outboxEventRepository.count()).thenReturn(5L);
+        when(outboxEventRepository.findOldestCreatedAt()).thenReturn(LocalDateTime.now().minusMinutes(1));
+
+        outboxRelay.refreshMetrics();
+
+        assertEquals(5, meterRegistry.get("outbox.events.pending").gauge().value());
+        assertTrue(meterRegistry.get("outbox.events.oldest.age").timeGauge().value(TimeUnit.SECONDS) >= 60);
+    }
+
+    private OutboxEvent outboxEvent(Long id, Long orderId, OrderEvent.Type type) throws Exception {
+        OrderEvent event = new OrderEvent(type, orderId, "ORD-" + orderId, 1L, 1L, Order.OrderStatus.PENDING, null,
+                new BigDecimal("19.99"), 1, List.of(), LocalDateTime.now(), LocalDateTime.now());
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setId(id);
+        outboxEvent.setAggregateId(orderId);
+        outboxEvent.setEventType(type.name());
+        outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        outboxEvent.setAttempts(1);
+        outboxEvent.setCreatedAt(LocalDateTime.now());
+        outboxEvent.setAvailableAt(LocalDateTime.now());
+        return outboxEvent;
+    }
+}
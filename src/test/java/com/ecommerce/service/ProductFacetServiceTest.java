@@ -0,0 +1,117 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.FacetCount;
+import com.ecommerce.dto.ProductFacetEntry;
+import com.ecommerce.dto.ProductFacets;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFacetServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductFacetService productFacetService;
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findActiveFacetEntries()).thenReturn(List.of(
+                new ProductFacetEntry(1L, 1L, "Shoes", "Nike", true),
+                new ProductFacetEntry(2L, 1L, "Shoes", "Nike", true),
+                new ProductFacetEntry(3L, 1L, "Apparel", "Nike", true),
+                new ProductFacetEntry(4L, 2L, "Shoes", "Adidas", true)));
+        productFacetService.loadAll();
+    }
+
+    @Test
+    void loadAll_CountsPerTenantAndGlobally() {
+        ProductFacets nike = productFacetService.getFacets(1L);
+        ProductFacets all = productFacetService.getFacets(null);
+
+        assertTrue(productFacetService.isReady());
+        assertEquals(List.of(new FacetCount("Apparel", 1), new FacetCount("Shoes", 2)), nike.getCategories());
+        assertEquals(List.of(new FacetCount("Nike", 3)), nike.getBrands());
+        assertEquals(List.of(new FacetCount("Apparel", 1), new FacetCount("Shoes", 3)), all.getCategories());
+        assertEquals(List.of("Adidas", "Nike"), productFacetService.getBrands(null));
+        verify(productRepository, times(1)).findActiveFacetEntries();
+    }
+
+    @Test
+    void update_MovesProductBetweenCategories() {
+        productFacetService.update(new ProductFacetEntry(3L, 1L, "Shoes", "Nike", true));
+
+        assertEquals(List.of(new FacetCount("Shoes", 3)), productFacetService.getFacets(1L).getCategories());
+        assertEquals(List.of(new FacetCount("Shoes", 4)), productFacetService.getFacets(null).getCategories());
+    }
+
+    @Test
+    void update_DeactivatedProductIsNoLongerCounted() {
+        productFacetService.update(new ProductFacetEntry(4L, 2L, "Shoes", "Adidas", false));
+
+        assertTrue(productFacetService.getFacets(2L).getCategories().isEmpty());
+        assertEquals(List.of("Nike"), productFacetService.getBrands(null));
+
+        productFacetService.update(new ProductFacetEntry(4L, 2L, "Shoes", "Adidas", true));
+
+        assertEquals(List.of("Shoes"), productFacetService.getCategories(2L));
+    }
+
+    @Test
+    void remove_DecrementsAndIgnoresUnknownProducts() {
+        productFacetService.remove(1L);
+        productFacetService.remove(1L);
+        productFacetService.remove(99L);
+
+        assertEquals(List.of(new FacetCount("Apparel", 1), new FacetCount("Shoes", 1)),
+                productFacetService.getFacets(1L).getCategories());
+    }
+
+    @Test
+    void removeTenant_DropsTenantCountsFromGlobalFacets() {
+        productFacetService.removeTenant(1L);
+
+        assertTrue(productFacetService.getCategories(1L).isEmpty());
+        assertEquals(List.of(new FacetCount("Shoes", 1)), productFacetService.getFacets(null).getCategories());
+    }
+
+    @Test
+    void loadAll_KeepsUpdatesMadeWhileReading() {
+        when(productRepository.findActiveFacetEntries()).thenAnswer(invocation -> {
+            productFacetService.update(new ProductFacetEntry(5L, 2L, "Apparel", "Adidas", true));
+            productFacetService.remove(1L);
+            return List.of(
+                    new ProductFacetEntry(1L, 1L, "Shoes", "Nike", true),
+                    new ProductFacetEntry(4L, 2L, "Shoes", "Adidas", true));
+        });
+
+        productFacetService.loadAll();
+
+        assertEquals(List.of(new FacetCount("Apparel", 1), new FacetCount("Shoes", 1)),
+                productFacetService.getFacets(2L).getCategories());
+        assertTrue(productFacetService.getFacets(1L).getCategories().isEmpty());
+        assertEquals(List.of("Adidas"), productFacetService.getBrands(null));
+    }
+
+    @Test
+    void loadAll_PicksUpProductsChangedElsewhere() {
+        when(productRepository.findActiveFacetEntries()).thenReturn(List.of(
+                new ProductFacetEntry(1L, 1L, "Accessories", "Nike", true)));
+
+        productFacetService.loadAll();
+
+        assertEquals(List.of("Accessories"), productFacetService.getCategories(null));
+        assertTrue(productFacetService.getFacets(2L).getCategories().isEmpty());
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductSearchDocument;
+import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.TenantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+    
+    private ProductSearchIndex productSearchIndex;
+    
+    @BeforeEach
+    void setUp() {
+        productSearchIndex = new ProductSearchIndex(null, null);
+        productSearchIndex.index(document(1L, 1L, "Air Max 90", "Classic running shoe", "Shoes", "Nike", "120.00"));
+        productSearchIndex.index(document(2L, 1L, "Running Shorts", "Lightweight shorts for running", "Apparel", "Nike", "35.00"));
+        productSearchIndex.index(document(3L, 1L, "Air Force 1", "Basketball shoe", "Shoes", "Nike", "110.00"));
+        productSearchIndex.index(document(4L, 2L, "Ultraboost", "Running shoe", "Shoes", "Adidas", "180.00"));
+    }
+    
+    @Test
+    void search_RanksNameMatchesAboveDescriptionMatches() {
+        ProductSearchIndex.Hits hits = productSearchIndex.search(1L, criteria("running", "relevance", "ASC", 0, 10));
+        
+        assertEquals(List.of(2L, 1L), hits.getProductIds());
+        assertEquals(2, hits.getTotal());
+    }
+    
+    @Test
+    void search_LastTermMatchesAsPrefix() {
+        ProductSearchIndex.Hits hits = productSearchIndex.search(1L, criteria("air fo", "relevance", "ASC", 0, 10));
+        
+        assertEquals(List.of(3L), hits.getProductIds());
+    }
+    
+    @Test
+    void search_IsScopedToTenantUnlessTenantIsNull() {
+        assertEquals(2, productSearchIndex.search(1L, criteria("shoe", "relevance", "ASC", 0, 10)).getTotal());
+        assertEquals(3, productSearchIndex.search(null, criteria("shoe", "relevance", "ASC", 0, 10)).getTotal());
+    }
+    
+    @Test
+    void search_SortsAndPagesByPrice() {
+        ProductSearchIndex.Hits hits = productSearchIndex.search(1L, criteria("nike", "price", "DESC", 1, 1));
+        
+        assertEquals(List.of(3L), hits.getProductIds());
+        assertEquals(3, hits.getTotal());
+    }
+    
+    @Test
+    void index_ReindexingReplacesTermsAndInactiveProductsAreHidden() {
+        productSearchIndex.index(document(1L, 1L, "Air Zoom", "Trail shoe", "Shoes", "Nike", "130.00"));
+        assertTrue(productSearchIndex.search(1L, criteria("max", "relevance", "ASC", 0, 10)).getProductIds().isEmpty());
+        
+        ProductSearchDocument inactive = document(3L, 1L, "Air Force 1", "Basketball shoe", "Shoes", "Nike", "110.00");
+        inactive.setIsActive(false);
+        productSearchIndex.index(inactive);
+        
+        assertEquals(List.of(1L), productSearchIndex.search(1L, criteria("air", "relevance", "ASC", 0, 10)).getProductIds());
+    }
+    
+    @Test
+    void remove_DropsProductFromResults() {
+        productSearchIndex.remove(1L, 2L);
+        
+        assertEquals(List.of(1L), productSearchIndex.search(1L, criteria("running", "relevance", "ASC", 0, 10)).getProductIds());
+    }
+    
+    @Test
+    void search_AppliesCategoryBrandAndPriceFilters() {
+        ProductSearchDto criteria = criteria("shoe", "relevance", "ASC", 0, 10);
+        criteria.setCategories(List.of("shoes"));
+        criteria.setMaxPrice(new BigDecimal("115.00"));
+        
+        assertEquals(List.of(3L), productSearchIndex.search(1L, criteria).getProductIds());
+        
+        criteria.setMaxPrice(null);
+        criteria.setBrands(List.of("Adidas"));
+        assertEquals(List.of(4L), productSearchIndex.search(null, criteria).getProductIds());
+    }
+    
+    @Test
+    void rebuildTenant_KeepsUpdatesMadeWhileReading() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductSearchIndex index = new ProductSearchIndex(productRepository, null);
+        when(productRepository.findSearchDocumentsByTenantAfter(eq(1L), eq(0L), any())).thenAnswer(invocation -> {
+            index.index(document(5L, 1L, "Pegasus", "Road running shoe", "Shoes", "Nike", "130.00"));
+            index.remove(1L, 1L);
+            return List.of(document(1L, 1L, "Air Max 90", "Classic running shoe", "Shoes", "Nike", "120.00"),
+                    document(3L, 1L, "Air Force 1", "Basketball shoe", "Shoes", "Nike", "110.00"));
+        });
+        
+        index.rebuildTenant(1L);
+        
+        assertEquals(List.of(3L, 5L), index.search(1L, criteria("shoe", "price", "ASC", 0, 10)).getProductIds());
+    }
+    
+    @Test
+    void rebuild_PicksUpProductsChangedElsewhereAndDropsDeletedTenants() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        TenantRepository tenantRepository = mock(TenantRepository.class);
+        ProductSearchIndex index = new ProductSearchIndex(productRepository, tenantRepository);
+        index.index(document(1L, 1L, "Air Max 90", "Classic running shoe", "Shoes", "Nike", "120.00"));
+        index.index(document(4L, 2L, "Ultraboost", "Running shoe", "Shoes", "Adidas", "180.00"));
+        when(tenantRepository.findAllIds()).thenReturn(List.of(1L));
+        when(productRepository.findSearchDocumentsByTenantAfter(eq(1L), eq(0L), any())).thenReturn(
+                List.of(document(1L, 1L, "Air Max 95", "Classic running shoe", "Shoes", "Nike", "120.00")));
+        
+        index.rebuild();
+        
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L), index.search(null, criteria("95", "relevance", "ASC", 0, 10)).getProductIds());
+        assertEquals(List.of(1L), index.search(null, criteria("shoe", "relevance", "ASC", 0, 10)).getProductIds());
+    }
+    
+    private ProductSearchDto criteria(String name, String sortBy, String sortDirection, int page, int size) {
+        ProductSearchDto criteria = new ProductSearchDto();
+        criteria.setName(name);
+        criteria.setSortBy(sortBy);
+        criteria.setSortDirection(sortDirection);
+        criteria.setPage(page);
+        criteria.setSize(size);
+        return criteria;
+    }
+    
+    private ProductSearchDocument document(Long id, Long tenantId, String name, String description,
+                                           String category, String brand, String price) {
+        return new ProductSearchDocument(id, tenantId, name, description, category, brand, new BigDecimal(price), true);
+    }
+}
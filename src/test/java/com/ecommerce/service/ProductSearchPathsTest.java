@@ -0,0 +1,108 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.TenantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same search through the in-memory index and through the database query, which is used for in-stock
+ * searches, and checks that both return the same products.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, ProductSearchIndex.class, ProductFacetService.class, ProductStockService.class})
+class ProductSearchPathsTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setName("Search Tenant");
+        tenant.setDomain("search");
+        tenantRepository.save(tenant);
+
+        productRepository.saveAll(List.of(
+                product("Air Max 90", "Shoes", "Nike"),
+                product("Air Force 1", "shoes", "NIKE"),
+                product("Air Jordan 1", "Apparel", "Nike"),
+                product("Air Zoom", "Shoes", "Adidas")));
+        productSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllInBatch();
+        tenantRepository.deleteAllInBatch();
+        productSearchIndex.removeTenant(tenant.getId());
+    }
+
+    @Test
+    void searchProducts_CategoryAndBrandMatchIgnoringCaseOnBothPaths() {
+        assertTrue(productSearchIndex.isReady());
+
+        List<String> fromIndex = names(productService.searchProducts(criteria(null), tenant.getId()).getContent());
+        List<String> fromDatabase = names(productService.searchProducts(criteria(true), tenant.getId()).getContent());
+
+        assertEquals(List.of("Air Force 1", "Air Max 90"), fromIndex);
+        assertEquals(fromIndex, fromDatabase);
+    }
+
+    private ProductSearchDto criteria(Boolean inStock) {
+        ProductSearchDto criteria = new ProductSearchDto();
+        criteria.setName("Air");
+        criteria.setCategory("SHOES");
+        criteria.setBrands(List.of("nike"));
+        criteria.setInStock(inStock);
+        criteria.setSortBy("name");
+        return criteria;
+    }
+
+    private Product product(String name, String category, String brand) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("100.00"));
+        product.setQuantity(10);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setTenant(tenant);
+        return product;
+    }
+
+    private static List<String> names(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getName).collect(Collectors.toList());
+    }
+}
@@ -1,7 +1,13 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.FacetCount;
 import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ProductFacetEntry;
+import com.ecommerce.dto.ProductFacets;
+import com.ecommerce.dto.ProductSearchDocument;
 import com.ecommerce.dto.ProductSearchDto;
+import com.ecommerce.dto.ProductSearchResponse;
 import com.ecommerce.entity.Product;
 import com.ecommerce.entity.Tenant;
 import com.ecommerce.exception.ResourceNotFoundException;
@@ -11,6 +17,7 @@ import com.ecommerce.repository.TenantRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -18,7 +25,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -27,6 +37,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +49,15 @@ class ProductServiceTest {
     @Mock
     private TenantRepository tenantRepository;
     
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+    
+    @Mock
+    private ProductFacetService productFacetService;
+    
+    @Mock
+    private ProductStockService productStockService;
+    
     @InjectMocks
     private ProductService productService;
     
@@ -165,6 +185,38 @@ class ProductServiceTest {
         verify(productRepository).save(any(Product.class));
     }
     
+    @Test
+    void updateProductQuantity_ShardedStock_RedistributesAcrossBuckets() {
+        product.setQuantity(0);
+        product.setStockBucketCount(4);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        when(productStockService.getAvailableQuantity(product)).thenReturn(20);
+        
+        ProductDto result = productService.updateProductQuantity(1L, 20, 1L);
+        
+        assertEquals(20, result.getQuantity());
+        verify(productStockService).setQuantity(product, 20);
+    }
+    
+    @Test
+    void updateStockBuckets_LocksProductAndConfiguresBuckets() {
+        when(productRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        
+        productService.updateStockBuckets(1L, 8, 1L);
+        
+        verify(productStockService).configureBuckets(product, 8);
+    }
+    
+    @Test
+    void updateStockBuckets_WrongTenant_ThrowsValidationException() {
+        when(productRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
+        
+        assertThrows(ValidationException.class, () -> productService.updateStockBuckets(1L, 8, 2L));
+        verifyNoInteractions(productStockService);
+    }
+    
     @Test
     void updateProductQuantity_NegativeQuantity_ThrowsValidationException() {
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
@@ -175,7 +227,7 @@ class ProductServiceTest {
     @Test
     void searchProducts_Success() {
         Pageable pageable = PageRequest.of(0, 10, Sort.by("name").ascending());
-        Page<Product> productPage = new PageImpl<>(List.of(product));
+        Page<ProductDto> productPage = new PageImpl<>(List.of(productDto));
         ProductSearchDto searchDto = new ProductSearchDto();
         searchDto.setName("Test");
         searchDto.setPage(0);
@@ -183,13 +235,171 @@ class ProductServiceTest {
         searchDto.setSortBy("name");
         searchDto.setSortDirection("ASC");
         
-        when(productRepository.findByTenantIdAndNameContaining(1L, "Test", pageable)).thenReturn(productPage);
+        when(productRepository.search(any(ProductSearchDto.class), eq(1L), eq(pageable))).thenReturn(productPage);
         
         Page<ProductDto> result = productService.searchProducts(searchDto, 1L);
         
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
-        assertEquals(product.getName(), result.getContent().get(0).getName());
+        assertEquals(productDto.getName(), result.getContent().get(0).getName());
+    }
+    
+    @Test
+    void searchProducts_IndexReady_LoadsRankedRowsByPrimaryKey() {
+        ProductSearchDto searchDto = new ProductSearchDto();
+        searchDto.setName("test");
+        ProductDto other = new ProductDto();
+        other.setId(2L);
+        other.setName("Other Test Product");
+        productDto.setId(1L);
+        
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search(eq(1L), any(ProductSearchDto.class)))
+                .thenReturn(new ProductSearchIndex.Hits(List.of(2L, 1L), 2));
+        when(productRepository.findDtosByIdIn(List.of(2L, 1L))).thenReturn(List.of(productDto, other));
+        
+        Page<ProductDto> result = productService.searchProducts(searchDto, 1L);
+        
+        assertEquals(2, result.getTotalElements());
+        assertEquals(2L, result.getContent().get(0).getId());
+        assertEquals(1L, result.getContent().get(1).getId());
+        verify(productRepository, never()).search(any(), any(), any());
+    }
+    
+    @Test
+    void searchProducts_CombinesAllCriteriaIntoOneQuery() {
+        ProductSearchDto searchDto = new ProductSearchDto();
+        searchDto.setCategory("Electronics");
+        searchDto.setCategories(List.of("Audio", " "));
+        searchDto.setBrand("Test Brand");
+        searchDto.setMinPrice(new BigDecimal("10"));
+        searchDto.setMaxPrice(new BigDecimal("100"));
+        searchDto.setInStock(true);
+        searchDto.setSortBy("price");
+        searchDto.setSortDirection("DESC");
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("price").descending());
+        ArgumentCaptor<ProductSearchDto> criteria = ArgumentCaptor.forClass(ProductSearchDto.class);
+        when(productRepository.search(criteria.capture(), eq(1L), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(productDto)));
+        
+        productService.searchProducts(searchDto, 1L);
+        
+        assertEquals(List.of("Electronics", "Audio"), criteria.getValue().getCategories());
+        assertEquals(List.of("Test Brand"), criteria.getValue().getBrands());
+        assertTrue(criteria.getValue().getInStock());
+    }
+    
+    @Test
+    void searchProducts_InStockTextSearch_SkipsIndex() {
+        ProductSearchDto searchDto = new ProductSearchDto();
+        searchDto.setName("test");
+        searchDto.setInStock(true);
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productRepository.search(any(ProductSearchDto.class), eq(1L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(productDto)));
+        
+        productService.searchProducts(searchDto, 1L);
+        
+        verify(productSearchIndex, never()).search(any(), any());
+    }
+    
+    @Test
+    void searchProducts_UnknownSortField_ThrowsValidationException() {
+        ProductSearchDto searchDto = new ProductSearchDto();
+        searchDto.setSortBy("description");
+        
+        assertThrows(ValidationException.class, () -> productService.searchProducts(searchDto, 1L));
+    }
+    
+    @Test
+    void createProduct_IndexesSavedProduct() {
+        when(tenantRepository.findById(1L)).thenReturn(Optional.of(tenant));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        
+        productService.createProduct(productDto, 1L);
+        
+        verify(productSearchIndex).index(any(ProductSearchDocument.class));
+    }
+    
+    @Test
+    void deleteProduct_InsideTransaction_UpdatesIndexAndFacetsAfterCommit() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.deleteProduct(1L, 1L);
+            verify(productSearchIndex, never()).remove(anyLong(), anyLong());
+            verify(productFacetService, never()).remove(anyLong());
+            
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        
+        verify(productSearchIndex).remove(1L, 1L);
+        verify(productFacetService).remove(1L);
+    }
+    
+    @Test
+    void updateProduct_RolledBack_LeavesIndexAndFacetsUntouched() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.updateProduct(1L, productDto, 1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        
+        verify(productSearchIndex, never()).index(any());
+        verify(productFacetService, never()).update(any());
+    }
+    
+    @Test
+    void getProductsByTenant_ReturnsProjectedPage() {
+        Pageable pageable = PageRequest.of(0, 10);
+        productDto.setTenantId(1L);
+        productDto.setTenantName("Test Tenant");
+        when(productRepository.findByTenantIdAndIsActive(1L, pageable)).thenReturn(new PageImpl<>(List.of(productDto)));
+        
+        Page<ProductDto> result = productService.getProductsByTenant(1L, pageable);
+        
+        assertEquals(1, result.getContent().size());
+        assertEquals("Test Tenant", result.getContent().get(0).getTenantName());
+        verify(productRepository, never()).findById(anyLong());
+    }
+    
+    @Test
+    void getProductsByTenantAfter_FirstPage_ReturnsCursorOfLastRow() {
+        productDto.setId(7L);
+        Pageable limit = PageRequest.of(0, 1);
+        when(productRepository.findFirstByTenantIdKeyset(1L, limit))
+                .thenReturn(new SliceImpl<>(List.of(productDto), limit, true));
+        
+        CursorPage<ProductDto> result = productService.getProductsByTenantAfter(1L, "", 1);
+        
+        assertTrue(result.isHasNext());
+        assertEquals(KeysetCursor.encode("Test Product", 7L), result.getNextCursor());
+    }
+    
+    @Test
+    void getProductsByTenantAfter_WithCursor_SeeksPastLastRow() {
+        Pageable limit = PageRequest.of(0, 20);
+        when(productRepository.findNextByTenantIdKeyset(1L, "Test Product", 7L, limit))
+                .thenReturn(new SliceImpl<>(List.of(), limit, false));
+        
+        CursorPage<ProductDto> result = productService.getProductsByTenantAfter(1L,
+                KeysetCursor.encode("Test Product", 7L), null);
+        
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        verify(productRepository, never()).findByTenantIdAndIsActive(anyLong(), any());
+    }
+    
+    @Test
+    void getProductsByTenantAfter_MalformedCursor_ThrowsValidationException() {
+        assertThrows(ValidationException.class, () -> productService.getProductsByTenantAfter(1L, "not-a-cursor", 10));
     }
     
     @Test
@@ -204,4 +414,56 @@ class ProductServiceTest {
         assertTrue(result.contains("Electronics"));
         assertTrue(result.contains("Clothing"));
     }
+    
+    @Test
+    void getCategories_FacetsLoaded_ServedFromMemory() {
+        when(productFacetService.isReady()).thenReturn(true);
+        when(productFacetService.getCategories(1L)).thenReturn(List.of("Clothing", "Electronics"));
+        
+        List<String> result = productService.getCategories(1L);
+        
+        assertEquals(List.of("Clothing", "Electronics"), result);
+        verify(productRepository, never()).findDistinctCategoriesByTenantId(anyLong());
+    }
+    
+    @Test
+    void createProduct_UpdatesFacets() {
+        when(tenantRepository.findById(1L)).thenReturn(Optional.of(tenant));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        
+        productService.createProduct(productDto, 1L);
+        
+        ArgumentCaptor<ProductFacetEntry> entry = ArgumentCaptor.forClass(ProductFacetEntry.class);
+        verify(productFacetService).update(entry.capture());
+        assertEquals(1L, entry.getValue().getProductId());
+        assertEquals(1L, entry.getValue().getTenantId());
+        assertEquals("Electronics", entry.getValue().getCategory());
+        assertEquals("Test Brand", entry.getValue().getBrand());
+        assertTrue(entry.getValue().getIsActive());
+    }
+    
+    @Test
+    void deleteProduct_RemovesFromFacets() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        
+        productService.deleteProduct(1L, 1L);
+        
+        verify(productFacetService).remove(1L);
+    }
+    
+    @Test
+    void searchProductsWithFacets_ReturnsPageAndTenantFacets() {
+        ProductSearchDto searchDto = new ProductSearchDto();
+        searchDto.setCategory("Electronics");
+        ProductFacets facets = new ProductFacets(List.of(new FacetCount("Electronics", 1)),
+                List.of(new FacetCount("Test Brand", 1)));
+        Page<ProductDto> productPage = new PageImpl<>(List.of(productDto));
+        when(productRepository.search(any(ProductSearchDto.class), eq(1L), any(Pageable.class))).thenReturn(productPage);
+        when(productFacetService.getFacets(1L)).thenReturn(facets);
+        
+        ProductSearchResponse result = productService.searchProductsWithFacets(searchDto, 1L);
+        
+        assertEquals(1, result.getProducts().getTotalElements());
+        assertSame(facets, result.getFacets());
+    }
 }
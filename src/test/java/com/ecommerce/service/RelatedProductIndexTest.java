@@ -0,0 +1,167 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.RelatedProductDto;
+import com.ecommerce.entity.*;
+import com.ecommerce.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "app.recommendations.rebuild-chunk-size=3")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RelatedProductIndex.class)
+class RelatedProductIndexTest {
+
+    @Autowired
+    private RelatedProductIndex relatedProductIndex;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    private Tenant tenant;
+    private User user;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setName("Basket Tenant");
+        tenant.setDomain("basket");
+        tenantRepository.save(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        roleRepository.save(role);
+
+        user = new User();
+        user.setUsername("shopper");
+        user.setEmail("shopper@example.com");
+        user.setRole(role);
+        user.setTenant(tenant);
+        userRepository.save(user);
+
+        for (int i = 0; i < 4; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(100);
+            product.setTenant(tenant);
+            products.add(productRepository.save(product));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        relatedProductIndex.removeTenant(tenant.getId());
+        orderItemRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        roleRepository.deleteAllInBatch();
+        tenantRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void rebuildTenant_CountsOrdersAcrossChunksAndSkipsCancelled() {
+        createOrder(Order.OrderStatus.PENDING, 0, 1, 2);
+        createOrder(Order.OrderStatus.DELIVERED, 0, 1);
+        createOrder(Order.OrderStatus.CONFIRMED, 0, 2);
+        createOrder(Order.OrderStatus.PENDING, 0, 1, 0);
+        createOrder(Order.OrderStatus.CANCELLED, 0, 3);
+
+        relatedProductIndex.rebuildTenant(tenant.getId());
+
+        assertEquals(List.of(related(1, 3), related(2, 2)),
+                relatedProductIndex.getRelatedProducts(tenant.getId(), id(0), null));
+        assertEquals(List.of(related(0, 2), related(1, 1)),
+                relatedProductIndex.getRelatedProducts(tenant.getId(), id(2), null));
+        assertEquals(List.of(related(1, 3)), relatedProductIndex.getRelatedProducts(tenant.getId(), id(0), 1));
+        assertTrue(relatedProductIndex.getRelatedProducts(tenant.getId(), id(3), null).isEmpty());
+    }
+
+    @Test
+    void onOrderEvent_CreatedAndCancelledOrdersMoveTheRanking() {
+        relatedProductIndex.onOrderEvent(event(OrderEvent.Type.ORDER_CREATED, 0, 1));
+        relatedProductIndex.onOrderEvent(event(OrderEvent.Type.ORDER_CREATED, 0, 2, 3));
+        relatedProductIndex.onOrderEvent(event(OrderEvent.Type.ORDER_CREATED, 0, 2));
+        assertEquals(List.of(related(2, 2), related(1, 1), related(3, 1)),
+                relatedProductIndex.getRelatedProducts(tenant.getId(), id(0), null));
+
+        relatedProductIndex.onOrderEvent(event(OrderEvent.Type.ORDER_CANCELLED, 0, 2, 3));
+        relatedProductIndex.onOrderEvent(event(OrderEvent.Type.ORDER_CANCELLED, 0, 2));
+
+        assertEquals(List.of(related(1, 1)), relatedProductIndex.getRelatedProducts(tenant.getId(), id(0), null));
+        assertTrue(relatedProductIndex.getRelatedProducts(tenant.getId(), id(2), null).isEmpty());
+        assertTrue(relatedProductIndex.getRelatedProducts(tenant.getId() + 1, id(0), null).isEmpty());
+    }
+
+    private void createOrder(Order.OrderStatus status, int... productIndexes) {
+        Order order = new Order();
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setUser(user);
+        order.setStatus(status);
+        order.setTotalQuantity(productIndexes.length);
+        order.setTotalAmount(BigDecimal.TEN.multiply(BigDecimal.valueOf(productIndexes.length)));
+        order.setCreatedAt(LocalDateTime.now());
+        for (int index : productIndexes) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProduct(products.get(index));
+            orderItem.setQuantity(1);
+            orderItem.setUnitPrice(BigDecimal.TEN);
+            orderItem.setTotalPrice(BigDecimal.TEN);
+            order.getOrderItems().add(orderItem);
+        }
+        orderRepository.save(order);
+    }
+
+    private OrderEvent event(OrderEvent.Type type, int... productIndexes) {
+        List<OrderItemDto> items = new ArrayList<>();
+        for (int index : productIndexes) {
+            items.add(new OrderItemDto(null, id(index), null, 1, BigDecimal.TEN, BigDecimal.TEN));
+        }
+        return new OrderEvent(type, 1L, "ORD-1", user.getId(), tenant.getId(), Order.OrderStatus.PENDING, null,
+                BigDecimal.TEN, items.size(), items, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    private Long id(int index) {
+        return products.get(index).getId();
+    }
+
+    private RelatedProductDto related(int index, int orders) {
+        return new RelatedProductDto(id(index), orders);
+    }
+}
@@ -0,0 +1,184 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderEvent;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.SalesReport;
+import com.ecommerce.dto.SalesReportRow;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.SalesRollupEventRepository;
+import com.ecommerce.repository.SalesRollupRepository;
+import com.ecommerce.repository.TenantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SalesRollupService.class)
+class SalesRollupServiceTest {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private SalesRollupEventRepository rollupEventRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    private final LocalDate today = LocalDate.now();
+    private Long tenantId;
+    private Product shoe;
+    private Product boot;
+    private Product sock;
+
+    @BeforeEach
+    void setUp() {
+        Tenant tenant = new Tenant();
+        tenant.setName("Report Tenant");
+        tenant.setDomain("reports");
+        tenantId = tenantRepository.save(tenant).getId();
+
+        shoe = product(tenant, "Shoe", "Shoes");
+        boot = product(tenant, "Boot", "Shoes");
+        sock = product(tenant, "Sock", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        salesRollupRepository.deleteAllInBatch();
+        rollupEventRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        tenantRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void onOrderEvent_CreatedAndCancelled_NetsOutAndIgnoresDuplicates() {
+        OrderEvent first = event(OrderEvent.Type.ORDER_CREATED, 1L, today,
+                item(shoe, 2, "40.00"), item(sock, 1, "5.00"));
+        OrderEvent second = event(OrderEvent.Type.ORDER_CREATED, 2L, today,
+                item(shoe, 1, "20.00"), item(boot, 1, "70.00"));
+
+        salesRollupService.onOrderEvent(first);
+        salesRollupService.onOrderEvent(first);
+        salesRollupService.onOrderEvent(second);
+
+        SalesReport report = salesRollupService.getSalesReport(tenantId, today, today, "product");
+        assertEquals(2, report.getOrders());
+        assertEquals(5, report.getUnits());
+        assertEquals(0, new BigDecimal("135.00").compareTo(report.getRevenue()));
+        assertEquals(List.of(boot.getId().toString(), shoe.getId().toString(), sock.getId().toString()),
+                report.getRows().stream().map(SalesReportRow::getKey).toList());
+        SalesReportRow shoes = report.getRows().get(1);
+        assertEquals(2, shoes.getOrders());
+        assertEquals(3, shoes.getUnits());
+        assertEquals("Shoes", shoes.getCategory());
+
+        salesRollupService.onOrderEvent(event(OrderEvent.Type.ORDER_CANCELLED, 2L, today,
+                item(shoe, 1, "20.00"), item(boot, 1, "70.00")));
+
+        report = salesRollupService.getSalesReport(tenantId, today, today, "CATEGORY");
+        assertEquals(1, report.getOrders());
+        assertEquals(3, report.getUnits());
+        assertEquals(List.of("Shoes", ""), report.getRows().stream().map(SalesReportRow::getKey).toList());
+        assertEquals(1, report.getRows().get(0).getOrders());
+        assertEquals(0, new BigDecimal("40.00").compareTo(report.getRows().get(0).getRevenue()));
+    }
+
+    @Test
+    void onOrderEvent_CancelledBeforeCreated_CountsNeither() {
+        OrderItemDto line = item(shoe, 1, "20.00");
+
+        salesRollupService.onOrderEvent(event(OrderEvent.Type.ORDER_CANCELLED, 3L, today, line));
+        salesRollupService.onOrderEvent(event(OrderEvent.Type.ORDER_CREATED, 3L, today, line));
+
+        SalesReport report = salesRollupService.getSalesReport(tenantId, today, today, "DAY");
+        assertEquals(0, report.getOrders());
+        assertTrue(report.getRows().isEmpty());
+        assertEquals(0, salesRollupRepository.count());
+    }
+
+    @Test
+    void getSalesReport_HotWindowMatchesTheRollupTable() {
+        LocalDate yesterday = today.minusDays(1);
+        salesRollupService.onOrderEvent(event(OrderEvent.Type.ORDER_CREATED, 4L, yesterday, item(shoe, 1, "20.00")));
+        salesRollupService.refreshWindow();
+        salesRollupService.onOrderEvent(event(OrderEvent.Type.ORDER_CREATED, 5L, today, item(boot, 2, "120.00")));
+        salesRollupService.onOrderEvent(event(OrderEvent.Type.ORDER_CREATED, 6L, today, item(shoe, 1, "20.00")));
+
+        SalesReport fromWindow = salesRollupService.getSalesReport(tenantId, yesterday, today, "DAY");
+        SalesReport fromTable = salesRollupService.getSalesReport(tenantId, today.minusYears(1), today, "DAY");
+
+        assertEquals(List.of(yesterday.toString(), today.toString()),
+                fromWindow.getRows().stream().map(SalesReportRow::getKey).toList());
+        assertEquals(3, fromWindow.getOrders());
+        assertEquals(fromTable.getOrders(), fromWindow.getOrders());
+        assertEquals(fromTable.getUnits(), fromWindow.getUnits());
+        assertEquals(0, fromTable.getRevenue().compareTo(fromWindow.getRevenue()));
+        assertEquals(fromTable.getRows().size(), fromWindow.getRows().size());
+        assertEquals(fromTable.getRows().get(1).getOrders(), fromWindow.getRows().get(1).getOrders());
+    }
+
+    @Test
+    void getSalesReport_InvalidRequest_ThrowsValidationException() {
+        assertThrows(ValidationException.class,
+                () -> salesRollupService.getSalesReport(tenantId, today, today.minusDays(1), "DAY"));
+        assertThrows(ValidationException.class,
+                () -> salesRollupService.getSalesReport(tenantId, today.minusYears(2), today, "DAY"));
+        assertThrows(ValidationException.class,
+                () -> salesRollupService.getSalesReport(tenantId, today, today, "BRAND"));
+    }
+
+    private Product product(Tenant tenant, String name, String category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("20.00"));
+        product.setQuantity(100);
+        product.setCategory(category);
+        product.setTenant(tenant);
+        return productRepository.save(product);
+    }
+
+    private OrderItemDto item(Product product, int quantity, String totalPrice) {
+        BigDecimal total = new BigDecimal(totalPrice);
+        return new OrderItemDto(null, product.getId(), product.getName(), quantity,
+                total.divide(BigDecimal.valueOf(quantity)), total);
+    }
+
+    private OrderEvent event(OrderEvent.Type type, Long orderId, LocalDate createdOn, OrderItemDto... items) {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        int totalQuantity = 0;
+        for (OrderItemDto item : items) {
+            totalAmount = totalAmount.add(item.getTotalPrice());
+            totalQuantity += item.getQuantity();
+        }
+        return new OrderEvent(type, orderId, "ORD-" + orderId, 1L, tenantId, Order.OrderStatus.PENDING, null,
+                totalAmount, totalQuantity, List.of(items), createdOn.atTime(12, 0), LocalDateTime.now());
+    }
+}
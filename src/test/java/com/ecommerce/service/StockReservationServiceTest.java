@@ -0,0 +1,299 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderItemDto;
+import com.ecommerce.dto.OrderRequestDto;
+import com.ecommerce.dto.ReservationDto;
+import com.ecommerce.entity.StockReservation;
+import com.ecommerce.exception.InsufficientQuantityException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.ValidationException;
+import com.ecommerce.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final long NODE_ID = 3L;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private StockReservationRepository reservationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<StockReservation>> rowsCaptor;
+
+    private AtomicLong clock;
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_700_000_000_000L);
+        stockReservationService = new StockReservationService(orderService, reservationRepository, transactionManager,
+                NODE_ID, clock::get);
+    }
+
+    @Test
+    void reserve_TakesStockWithoutWritingTheReservation() {
+        OrderRequestDto request = request(1L, 2);
+
+        ReservationDto reservation = stockReservationService.reserve(request, USER_ID, null);
+
+        assertNotNull(reservation.getId());
+        assertEquals(1, reservation.getItems().size());
+        verify(orderService).reserveStock(request.getOrderItems());
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void reserve_TtlAboveMaximum_ThrowsValidationException() {
+        assertThrows(ValidationException.class,
+                () -> stockReservationService.reserve(request(1L, 2), USER_ID, TimeUnit.DAYS.toSeconds(1)));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void reserve_InsufficientStock_KeepsNothing() {
+        OrderRequestDto request = request(1L, 2);
+        when(orderService.reserveStock(request.getOrderItems()))
+                .thenThrow(new InsufficientQuantityException("Insufficient quantity"));
+
+        assertThrows(InsufficientQuantityException.class, () -> stockReservationService.reserve(request, USER_ID, null));
+        stockReservationService.flush();
+
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void flush_WritesPendingReservationsInOneBatch() {
+        stockReservationService.reserve(request(1L, 2), USER_ID, null);
+        stockReservationService.reserve(request(2L, 1), USER_ID, null);
+        stockReservationService.reserve(request(3L, 4), 2L, null);
+
+        stockReservationService.flush();
+        stockReservationService.flush();
+
+        verify(reservationRepository, times(1)).saveAll(rowsCaptor.capture());
+        assertEquals(3, rowsCaptor.getValue().size());
+        assertTrue(rowsCaptor.getValue().stream().allMatch(row -> row.getNodeId() == NODE_ID));
+    }
+
+    @Test
+    void flush_WriteFails_RetriesOnNextFlush() {
+        stockReservationService.reserve(request(1L, 2), USER_ID, null);
+        when(reservationRepository.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of());
+
+        stockReservationService.flush();
+        stockReservationService.flush();
+
+        verify(reservationRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void confirm_FlushedReservation_CreatesOrderAndDeletesRows() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, null);
+        stockReservationService.flush();
+        OrderDto order = new OrderDto();
+        order.setId(10L);
+        when(reservationRepository.findByReservationIdInForUpdate(List.of(reservation.getId())))
+                .thenReturn(List.of(row(reservation.getId(), NODE_ID, 1L, 2, 60)));
+        when(orderService.createOrderFromReservation(anyList(), any())).thenReturn(order);
+
+        OrderDto result = stockReservationService.confirm(reservation.getId(), USER_ID);
+
+        assertEquals(10L, result.getId());
+        verify(orderService, never()).releaseStock(any());
+        verify(reservationRepository).deleteByReservationIdIn(List.of(reservation.getId()));
+        assertThrows(ResourceNotFoundException.class,
+                () -> stockReservationService.confirm(reservation.getId(), USER_ID));
+    }
+
+    @Test
+    void confirm_HeldByAnotherInstance_ClaimsItsRows() {
+        StockReservation line = row("r-9", NODE_ID + 1, 1L, 2, 60);
+        when(reservationRepository.findByReservationId("r-9")).thenReturn(List.of(line));
+        when(reservationRepository.findByReservationIdInForUpdate(List.of("r-9"))).thenReturn(List.of(line));
+        when(orderService.createOrderFromReservation(anyList(), any())).thenReturn(new OrderDto());
+
+        stockReservationService.confirm("r-9", USER_ID);
+
+        verify(orderService).createOrderFromReservation(argThat(items -> items.size() == 1
+                && items.get(0).getProductId() == 1L && items.get(0).getQuantity() == 2), eq(USER_ID));
+        verify(reservationRepository).deleteByReservationIdIn(List.of("r-9"));
+    }
+
+    @Test
+    void confirm_ClaimedByAnotherInstance_ThrowsResourceNotFoundException() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, null);
+        stockReservationService.flush();
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> stockReservationService.confirm(reservation.getId(), USER_ID));
+
+        verify(orderService, never()).createOrderFromReservation(anyList(), any());
+        verify(reservationRepository, never()).deleteByReservationIdIn(any());
+        assertThrows(ResourceNotFoundException.class,
+                () -> stockReservationService.getReservation(reservation.getId(), USER_ID));
+    }
+
+    @Test
+    void confirm_BeforeFlush_NeverWritesRows() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, null);
+        when(orderService.createOrderFromReservation(anyList(), any())).thenReturn(new OrderDto());
+
+        stockReservationService.confirm(reservation.getId(), USER_ID);
+        stockReservationService.flush();
+
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void confirm_OtherUser_ThrowsResourceNotFoundException() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, null);
+
+        assertThrows(ResourceNotFoundException.class, () -> stockReservationService.confirm(reservation.getId(), 2L));
+        verify(orderService, never()).createOrderFromReservation(anyList(), any());
+    }
+
+    @Test
+    void confirm_Expired_ThrowsValidationException() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, 60L);
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(61));
+
+        assertThrows(ValidationException.class, () -> stockReservationService.confirm(reservation.getId(), USER_ID));
+    }
+
+    @Test
+    void confirm_OrderFails_KeepsReservation() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, null);
+        when(orderService.createOrderFromReservation(anyList(), any()))
+                .thenThrow(new ResourceNotFoundException("User not found: 1"));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> stockReservationService.confirm(reservation.getId(), USER_ID));
+
+        assertEquals(reservation.getId(), stockReservationService.getReservation(reservation.getId(), USER_ID).getId());
+        stockReservationService.flush();
+        verify(reservationRepository).saveAll(anyList());
+    }
+
+    @Test
+    void cancel_ReleasesStock() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, null);
+
+        stockReservationService.cancel(reservation.getId(), USER_ID);
+
+        verify(orderService).releaseStock(Map.of(1L, 2));
+        assertThrows(ResourceNotFoundException.class,
+                () -> stockReservationService.getReservation(reservation.getId(), USER_ID));
+    }
+
+    @Test
+    void releaseExpired_ReleasesSummedQuantitiesAndKeepsLiveReservations() {
+        ReservationDto first = stockReservationService.reserve(request(1L, 2), USER_ID, 60L);
+        ReservationDto second = stockReservationService.reserve(request(1L, 3), 2L, 60L);
+        ReservationDto live = stockReservationService.reserve(request(1L, 1), USER_ID, 600L);
+        stockReservationService.flush();
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(61));
+        when(reservationRepository.findByReservationIdInForUpdate(anyList())).thenReturn(List.of(
+                row(first.getId(), NODE_ID, 1L, 2, -1), row(second.getId(), NODE_ID, 1L, 3, -1)));
+
+        stockReservationService.releaseExpired();
+
+        verify(orderService).releaseStock(Map.of(1L, 5));
+        verify(reservationRepository).deleteByReservationIdIn(argThat(ids ->
+                ids.size() == 2 && ids.contains(first.getId()) && ids.contains(second.getId())));
+        assertNotNull(stockReservationService.getReservation(live.getId(), USER_ID));
+    }
+
+    @Test
+    void releaseExpired_ReleaseFails_RetriesOnNextRun() {
+        ReservationDto reservation = stockReservationService.reserve(request(1L, 2), USER_ID, 60L);
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(61));
+        doThrow(new IllegalStateException("database unavailable")).doNothing()
+                .when(orderService).releaseStock(any());
+
+        stockReservationService.releaseExpired();
+        assertNotNull(stockReservationService.getReservation(reservation.getId(), USER_ID));
+        stockReservationService.releaseExpired();
+
+        verify(orderService, times(2)).releaseStock(Map.of(1L, 2));
+        assertThrows(ResourceNotFoundException.class,
+                () -> stockReservationService.getReservation(reservation.getId(), USER_ID));
+    }
+
+    @Test
+    void releaseExpired_OrphanedRowsOfAnotherNode_AreReleased() {
+        when(reservationRepository.findReservationIdsExpiredBefore(any(), any())).thenReturn(List.of("r-7"));
+        when(reservationRepository.findByReservationIdInForUpdate(List.of("r-7"))).thenReturn(List.of(
+                row("r-7", NODE_ID + 1, 1L, 2, -600), row("r-7", NODE_ID + 1, 2L, 1, -600)));
+
+        stockReservationService.releaseExpired();
+
+        verify(orderService).releaseStock(Map.of(1L, 2, 2L, 1));
+        verify(reservationRepository).deleteByReservationIdIn(Set.of("r-7"));
+    }
+
+    @Test
+    void loadAll_RestoresFlushedReservationsOfThisNode() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusYears(10);
+        when(reservationRepository.findByNodeId(NODE_ID)).thenReturn(List.of(
+                new StockReservation("r-1", NODE_ID, USER_ID, 1L, 2, expiresAt),
+                new StockReservation("r-1", NODE_ID, USER_ID, 2L, 1, expiresAt)));
+
+        when(reservationRepository.findByReservationIdInForUpdate(List.of("r-1"))).thenReturn(List.of(
+                new StockReservation("r-1", NODE_ID, USER_ID, 1L, 2, expiresAt)));
+
+        stockReservationService.loadAll();
+        stockReservationService.cancel("r-1", USER_ID);
+
+        verify(orderService).releaseStock(Map.of(1L, 2, 2L, 1));
+        verify(reservationRepository).deleteByReservationIdIn(List.of("r-1"));
+    }
+
+    private StockReservation row(String reservationId, long nodeId, Long productId, int quantity,
+                                 long expiresInSeconds) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(clock.get() + TimeUnit.SECONDS.toMillis(expiresInSeconds)), ZoneId.systemDefault());
+        return new StockReservation(reservationId, nodeId, USER_ID, productId, quantity, expiresAt);
+    }
+
+    private OrderRequestDto request(Long productId, int quantity) {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderRequestDto request = new OrderRequestDto();
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
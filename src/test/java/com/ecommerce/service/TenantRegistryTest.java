@@ -0,0 +1,126 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ResolvedTenant;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.repository.TenantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantRegistryTest {
+
+    @Mock
+    private TenantRepository tenantRepository;
+
+    @InjectMocks
+    private TenantRegistry tenantRegistry;
+
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setId(1L);
+        tenant.setName("Nike");
+        tenant.setDomain("nike");
+        tenant.setIsActive(true);
+    }
+
+    @Test
+    void loadAll_ResolvesWithoutQueryingByDomain() {
+        when(tenantRepository.findAll()).thenReturn(List.of(tenant));
+
+        tenantRegistry.loadAll();
+        Optional<ResolvedTenant> result = tenantRegistry.resolve("nike");
+
+        assertTrue(result.isPresent());
+        assertEquals(1L, result.get().getId());
+        assertEquals("Nike", result.get().getName());
+        assertTrue(result.get().isActive());
+        verify(tenantRepository, never()).findByDomain(anyString());
+    }
+
+    @Test
+    void resolve_MissLoadsOnceAndCaches() {
+        when(tenantRepository.findByDomain("nike")).thenReturn(Optional.of(tenant));
+
+        tenantRegistry.resolve("nike");
+        tenantRegistry.resolve("nike");
+
+        verify(tenantRepository, times(1)).findByDomain("nike");
+    }
+
+    @Test
+    void resolve_UnknownDomainIsNegativelyCached() {
+        when(tenantRepository.findByDomain("bogus")).thenReturn(Optional.empty());
+
+        assertTrue(tenantRegistry.resolve("bogus").isEmpty());
+        assertTrue(tenantRegistry.resolve("bogus").isEmpty());
+
+        verify(tenantRepository, times(1)).findByDomain("bogus");
+    }
+
+    @Test
+    void register_ClearsNegativeEntry() {
+        when(tenantRepository.findByDomain("nike")).thenReturn(Optional.empty());
+        assertTrue(tenantRegistry.resolve("nike").isEmpty());
+
+        tenantRegistry.register(tenant);
+
+        assertTrue(tenantRegistry.resolve("nike").isPresent());
+    }
+
+    @Test
+    void evictById_RemovesTenant() {
+        tenantRegistry.register(tenant);
+        when(tenantRepository.findByDomain("nike")).thenReturn(Optional.empty());
+
+        tenantRegistry.evictById(1L);
+
+        assertTrue(tenantRegistry.resolve("nike").isEmpty());
+    }
+
+    @Test
+    void register_InsideTransaction_AppliesAfterCommit() {
+        when(tenantRepository.findByDomain("nike")).thenReturn(Optional.empty());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tenantRegistry.register(tenant);
+            assertTrue(tenantRegistry.resolve("nike").isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(tenantRegistry.resolve("nike").isPresent());
+    }
+
+    @Test
+    void evictById_RolledBack_KeepsTenant() {
+        tenantRegistry.register(tenant);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tenantRegistry.evictById(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(tenantRegistry.resolve("nike").isPresent());
+        verify(tenantRepository, never()).findByDomain(anyString());
+    }
+}
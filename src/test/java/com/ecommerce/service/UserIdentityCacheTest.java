@@ -0,0 +1,98 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.AuthenticatedUser;
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Tenant;
+import com.ecommerce.entity.User;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.TenantRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(UserIdentityCache.class)
+class UserIdentityCacheTest {
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    private Tenant tenant;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setName("Identity Tenant");
+        tenant.setDomain("identity");
+        tenantRepository.save(tenant);
+
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        roleRepository.save(role);
+
+        user = new User();
+        user.setUsername("shopper");
+        user.setEmail("shopper@example.com");
+        user.setKeycloakId("kc-shopper");
+        user.setRole(role);
+        user.setTenant(tenant);
+        userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllInBatch();
+        roleRepository.deleteAllInBatch();
+        tenantRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void findBySubject_CachesUntilEvicted() {
+        AuthenticatedUser identity = userIdentityCache.findBySubject("kc-shopper").orElseThrow();
+        assertEquals(user.getId(), identity.getId());
+        assertEquals(tenant.getId(), identity.getTenantId());
+        assertEquals(Role.RoleType.USER, identity.getRole());
+
+        user.setUsername("renamed");
+        userRepository.save(user);
+        assertEquals("shopper", userIdentityCache.findBySubject("kc-shopper").orElseThrow().getUsername());
+
+        userIdentityCache.evict(user.getId());
+        assertEquals("renamed", userIdentityCache.findBySubject("kc-shopper").orElseThrow().getUsername());
+    }
+
+    @Test
+    void getById_DeletedUser_ThrowsResourceNotFoundException() {
+        assertEquals("shopper", userIdentityCache.getById(user.getId()).getUsername());
+        assertTrue(userIdentityCache.findBySubject("kc-unknown").isEmpty());
+
+        userRepository.deleteAllInBatch();
+        userIdentityCache.evict(user.getId());
+
+        assertThrows(ResourceNotFoundException.class, () -> userIdentityCache.getById(user.getId()));
+    }
+}
@@ -40,6 +40,9 @@ class UserServiceTest {
     @Mock
     private TenantRepository tenantRepository;
     
+    @Mock
+    private UserIdentityCache userIdentityCache;
+    
     @InjectMocks
     private UserService userService;
     
@@ -134,8 +137,6 @@ class UserServiceTest {
     void updateUser_Success() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(roleRepository.findByName(Role.RoleType.ADMIN)).thenReturn(Optional.of(role));
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
         when(tenantRepository.findById(1L)).thenReturn(Optional.of(tenant));
         when(userRepository.save(any(User.class))).thenReturn(user);
         
@@ -145,6 +146,7 @@ class UserServiceTest {
         
         assertNotNull(result);
         verify(userRepository).save(any(User.class));
+        verify(userIdentityCache).evict(1L);
     }
     
     @Test
@@ -154,6 +156,7 @@ class UserServiceTest {
         userService.deleteUser(1L);
         
         verify(userRepository).deleteById(1L);
+        verify(userIdentityCache).evict(1L);
     }
     
     @Test